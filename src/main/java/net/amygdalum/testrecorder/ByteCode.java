@@ -1,7 +1,5 @@
 package net.amygdalum.testrecorder;
 
-import static java.util.Comparator.comparingInt;
-import static java.util.stream.Collectors.toList;
 import static org.objectweb.asm.Opcodes.AASTORE;
 import static org.objectweb.asm.Opcodes.ALOAD;
 import static org.objectweb.asm.Opcodes.ASTORE;
@@ -14,7 +12,6 @@ import static org.objectweb.asm.Opcodes.INVOKESTATIC;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
-import java.util.List;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
@@ -23,7 +20,6 @@ import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.InsnNode;
 import org.objectweb.asm.tree.LdcInsnNode;
-import org.objectweb.asm.tree.LocalVariableNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.TypeInsnNode;
 import org.objectweb.asm.tree.VarInsnNode;
@@ -33,11 +29,14 @@ public final class ByteCode {
 	private ByteCode() {
 	}
 	
-	public static List<LocalVariableNode> range(List<LocalVariableNode> locals, int start, int length) {
-		return locals.stream()
-			.filter(local -> local.index >= start && local.index < start + length)
-			.sorted(comparingInt(local -> local.index))
-			.collect(toList());
+	public static int[] argumentLocals(int start, Type... argumentTypes) {
+		int[] locals = new int[argumentTypes.length];
+		int local = start;
+		for (int i = 0; i < argumentTypes.length; i++) {
+			locals[i] = local;
+			local += argumentTypes[i].getSize();
+		}
+		return locals;
 	}
 
 	public static InsnList memorizeLocal(Type type, int newLocal) {
@@ -76,7 +75,7 @@ public final class ByteCode {
 
 	}
 
-	public static InsnList pushAsArray(List<LocalVariableNode> locals, Type... argumentTypes) {
+	public static InsnList pushAsArray(int[] locals, Type... argumentTypes) {
 		int params = argumentTypes.length;
 		
 		InsnList insnList = new InsnList();
@@ -87,10 +86,9 @@ public final class ByteCode {
 		for (int i = 0; i < params; i++) {
 			insnList.add(new InsnNode(DUP));
 			insnList.add(new LdcInsnNode(i));
-			LocalVariableNode node = (LocalVariableNode) locals.get(i);
-			Type type = Type.getType(node.desc);
+			Type type = argumentTypes[i];
 			
-			insnList.add(new VarInsnNode(type.getOpcode(ILOAD), node.index));
+			insnList.add(new VarInsnNode(type.getOpcode(ILOAD), locals[i]));
 			
 			insnList.add(boxPrimitives(type));
 			
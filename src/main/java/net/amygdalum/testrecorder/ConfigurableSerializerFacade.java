@@ -1,66 +1,192 @@
 package net.amygdalum.testrecorder;
 
-import static net.amygdalum.testrecorder.util.Reflections.accessing;
 import static net.amygdalum.testrecorder.values.SerializedLiteral.isLiteral;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.ServiceConfigurationError;
-import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
-import java.util.stream.StreamSupport;
 
-import net.amygdalum.testrecorder.serializers.ArraySerializer;
-import net.amygdalum.testrecorder.serializers.EnumSerializer;
 import net.amygdalum.testrecorder.serializers.GenericSerializer;
+import net.amygdalum.testrecorder.util.FieldAccessor;
+import net.amygdalum.testrecorder.util.IdentityTable;
+import net.amygdalum.testrecorder.values.SerializedArray;
 import net.amygdalum.testrecorder.values.SerializedField;
+import net.amygdalum.testrecorder.values.SerializedList;
 import net.amygdalum.testrecorder.values.SerializedLiteral;
 import net.amygdalum.testrecorder.values.SerializedNull;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
 
+/**
+ * Serializes object graphs of arbitrary depth. Serializers populate nested values by calling back into the facade, so the first
+ * {@value #MAX_NESTING} levels of a graph are populated recursively. Values below are generated (and returned to their referrer)
+ * immediately, but populated later from a worklist in the order they were reached. The resulting graph is the same, but the stack
+ * depth is bounded.
+ * 
+ * If a parallel threshold is set, the elements of lists and arrays with at least this number of elements are serialized on the
+ * {@link ForkJoinPool#commonPool() common fork/join pool} before the list or array itself is populated. Each task serializes a
+ * range of elements with its own worker facade. Objects serialized before are looked up (read only) in the table of this facade,
+ * objects reached by the workers are claimed in a shared concurrent identity map, so each object is serialized only once, even if
+ * it is shared between tasks or part of a cycle. Afterwards the list or array is populated as usual, finding all its elements
+ * serialized, so the element order is preserved.
+ */
 public class ConfigurableSerializerFacade implements SerializerFacade {
 
-	private Map<Class<?>, Serializer<?>> serializers;
-	private Map<Object, SerializedValue> serialized;
+	public static final int MAX_NESTING = 64;
+	public static final int MIN_CHUNK = 64;
+
+	private static final ThreadLocal<IdentityTable<SerializedValue>> RELEASED = new ThreadLocal<>();
+
+	private SerializerRegistry registry;
+	private Map<SerializerFactory<?>, Serializer<?>> serializers;
+	private IdentityTable<SerializedValue> serialized;
 	private List<Predicate<Class<?>>> classExclusions;
 	private List<Predicate<Field>> fieldExclusions;
+	private SerializableFields fields;
+	private GeneratedSerializers generated;
+	private GenericSerializer generic;
+	private int generationThreshold;
+	private int parallelThreshold;
+	private SerializationBudget budget;
+	private SerializationLimits limits;
+	private int depth;
+	private int objects;
+	private Fingerprints fingerprints;
+	private Fingerprints unchanged;
+	private int nesting;
+	private Deque<Pending> pending;
+	private Shared shared;
 
 	public ConfigurableSerializerFacade(SerializationProfile profile) {
-		serializers = setupSerializers(this);
-		serialized = new IdentityHashMap<>();
+		registry = SerializerRegistry.forClassLoader(Thread.currentThread().getContextClassLoader(), this);
+		serializers = new IdentityHashMap<>();
+		serialized = acquire();
 		classExclusions = profile.getClassExclusions();
 		fieldExclusions = profile.getFieldExclusions();
+		fields = SerializableFields.forProfile(profile);
+		generated = GeneratedSerializers.forProfile(profile);
+		generic = new GenericSerializer(this, fields);
+		generationThreshold = -1;
+		parallelThreshold = -1;
+		budget = SerializationBudget.unlimited();
+		limits = limits(profile);
+		pending = new ArrayDeque<>();
 	}
 
-	@SuppressWarnings("rawtypes")
-	private static Map<Class<?>, Serializer<?>> setupSerializers(SerializerFacade facade) {
-		IdentityHashMap<Class<?>, Serializer<?>> serializers = new IdentityHashMap<>();
-		try {
-			ServiceLoader<SerializerFactory> loader = ServiceLoader.load(SerializerFactory.class);
+	public ConfigurableSerializerFacade(SerializationProfile profile, SerializerRegistry registry) {
+		this.registry = registry;
+		serializers = new IdentityHashMap<>();
+		serialized = acquire();
+		classExclusions = profile.getClassExclusions();
+		fieldExclusions = profile.getFieldExclusions();
+		fields = SerializableFields.forProfile(profile);
+		generated = GeneratedSerializers.forProfile(profile);
+		generic = new GenericSerializer(this, fields);
+		generationThreshold = -1;
+		parallelThreshold = -1;
+		budget = SerializationBudget.unlimited();
+		limits = limits(profile);
+		pending = new ArrayDeque<>();
+	}
 
-			StreamSupport.stream(loader.spliterator(), false)
-				.map(factory -> (Serializer<?>) factory.newSerializer(facade))
-				.forEach(serializer -> {
-					for (Class<?> clazz : serializer.getMatchingClasses()) {
-						serializers.put(clazz, serializer);
-					}
-				});
-		} catch (ServiceConfigurationError serviceError) {
-			System.out.println("failed loading serializers: " + serviceError.getMessage());
+	private ConfigurableSerializerFacade(ConfigurableSerializerFacade parent, Shared shared) {
+		registry = parent.registry;
+		serializers = new IdentityHashMap<>();
+		serialized = parent.serialized;
+		classExclusions = parent.classExclusions;
+		fieldExclusions = parent.fieldExclusions;
+		fields = parent.fields;
+		generated = parent.generated;
+		generic = new GenericSerializer(this, fields);
+		generationThreshold = parent.generationThreshold;
+		parallelThreshold = parent.parallelThreshold;
+		budget = parent.budget;
+		limits = parent.limits;
+		depth = parent.depth;
+		pending = new ArrayDeque<>();
+		this.shared = shared;
+	}
+
+	private static IdentityTable<SerializedValue> acquire() {
+		IdentityTable<SerializedValue> table = RELEASED.get();
+		if (table == null) {
+			return new IdentityTable<>();
+		}
+		RELEASED.set(null);
+		return table;
+	}
+
+	/**
+	 * hands the table of serialized objects over to the next facade created in the current thread, such that its size adapts to
+	 * the snapshots recorded in this thread instead of being allocated again for each facade. The facade must not be used afterwards.
+	 */
+	public void release() {
+		IdentityTable<SerializedValue> table = serialized;
+		serialized = null;
+		table.purge();
+		if (RELEASED.get() == null) {
+			RELEASED.set(table);
 		}
+	}
 
-		return serializers;
+	private static SerializationLimits limits(SerializationProfile profile) {
+		SerializationLimits limits = profile.getLimits();
+		if (limits == null) {
+			return SerializationLimits.unlimited();
+		}
+		return limits;
+	}
+
+	public void setBudget(SerializationBudget budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * @param generationThreshold the number of serializations of a class after which a specialized serializer is generated, negative values disable generation
+	 */
+	public void setGenerationThreshold(int generationThreshold) {
+		this.generationThreshold = generationThreshold;
+	}
+
+	/**
+	 * @param parallelThreshold the number of elements of a list or array from which on its elements are serialized in parallel, negative values disable parallel serialization
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * Remembers the objects serialized since the last reset together with a fingerprint of their current state. After the next reset
+	 * objects that did not change (including all objects reachable from them) are serialized to the remembered values. Top level
+	 * objects (this, arguments, results) are always serialized again, so that generated tests still assert their state.
+	 */
+	public void fingerprint() {
+		Fingerprints fingerprints = new Fingerprints(fields);
+		serialized.forEach(fingerprints::record);
+		this.fingerprints = fingerprints;
 	}
 
 	@Override
 	public void reset() {
 		serialized.clear();
+		depth = 0;
+		objects = 0;
+		pending.clear();
+		unchanged = fingerprints;
+		fingerprints = null;
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Override
 	public SerializedValue serialize(Type type, Object object) {
 		if (object == null) {
@@ -68,27 +194,145 @@ public class ConfigurableSerializerFacade implements SerializerFacade {
 		} else if (isLiteral(object.getClass())) {
 			return SerializedLiteral.literal(object);
 		}
-		SerializedValue serializedObject = serialized.get(object);
+		SerializedValue serializedObject = lookup(object);
+		if (serializedObject == null && unchanged != null && depth > 0) {
+			serializedObject = unchanged.unchanged(object);
+			if (serializedObject != null) {
+				serialized.put(object, serializedObject);
+			}
+		}
 		if (serializedObject == null) {
-			Serializer serializer = fetchSerializer(object.getClass());
+			String truncation = truncation(object);
+			if (truncation != null) {
+				return new SerializedTruncated(object.getClass(), truncation).withResult(type);
+			}
+			budget.visit();
+			count();
+			Serializer<?> serializer = fetchSerializer(object.getClass());
 			serializedObject = serializer.generate(type, object.getClass());
-			serialized.put(object, serializedObject);
-			serializer.populate(serializedObject, object);
+			SerializedValue claimed = claim(object, serializedObject);
+			if (claimed != serializedObject) {
+				return claimed;
+			}
+			Pending next = new Pending(serializer, serializedObject, object, depth + 1);
+			if (nesting == 0) {
+				pending.add(next);
+				populatePending();
+			} else if (nesting < MAX_NESTING) {
+				populate(next);
+			} else {
+				pending.add(next);
+			}
 		}
 		return serializedObject;
 	}
 
-	private Serializer<?> fetchSerializer(Class<?> clazz) {
-		Serializer<?> serializer = serializers.get(clazz);
-		if (serializer != null) {
-			return serializer;
-		}
-		if (clazz.isArray()) {
-			serializer = new ArraySerializer(this);
-		} else if (clazz.isEnum() || (clazz.getSuperclass() != null && clazz.getSuperclass().isEnum())) {
-			serializer = new EnumSerializer(this);
+	private SerializedValue lookup(Object object) {
+		SerializedValue serializedObject = serialized.get(object);
+		if (serializedObject == null && shared != null) {
+			serializedObject = shared.get(object);
+		}
+		return serializedObject;
+	}
+
+	private SerializedValue claim(Object object, SerializedValue serializedObject) {
+		if (shared == null) {
+			serialized.put(object, serializedObject);
+			return serializedObject;
+		}
+		return shared.claim(object, serializedObject);
+	}
+
+	private int objects() {
+		return shared == null ? objects : shared.objects.get();
+	}
+
+	private void count() {
+		if (shared == null) {
+			objects++;
 		} else {
-			serializer = new GenericSerializer(this);
+			shared.objects.incrementAndGet();
+		}
+	}
+
+	private void populatePending() {
+		try {
+			while (!pending.isEmpty()) {
+				populate(pending.remove());
+			}
+		} finally {
+			pending.clear();
+		}
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void populate(Pending next) {
+		int outer = depth;
+		depth = next.depth;
+		nesting++;
+		try {
+			if (parallelThreshold >= 0) {
+				serializeElements(next.value, next.object);
+			}
+			((Serializer) next.serializer).populate(next.value, next.object);
+		} finally {
+			depth = outer;
+			nesting--;
+		}
+	}
+
+	private void serializeElements(SerializedValue value, Object object) {
+		if (value instanceof SerializedList && object instanceof List<?> && ((List<?>) object).size() >= parallelThreshold) {
+			serializeElements(((SerializedList) value).getComponentType(), ((List<?>) object).toArray());
+		} else if (value instanceof SerializedArray && object instanceof Object[] && ((Object[]) object).length >= parallelThreshold) {
+			serializeElements(((SerializedArray) value).getComponentType(), (Object[]) object);
+		}
+	}
+
+	private void serializeElements(Type type, Object[] elements) {
+		Shared shared = this.shared == null ? new Shared(objects) : this.shared;
+		int chunk = Math.max(MIN_CHUNK, elements.length / (4 * ForkJoinPool.getCommonPoolParallelism()));
+		new SerializeElements(this, shared, type, elements, 0, elements.length, chunk).invoke();
+		if (this.shared == null) {
+			shared.values.forEach((identity, serializedObject) -> serialized.put(identity.object, serializedObject));
+			objects = shared.objects.get();
+		}
+	}
+
+	private String truncation(Object object) {
+		if (depth > limits.getMaxDepth()) {
+			return "more than " + limits.getMaxDepth() + " references deep";
+		} else if (objects() >= limits.getMaxObjects()) {
+			return "more than " + limits.getMaxObjects() + " objects";
+		} else if (limits.getMaxElements() != SerializationLimits.UNLIMITED && elements(object) > limits.getMaxElements()) {
+			return "more than " + limits.getMaxElements() + " elements";
+		}
+		return null;
+	}
+
+	private static int elements(Object object) {
+		if (object instanceof Collection<?>) {
+			return ((Collection<?>) object).size();
+		} else if (object instanceof Map<?, ?>) {
+			return ((Map<?, ?>) object).size();
+		} else if (object.getClass().isArray()) {
+			return Array.getLength(object);
+		}
+		return 0;
+	}
+
+	private Serializer<?> fetchSerializer(Class<?> clazz) {
+		SerializerFactory<?> factory = registry.resolve(clazz);
+		if (factory == null) {
+			factory = generated.lookup(clazz, generationThreshold);
+		}
+		if (factory == null) {
+			return generic;
+		}
+		Serializer<?> serializer = serializers.get(factory);
+		if (serializer == null) {
+			serializer = factory.newSerializer(this);
+			serializers.put(factory, serializer);
 		}
 		return serializer;
 	}
@@ -103,7 +347,8 @@ public class ConfigurableSerializerFacade implements SerializerFacade {
 	@Override
 	public SerializedField serialize(Field field, Object obj) {
 		try {
-			return accessing(field).call(() -> new SerializedField(field.getDeclaringClass(), field.getName(), field.getType(), serialize(field.getType(), field.get(obj))));
+			Object value = field.isAccessible() ? field.get(obj) : FieldAccessor.of(field).get(obj);
+			return new SerializedField(field.getDeclaringClass(), field.getName(), field.getType(), serialize(field.getType(), value));
 		} catch (ReflectiveOperationException e) {
 			System.out.println(field.getName());
 			throw new SerializationException(e);
@@ -128,4 +373,98 @@ public class ConfigurableSerializerFacade implements SerializerFacade {
 			.anyMatch(exclusion -> exclusion.test(clazz));
 	}
 
+	private static class Shared {
+
+		private Map<Identity, SerializedValue> values;
+		private AtomicInteger objects;
+
+		Shared(int objects) {
+			this.values = new ConcurrentHashMap<>();
+			this.objects = new AtomicInteger(objects);
+		}
+
+		SerializedValue get(Object object) {
+			return values.get(new Identity(object));
+		}
+
+		SerializedValue claim(Object object, SerializedValue value) {
+			SerializedValue claimed = values.putIfAbsent(new Identity(object), value);
+			return claimed == null ? value : claimed;
+		}
+
+	}
+
+	private static class Identity {
+
+		private Object object;
+
+		Identity(Object object) {
+			this.object = object;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(object);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Identity && ((Identity) obj).object == object;
+		}
+
+	}
+
+	private static class SerializeElements extends RecursiveAction {
+
+		private ConfigurableSerializerFacade parent;
+		private Shared shared;
+		private Type type;
+		private Object[] elements;
+		private int from;
+		private int to;
+		private int chunk;
+
+		SerializeElements(ConfigurableSerializerFacade parent, Shared shared, Type type, Object[] elements, int from, int to, int chunk) {
+			this.parent = parent;
+			this.shared = shared;
+			this.type = type;
+			this.elements = elements;
+			this.from = from;
+			this.to = to;
+			this.chunk = chunk;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= chunk) {
+				ConfigurableSerializerFacade worker = new ConfigurableSerializerFacade(parent, shared);
+				for (int i = from; i < to; i++) {
+					worker.serialize(type, elements[i]);
+				}
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(
+					new SerializeElements(parent, shared, type, elements, from, mid, chunk),
+					new SerializeElements(parent, shared, type, elements, mid, to, chunk));
+			}
+		}
+
+	}
+
+	private static class Pending {
+
+		private Serializer<?> serializer;
+		private SerializedValue value;
+		private Object object;
+		private int depth;
+
+		Pending(Serializer<?> serializer, SerializedValue value, Object object, int depth) {
+			this.serializer = serializer;
+			this.value = value;
+			this.object = object;
+			this.depth = depth;
+		}
+
+	}
+
 }
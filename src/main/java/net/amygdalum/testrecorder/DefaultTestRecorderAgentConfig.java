@@ -23,6 +23,8 @@ public class DefaultTestRecorderAgentConfig implements TestRecorderAgentConfig {
 
 	public static final List<Field> DEFAULT_GLOBAL_FIELDS = emptyList();
 
+	public static final SerializationLimits DEFAULT_LIMITS = SerializationLimits.unlimited();
+
 	@Override
 	public List<Predicate<Field>> getFieldExclusions() {
 		return DEFAULT_FIELD_EXCLUDES;
@@ -38,6 +40,11 @@ public class DefaultTestRecorderAgentConfig implements TestRecorderAgentConfig {
 		return DEFAULT_GLOBAL_FIELDS;
 	}
 
+	@Override
+	public SerializationLimits getLimits() {
+		return DEFAULT_LIMITS;
+	}
+
 	@Override
 	public SnapshotConsumer getSnapshotConsumer() {
 		return new TestGenerator(getInitializer());
@@ -44,4 +44,14 @@ public class DefaultingSerializationProfile implements SerializationProfile {
 		}
 	}
 
+	@Override
+	public SerializationLimits getLimits() {
+		SerializationLimits limits = profile.getLimits();
+		if (limits == null) {
+			return defaultProfile.getLimits();
+		} else {
+			return limits;
+		}
+	}
+
 }
@@ -0,0 +1,293 @@
+package net.amygdalum.testrecorder;
+
+import static net.amygdalum.testrecorder.values.SerializedLiteral.isLiteral;
+
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.amygdalum.testrecorder.util.FieldAccessor;
+import net.amygdalum.testrecorder.values.SerializedArray;
+import net.amygdalum.testrecorder.values.SerializedList;
+import net.amygdalum.testrecorder.values.SerializedMap;
+import net.amygdalum.testrecorder.values.SerializedNull;
+import net.amygdalum.testrecorder.values.SerializedObject;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+import net.amygdalum.testrecorder.values.SerializedSet;
+
+/**
+ * Remembers serialized objects together with a fingerprint of their state at the time of serialization. The fingerprint of an
+ * object is its direct content (the serializable fields, the elements of arrays and collections or the entries of maps), where
+ * literals contribute their value and referenced objects their identity. A hash of this content is compared first, so only
+ * fingerprints with equal hashes are compared element by element. Primitive arrays are compared with the copy stored in their
+ * serialized value.
+ *
+ * An object is unchanged if its fingerprint and the fingerprints of all objects reachable from it are the same as before. The
+ * serialized value of an unchanged object can be reused, because it describes the current state of the object.
+ */
+public class Fingerprints {
+
+	private static final long PRIME = 0x100000001b3L;
+	private static final long OFFSET = 0xcbf29ce484222325L;
+	private static final long NULL = 0x9e3779b97f4a7c15L;
+
+	private SerializableFields fields;
+	private Map<Object, Fingerprint> fingerprints;
+	private Map<Object, SerializedValue> unchanged;
+
+	public Fingerprints(SerializableFields fields) {
+		this.fields = fields;
+		this.fingerprints = new IdentityHashMap<>();
+		this.unchanged = new IdentityHashMap<>();
+	}
+
+	public void record(Map<Object, SerializedValue> serialized) {
+		serialized.forEach(this::record);
+	}
+
+	public void record(Object object, SerializedValue value) {
+		Shape shape = shape(object, value);
+		if (shape != null) {
+			fingerprints.put(object, new Fingerprint(value, shape));
+		}
+	}
+
+	public int size() {
+		return fingerprints.size();
+	}
+
+	/**
+	 * @param object the object to check
+	 * @return the recorded serialized value if the object and all objects reachable from it are unchanged, otherwise null
+	 */
+	public SerializedValue unchanged(Object object) {
+		Fingerprint fingerprint = fingerprints.get(object);
+		if (fingerprint == null) {
+			return null;
+		}
+		if (!unchanged.containsKey(object)) {
+			check(object);
+		}
+		return unchanged.get(object);
+	}
+
+	/**
+	 * Decides for all objects reachable from root whether they are unchanged. Objects on a reference cycle (more precisely in a
+	 * strongly connected component) are only unchanged together, so the check follows Tarjan's algorithm (iteratively, because object
+	 * graphs may be deep).
+	 */
+	private void check(Object root) {
+		Map<Object, Frame> open = new IdentityHashMap<>();
+		Deque<Frame> component = new ArrayDeque<>();
+		Deque<Frame> stack = new ArrayDeque<>();
+		int[] index = new int[1];
+
+		stack.push(open(root, index, open, component));
+		while (!stack.isEmpty()) {
+			Frame frame = stack.peek();
+			Object reference = frame.nextReference();
+			if (reference != null) {
+				Frame referenced = open.get(reference);
+				if (referenced != null) {
+					frame.lowlink = Math.min(frame.lowlink, referenced.index);
+				} else if (unchanged.containsKey(reference)) {
+					frame.changed |= unchanged.get(reference) == null;
+				} else if (!fingerprints.containsKey(reference)) {
+					frame.changed = true;
+				} else {
+					stack.push(open(reference, index, open, component));
+				}
+				continue;
+			}
+			stack.pop();
+			if (frame.lowlink == frame.index) {
+				close(frame, open, component);
+			}
+			Frame parent = stack.peek();
+			if (parent != null) {
+				if (open.containsKey(frame.object)) {
+					parent.lowlink = Math.min(parent.lowlink, frame.lowlink);
+				} else {
+					parent.changed |= unchanged.get(frame.object) == null;
+				}
+			}
+		}
+	}
+
+	private Frame open(Object object, int[] index, Map<Object, Frame> open, Deque<Frame> component) {
+		Fingerprint fingerprint = fingerprints.get(object);
+		Shape shape = shape(object, fingerprint.value);
+		Frame frame = new Frame(object, index[0]++, shape);
+		frame.changed = shape == null || !shape.matches(fingerprint.shape) || !samePrimitives(object, fingerprint.value);
+		open.put(object, frame);
+		component.push(frame);
+		return frame;
+	}
+
+	private void close(Frame root, Map<Object, Frame> open, Deque<Frame> component) {
+		List<Frame> members = new ArrayList<>();
+		boolean changed = false;
+		Frame member;
+		do {
+			member = component.pop();
+			open.remove(member.object);
+			members.add(member);
+			changed |= member.changed;
+		} while (member != root);
+		for (Frame frame : members) {
+			unchanged.put(frame.object, changed ? null : fingerprints.get(frame.object).value);
+		}
+	}
+
+	private Shape shape(Object object, SerializedValue value) {
+		Shape shape = new Shape();
+		if (value instanceof SerializedObject) {
+			for (Field field : fields.get(object.getClass())) {
+				try {
+					shape.add(FieldAccessor.of(field).get(object));
+				} catch (ReflectiveOperationException | RuntimeException e) {
+					return null;
+				}
+			}
+		} else if (value instanceof SerializedArray && object instanceof Object[]) {
+			for (Object element : (Object[]) object) {
+				shape.add(element);
+			}
+		} else if (value instanceof SerializedPrimitiveArray) {
+			return shape;
+		} else if ((value instanceof SerializedList || value instanceof SerializedSet) && object instanceof Collection<?>) {
+			for (Object element : (Collection<?>) object) {
+				shape.add(element);
+			}
+		} else if (value instanceof SerializedMap && object instanceof Map<?, ?>) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+				shape.add(entry.getKey());
+				shape.add(entry.getValue());
+			}
+		} else if (!(value instanceof SerializedImmutableType) && !(value instanceof SerializedNull)) {
+			return null;
+		}
+		return shape;
+	}
+
+	private static class Fingerprint {
+
+		private SerializedValue value;
+		private Shape shape;
+
+		Fingerprint(SerializedValue value, Shape shape) {
+			this.value = value;
+			this.shape = shape;
+		}
+
+	}
+
+	private static boolean samePrimitives(Object object, SerializedValue value) {
+		if (!(value instanceof SerializedPrimitiveArray)) {
+			return true;
+		}
+		Object array = ((SerializedPrimitiveArray) value).getArray();
+		if (object instanceof boolean[] && array instanceof boolean[]) {
+			return Arrays.equals((boolean[]) object, (boolean[]) array);
+		} else if (object instanceof char[] && array instanceof char[]) {
+			return Arrays.equals((char[]) object, (char[]) array);
+		} else if (object instanceof byte[] && array instanceof byte[]) {
+			return Arrays.equals((byte[]) object, (byte[]) array);
+		} else if (object instanceof short[] && array instanceof short[]) {
+			return Arrays.equals((short[]) object, (short[]) array);
+		} else if (object instanceof int[] && array instanceof int[]) {
+			return Arrays.equals((int[]) object, (int[]) array);
+		} else if (object instanceof float[] && array instanceof float[]) {
+			return Arrays.equals((float[]) object, (float[]) array);
+		} else if (object instanceof long[] && array instanceof long[]) {
+			return Arrays.equals((long[]) object, (long[]) array);
+		} else if (object instanceof double[] && array instanceof double[]) {
+			return Arrays.equals((double[]) object, (double[]) array);
+		}
+		return false;
+	}
+
+	private static boolean isReference(Object element) {
+		return element != null && !isLiteral(element.getClass());
+	}
+
+	private static class Shape {
+
+		private long hash = OFFSET;
+		private List<Object> elements = new ArrayList<>();
+
+		void add(Object element) {
+			elements.add(element);
+			if (element == null) {
+				mix(NULL);
+			} else if (isLiteral(element.getClass())) {
+				mix(element.getClass().hashCode());
+				mix(element.hashCode());
+			} else {
+				mix(System.identityHashCode(element));
+			}
+		}
+
+		/**
+		 * @return true if this shape has the same literals and the same (identical) references as the other shape
+		 */
+		boolean matches(Shape other) {
+			if (hash != other.hash || elements.size() != other.elements.size()) {
+				return false;
+			}
+			for (int i = 0; i < elements.size(); i++) {
+				Object element = elements.get(i);
+				Object otherElement = other.elements.get(i);
+				if (element == otherElement) {
+					continue;
+				} else if (element == null || otherElement == null || !isLiteral(element.getClass()) || !element.equals(otherElement)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void mix(long value) {
+			hash = (hash ^ value) * PRIME;
+		}
+
+	}
+
+	private static class Frame {
+
+		private Object object;
+		private int index;
+		private int lowlink;
+		private boolean changed;
+		private List<Object> elements;
+		private int next;
+
+		Frame(Object object, int index, Shape shape) {
+			this.object = object;
+			this.index = index;
+			this.lowlink = index;
+			this.elements = shape == null ? new ArrayList<>() : shape.elements;
+		}
+
+		/**
+		 * @return the next referenced (non literal) element, or null if there is none
+		 */
+		Object nextReference() {
+			while (next < elements.size()) {
+				Object element = elements.get(next++);
+				if (isReference(element)) {
+					return element;
+				}
+			}
+			return null;
+		}
+
+	}
+
+}
@@ -1,6 +1,7 @@
 package net.amygdalum.testrecorder;
 
 import java.lang.reflect.Field;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -9,9 +10,15 @@ public class FixedTestRecorderAgentConfig implements TestRecorderAgentConfig {
 	private List<Predicate<Field>> fieldExclusions;
 	private List<Predicate<Class<?>>> classExclusions;
 	private List<Field> globalFields;
+	private SerializationLimits limits;
 
 	private SnapshotConsumer snapshotConsumer;
 	private long timeoutInMillis;
+	private int snapshotThreads;
+	private long maxSnapshotObjects;
+	private int serializerGenerationThreshold;
+	private int parallelSerializationThreshold;
+	private Path instrumentationCache;
 	private List<String> packages;
 	private Class<? extends Runnable> initializer;
 
@@ -19,8 +26,14 @@ public class FixedTestRecorderAgentConfig implements TestRecorderAgentConfig {
 		this.fieldExclusions = config.getFieldExclusions();
 		this.classExclusions = config.getClassExclusions();
 		this.globalFields = config.getGlobalFields();
+		this.limits = config.getLimits();
 		this.snapshotConsumer = config.getSnapshotConsumer();
 		this.timeoutInMillis = config.getTimeoutInMillis();
+		this.snapshotThreads = config.getSnapshotThreads();
+		this.maxSnapshotObjects = config.getMaxSnapshotObjects();
+		this.serializerGenerationThreshold = config.getSerializerGenerationThreshold();
+		this.parallelSerializationThreshold = config.getParallelSerializationThreshold();
+		this.instrumentationCache = config.getInstrumentationCache();
 		this.packages = config.getPackages();
 		this.initializer = config.getInitializer();
 	}
@@ -40,6 +53,11 @@ public class FixedTestRecorderAgentConfig implements TestRecorderAgentConfig {
 		return globalFields;
 	}
 
+	@Override
+	public SerializationLimits getLimits() {
+		return limits;
+	}
+
 	@Override
 	public SnapshotConsumer getSnapshotConsumer() {
 		return snapshotConsumer;
@@ -50,6 +68,31 @@ public class FixedTestRecorderAgentConfig implements TestRecorderAgentConfig {
 		return timeoutInMillis;
 	}
 
+	@Override
+	public int getSnapshotThreads() {
+		return snapshotThreads;
+	}
+
+	@Override
+	public long getMaxSnapshotObjects() {
+		return maxSnapshotObjects;
+	}
+
+	@Override
+	public int getSerializerGenerationThreshold() {
+		return serializerGenerationThreshold;
+	}
+
+	@Override
+	public int getParallelSerializationThreshold() {
+		return parallelSerializationThreshold;
+	}
+
+	@Override
+	public Path getInstrumentationCache() {
+		return instrumentationCache;
+	}
+
 	@Override
 	public List<String> getPackages() {
 		return packages;
@@ -0,0 +1,110 @@
+package net.amygdalum.testrecorder;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.amygdalum.testrecorder.serializers.GeneratedSerializerFactory;
+
+/**
+ * Counts how often objects of a class are serialized with the generic serializer. After a given number of serializations a
+ * {@link GeneratedSerializerFactory} is generated for the class (with the {@link SerializableFields} of the profile baked in) and
+ * returned instead.
+ *
+ * Counting and generation are shared by all {@link ConfigurableSerializerFacade}s with the same profile. Counting is not
+ * synchronized, so the number of serializations before generation is approximate.
+ */
+public class GeneratedSerializers extends ClassValue<GeneratedSerializers.Usage> {
+
+	private static final Map<SerializationProfile, GeneratedSerializers> PROFILES = new WeakHashMap<>();
+
+	private static volatile Last last;
+
+	private SerializableFields fields;
+
+	public GeneratedSerializers(SerializableFields fields) {
+		this.fields = fields;
+	}
+
+	public static GeneratedSerializers forProfile(SerializationProfile profile) {
+		Last cached = last;
+		if (cached != null && cached.profile.get() == profile) {
+			GeneratedSerializers serializers = cached.serializers.get();
+			if (serializers != null) {
+				return serializers;
+			}
+		}
+		GeneratedSerializers serializers;
+		synchronized (PROFILES) {
+			serializers = PROFILES.computeIfAbsent(profile, key -> new GeneratedSerializers(SerializableFields.forProfile(key)));
+		}
+		last = new Last(profile, serializers);
+		return serializers;
+	}
+
+	/**
+	 * @param clazz the class of the object to serialize
+	 * @param threshold the number of serializations before a serializer is generated, negative values disable generation
+	 * @return the factory of the generated serializer or null if the class should be serialized with the generic serializer
+	 */
+	public SerializerFactory<SerializedReferenceType> lookup(Class<?> clazz, int threshold) {
+		if (threshold < 0) {
+			return null;
+		}
+		Usage usage = get(clazz);
+		GeneratedSerializerFactory factory = usage.factory;
+		if (factory != null || usage.unsupported) {
+			return factory;
+		}
+		usage.count++;
+		if (usage.count > threshold) {
+			return generate(clazz, usage);
+		}
+		return null;
+	}
+
+	private GeneratedSerializerFactory generate(Class<?> clazz, Usage usage) {
+		synchronized (usage) {
+			if (usage.factory == null && !usage.unsupported) {
+				Field[] serializableFields = fields.get(clazz);
+				if (GeneratedSerializerFactory.supports(clazz, serializableFields)) {
+					try {
+						usage.factory = new GeneratedSerializerFactory(clazz, serializableFields);
+					} catch (RuntimeException | LinkageError e) {
+						usage.unsupported = true;
+					}
+				} else {
+					usage.unsupported = true;
+				}
+			}
+			return usage.factory;
+		}
+	}
+
+	@Override
+	protected Usage computeValue(Class<?> type) {
+		return new Usage();
+	}
+
+	static class Usage {
+
+		private int count;
+		private volatile boolean unsupported;
+		private volatile GeneratedSerializerFactory factory;
+
+	}
+
+	private static class Last {
+
+		private WeakReference<SerializationProfile> profile;
+		private WeakReference<GeneratedSerializers> serializers;
+
+		Last(SerializationProfile profile, GeneratedSerializers serializers) {
+			this.profile = new WeakReference<>(profile);
+			this.serializers = new WeakReference<>(serializers);
+		}
+
+	}
+
+}
@@ -0,0 +1,194 @@
+package net.amygdalum.testrecorder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Stores instrumented class files in a directory, such that a restarted JVM may skip instrumenting unchanged classes.
+ * 
+ * Entries are keyed by a hash of the original class file, the agent version and the agent config. Computing the stack map frames
+ * of the instrumented class depends on the class hierarchy (the common super classes of types merged in frames), which is not part
+ * of the class file. So each entry also stores a hash of the class files of all types (and their super classes) that were merged
+ * while instrumenting, and is only reused if the current {@link Hierarchy} provides the same class files. Validating an entry reads
+ * class files as resources and does not load any class. Any failure to read or write the cache falls back to instrumenting the class.
+ */
+public class InstrumentationCache {
+
+	private static final String AGENT_VERSION = agentVersion();
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private Path dir;
+	private byte[] salt;
+
+	public InstrumentationCache(Path dir, TestRecorderAgentConfig config) {
+		this.dir = dir;
+		this.salt = (AGENT_VERSION + "|" + config.getClass().getName() + "|" + config.getPackages()).getBytes(StandardCharsets.UTF_8);
+	}
+
+	public byte[] computeIfAbsent(byte[] classfile, Hierarchy hierarchy, Function<Hierarchy, byte[]> instrument) {
+		Path file = fileFor(classfile);
+		if (file == null) {
+			return instrument.apply(hierarchy);
+		}
+		byte[] instrumented = read(file, hierarchy);
+		if (instrumented == null) {
+			RecordingHierarchy recording = new RecordingHierarchy(hierarchy);
+			instrumented = instrument.apply(recording);
+			write(file, recording.getDependencies(), instrumented);
+		}
+		return instrumented;
+	}
+
+	private Path fileFor(byte[] classfile) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(salt);
+			String key = hex(digest.digest(classfile));
+			return dir.resolve(key.substring(0, 2)).resolve(key + ".class");
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
+	private byte[] read(Path file, Hierarchy hierarchy) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+			int dependencies = in.readInt();
+			for (int i = 0; i < dependencies; i++) {
+				String type = in.readUTF();
+				String hash = in.readUTF();
+				if (!hash.equals(hash(hierarchy.getClassFile(type)))) {
+					return null;
+				}
+			}
+			byte[] instrumented = new byte[in.available()];
+			in.readFully(instrumented);
+			return instrumented;
+		} catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private void write(Path file, Map<String, String> dependencies, byte[] instrumented) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(instrumented.length + 256);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(dependencies.size());
+			for (Map.Entry<String, String> dependency : dependencies.entrySet()) {
+				out.writeUTF(dependency.getKey());
+				out.writeUTF(dependency.getValue());
+			}
+			out.write(instrumented);
+			Files.createDirectories(file.getParent());
+			Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+			Files.write(temp, bytes.toByteArray());
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | UnsupportedOperationException e) {
+			// the cache is optional, the class will be instrumented again next time
+		}
+	}
+
+	private static String hash(byte[] classfile) throws NoSuchAlgorithmException {
+		if (classfile == null) {
+			return "";
+		}
+		return hex(MessageDigest.getInstance("SHA-256").digest(classfile));
+	}
+
+	private static String hex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * the release version alone does not identify snapshot builds, so the version also contains a hash of the instrumentor class.  
+	 */
+	private static String agentVersion() {
+		String version = SnapshotInstrumentor.class.getPackage().getImplementationVersion();
+		try (InputStream in = SnapshotInstrumentor.class.getResourceAsStream(SnapshotInstrumentor.class.getSimpleName() + ".class")) {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8192];
+			int len;
+			while ((len = in.read(buffer)) >= 0) {
+				digest.update(buffer, 0, len);
+			}
+			return version + "-" + hex(digest.digest());
+		} catch (IOException | NoSuchAlgorithmException | NullPointerException e) {
+			return String.valueOf(version);
+		}
+	}
+
+	/**
+	 * resolves the common super class of two types (given as internal names), as needed for computing stack map frames.
+	 */
+	public interface Hierarchy {
+
+		String getCommonSuperClass(String type1, String type2);
+
+		/**
+		 * @return the class file of the given type (given as internal name) without loading the class, or null if it cannot be found
+		 */
+		byte[] getClassFile(String type);
+
+	}
+
+	private static class RecordingHierarchy implements Hierarchy {
+
+		private Hierarchy hierarchy;
+		private Map<String, String> dependencies;
+
+		public RecordingHierarchy(Hierarchy hierarchy) {
+			this.hierarchy = hierarchy;
+			this.dependencies = new LinkedHashMap<>();
+		}
+
+		@Override
+		public String getCommonSuperClass(String type1, String type2) {
+			record(type1);
+			record(type2);
+			return hierarchy.getCommonSuperClass(type1, type2);
+		}
+
+		@Override
+		public byte[] getClassFile(String type) {
+			return hierarchy.getClassFile(type);
+		}
+
+		private void record(String type) {
+			while (type != null && !dependencies.containsKey(type)) {
+				byte[] classfile = hierarchy.getClassFile(type);
+				try {
+					dependencies.put(type, hash(classfile));
+				} catch (NoSuchAlgorithmException e) {
+					throw new IllegalStateException(e);
+				}
+				type = classfile == null ? null : new ClassReader(classfile).getSuperName();
+			}
+		}
+
+		public Map<String, String> getDependencies() {
+			return dependencies;
+		}
+
+	}
+
+}
@@ -0,0 +1,72 @@
+package net.amygdalum.testrecorder;
+
+import static java.lang.invoke.MethodHandles.constant;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Turns recording of snapshots on and off at runtime.
+ *
+ * Instrumented methods read the switch through an invokedynamic call site bound to a constant, so the JIT can fold
+ * the check and a disabled recording costs (nearly) nothing. Toggling the switch deoptimizes the dependent code once.
+ */
+public class RecordingSwitch implements RecordingSwitchMBean {
+
+	public static final String OBJECT_NAME = "net.amygdalum.testrecorder:type=RecordingSwitch";
+
+	public static final RecordingSwitch RECORDING = new RecordingSwitch();
+
+	private MutableCallSite enabled;
+	private volatile boolean state;
+
+	private RecordingSwitch() {
+		this.enabled = new MutableCallSite(constant(boolean.class, true));
+		this.state = true;
+	}
+
+	public static CallSite bootstrap(Lookup lookup, String name, MethodType type) {
+		return RECORDING.enabled;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return state;
+	}
+
+	@Override
+	public void enable() {
+		set(true);
+	}
+
+	@Override
+	public void disable() {
+		set(false);
+	}
+
+	private synchronized void set(boolean value) {
+		state = value;
+		enabled.setTarget(constant(boolean.class, value));
+		MutableCallSite.syncAll(new MutableCallSite[] { enabled });
+	}
+
+	public void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(this, name);
+			}
+		} catch (JMException e) {
+			System.out.println("failed registering recording switch: " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,11 @@
+package net.amygdalum.testrecorder;
+
+public interface RecordingSwitchMBean {
+
+	boolean isEnabled();
+
+	void enable();
+
+	void disable();
+
+}
@@ -0,0 +1,91 @@
+package net.amygdalum.testrecorder;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Predicate;
+
+/**
+ * The fields of a class (including inherited fields) that should be serialized, i.e. fields that are neither excluded by
+ * the profile nor annotated with {@link SnapshotExcluded} nor synthetic. The fields are accessible.
+ * 
+ * Computing these fields needs reflection and evaluation of all exclusions, so they are computed only once per class and
+ * shared by all {@link ConfigurableSerializerFacade}s with the same profile.
+ */
+public class SerializableFields extends ClassValue<Field[]> {
+
+	private static final Map<SerializationProfile, SerializableFields> PROFILES = new WeakHashMap<>();
+
+	private static volatile Last last;
+
+	private Predicate<Field> fieldExclusion;
+	private Predicate<Class<?>> classExclusion;
+
+	public SerializableFields(Predicate<Field> fieldExclusion, Predicate<Class<?>> classExclusion) {
+		this.fieldExclusion = fieldExclusion;
+		this.classExclusion = classExclusion;
+	}
+
+	public static SerializableFields forProfile(SerializationProfile profile) {
+		Last cached = last;
+		if (cached != null && cached.profile.get() == profile) {
+			SerializableFields fields = cached.fields.get();
+			if (fields != null) {
+				return fields;
+			}
+		}
+		SerializableFields fields;
+		synchronized (PROFILES) {
+			fields = PROFILES.computeIfAbsent(profile, key -> create(key.getFieldExclusions(), key.getClassExclusions()));
+		}
+		last = new Last(profile, fields);
+		return fields;
+	}
+
+	private static SerializableFields create(List<Predicate<Field>> fieldExclusions, List<Predicate<Class<?>>> classExclusions) {
+		Predicate<Class<?>> classExclusion = clazz -> classExclusions.stream()
+			.anyMatch(exclusion -> exclusion.test(clazz));
+		Predicate<Field> fieldExclusion = field -> fieldExclusions.stream()
+			.anyMatch(exclusion -> exclusion.test(field))
+			|| classExclusion.test(field.getType());
+		return new SerializableFields(fieldExclusion, classExclusion);
+	}
+
+	@Override
+	protected Field[] computeValue(Class<?> type) {
+		List<Field> fields = new ArrayList<>();
+		Class<?> current = type;
+		while (current != Object.class && current != null && !classExclusion.test(current)) {
+			for (Field field : current.getDeclaredFields()) {
+				if (isSerializable(field)) {
+					field.setAccessible(true);
+					fields.add(field);
+				}
+			}
+			current = current.getSuperclass();
+		}
+		return fields.toArray(new Field[0]);
+	}
+
+	private boolean isSerializable(Field field) {
+		return !field.isAnnotationPresent(SnapshotExcluded.class)
+			&& !field.isSynthetic()
+			&& !fieldExclusion.test(field);
+	}
+
+	private static class Last {
+
+		private WeakReference<SerializationProfile> profile;
+		private WeakReference<SerializableFields> fields;
+
+		Last(SerializationProfile profile, SerializableFields fields) {
+			this.profile = new WeakReference<>(profile);
+			this.fields = new WeakReference<>(fields);
+		}
+
+	}
+
+}
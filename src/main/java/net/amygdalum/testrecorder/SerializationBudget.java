@@ -0,0 +1,44 @@
+package net.amygdalum.testrecorder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A budget of objects and time for serializing a snapshot. Serialization checks the budget on each visited object
+ * and aborts with a {@link SerializationBudgetExceededException} as soon as it is exhausted. A budget may be shared by the
+ * threads serializing one snapshot in parallel.
+ */
+public class SerializationBudget {
+
+	private static final int CLOCK_INTERVAL = 0x3f;
+
+	private long maxObjects;
+	private long maxNanos;
+	private long start;
+	private AtomicLong objects;
+
+	public SerializationBudget(long maxObjects, long maxNanos) {
+		this.maxObjects = maxObjects;
+		this.maxNanos = maxNanos;
+		this.start = System.nanoTime();
+		this.objects = new AtomicLong();
+	}
+
+	public static SerializationBudget unlimited() {
+		return new SerializationBudget(Long.MAX_VALUE, Long.MAX_VALUE);
+	}
+
+	public long getObjects() {
+		return objects.get();
+	}
+
+	public void visit() {
+		long objects = this.objects.incrementAndGet();
+		if (objects > maxObjects) {
+			throw new SerializationBudgetExceededException("serialized more than " + maxObjects + " objects");
+		}
+		if ((objects & CLOCK_INTERVAL) == 0 && System.nanoTime() - start > maxNanos) {
+			throw new SerializationBudgetExceededException("serialization took more than " + maxNanos + " ns");
+		}
+	}
+
+}
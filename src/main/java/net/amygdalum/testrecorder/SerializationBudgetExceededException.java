@@ -0,0 +1,9 @@
+package net.amygdalum.testrecorder;
+
+public class SerializationBudgetExceededException extends SerializationException {
+
+	public SerializationBudgetExceededException(String message) {
+		super(message);
+	}
+
+}
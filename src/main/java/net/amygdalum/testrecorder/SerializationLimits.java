@@ -0,0 +1,41 @@
+package net.amygdalum.testrecorder;
+
+/**
+ * Limits the size of the object graph serialized for a snapshot. Objects beyond these limits are not serialized but replaced by a
+ * {@link net.amygdalum.testrecorder.values.SerializedTruncated} marker:
+ * 
+ * - maxDepth: the maximum number of references from the snapshot arguments (or this) to a serialized object
+ * - maxElements: the maximum number of elements of a serialized collection, map or array
+ * - maxObjects: the maximum number of serialized objects per snapshot (counted separately for setup and expectation)
+ */
+public class SerializationLimits {
+
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+
+	private int maxDepth;
+	private int maxElements;
+	private int maxObjects;
+
+	public SerializationLimits(int maxDepth, int maxElements, int maxObjects) {
+		this.maxDepth = maxDepth;
+		this.maxElements = maxElements;
+		this.maxObjects = maxObjects;
+	}
+
+	public static SerializationLimits unlimited() {
+		return new SerializationLimits(UNLIMITED, UNLIMITED, UNLIMITED);
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public int getMaxElements() {
+		return maxElements;
+	}
+
+	public int getMaxObjects() {
+		return maxObjects;
+	}
+
+}
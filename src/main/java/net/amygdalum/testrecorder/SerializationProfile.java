@@ -11,5 +11,12 @@ public interface SerializationProfile {
 	List<Predicate<Class<?>>> getClassExclusions();
 
 	List<Field> getGlobalFields();
+
+	/**
+	 * @return the limits of serialized object graphs, null falls back to the default limits (unlimited)
+	 */
+	default SerializationLimits getLimits() {
+		return null;
+	}
 	
 }
@@ -0,0 +1,149 @@
+package net.amygdalum.testrecorder;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.lang.ref.WeakReference;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.WeakHashMap;
+
+import net.amygdalum.testrecorder.serializers.ArraySerializer;
+import net.amygdalum.testrecorder.serializers.EnumSerializer;
+import net.amygdalum.testrecorder.serializers.PrimitiveArraySerializer;
+
+/**
+ * An immutable mapping from classes to the serializer factories registered for them (via {@link ServiceLoader}).
+ *
+ * Loading the serializer factories and computing their matching classes is expensive, so a registry is computed only
+ * once per class loader and shared by all {@link ConfigurableSerializerFacade}s. The registries do not reference their class
+ * loaders, so a class loader (and its registry) may be collected as soon as it is not used any more.
+ *
+ * The serializer factory of a concrete class (registered or built in) is resolved once per class and cached. The cache stores only
+ * the index of the factory in its registry, so classes (which might be shared by many class loaders) do not retain factories loaded
+ * by other class loaders.
+ */
+public class SerializerRegistry {
+
+	private static final Map<ClassLoader, SerializerRegistry> REGISTRIES = new WeakHashMap<>();
+
+	private static final SerializerFactory<?> PRIMITIVE_ARRAYS = new PrimitiveArraySerializer.Factory();
+	private static final SerializerFactory<?> ARRAYS = new ArraySerializer.Factory();
+	private static final SerializerFactory<?> ENUMS = new EnumSerializer.Factory();
+
+	private static final int NONE = -1;
+
+	private static volatile Last last;
+
+	private Map<Class<?>, SerializerFactory<?>> factories;
+
+	private SerializerFactory<?>[] resolvable;
+	private Resolution resolution;
+
+	public SerializerRegistry(Map<Class<?>, SerializerFactory<?>> factories) {
+		this.factories = unmodifiableMap(new IdentityHashMap<>(factories));
+		Map<SerializerFactory<?>, Integer> indexes = new IdentityHashMap<>();
+		for (SerializerFactory<?> factory : this.factories.values()) {
+			indexes.putIfAbsent(factory, indexes.size());
+		}
+		for (SerializerFactory<?> factory : new SerializerFactory<?>[] { PRIMITIVE_ARRAYS, ARRAYS, ENUMS }) {
+			indexes.putIfAbsent(factory, indexes.size());
+		}
+		this.resolvable = new SerializerFactory<?>[indexes.size()];
+		indexes.forEach((factory, index) -> resolvable[index] = factory);
+		this.resolution = new Resolution(this.factories, indexes);
+	}
+
+	public static SerializerRegistry forClassLoader(ClassLoader loader, SerializerFacade facade) {
+		Last cached = last;
+		if (cached != null && cached.loader.get() == loader) {
+			SerializerRegistry registry = cached.registry.get();
+			if (registry != null) {
+				return registry;
+			}
+		}
+		SerializerRegistry registry;
+		synchronized (REGISTRIES) {
+			registry = REGISTRIES.computeIfAbsent(loader, key -> load(key, facade));
+		}
+		last = new Last(loader, registry);
+		return registry;
+	}
+
+	@SuppressWarnings("rawtypes")
+	public static SerializerRegistry load(ClassLoader loader, SerializerFacade facade) {
+		Map<Class<?>, SerializerFactory<?>> factories = new IdentityHashMap<>();
+		try {
+			ServiceLoader<SerializerFactory> serviceLoader = ServiceLoader.load(SerializerFactory.class, loader);
+
+			for (SerializerFactory<?> factory : serviceLoader) {
+				Serializer<?> serializer = factory.newSerializer(facade);
+				for (Class<?> clazz : serializer.getMatchingClasses()) {
+					factories.put(clazz, factory);
+				}
+			}
+		} catch (ServiceConfigurationError serviceError) {
+			System.out.println("failed loading serializers: " + serviceError.getMessage());
+		}
+		return new SerializerRegistry(factories);
+	}
+
+	public SerializerFactory<?> lookup(Class<?> clazz) {
+		return factories.get(clazz);
+	}
+
+	/**
+	 * @param clazz the concrete class of the object to serialize
+	 * @return the factory registered for exactly this class (so a factory registered for a subclass wins over the factory of
+	 * its super class), the built in factory for arrays and enums, or null if the object should be serialized field by field
+	 */
+	public SerializerFactory<?> resolve(Class<?> clazz) {
+		int index = resolution.get(clazz);
+		return index == NONE ? null : resolvable[index];
+	}
+
+	public Map<Class<?>, SerializerFactory<?>> getFactories() {
+		return factories;
+	}
+
+	private static class Last {
+
+		private WeakReference<ClassLoader> loader;
+		private WeakReference<SerializerRegistry> registry;
+
+		Last(ClassLoader loader, SerializerRegistry registry) {
+			this.loader = new WeakReference<>(loader);
+			this.registry = new WeakReference<>(registry);
+		}
+
+	}
+
+	private static class Resolution extends ClassValue<Integer> {
+
+		private Map<Class<?>, SerializerFactory<?>> factories;
+		private Map<SerializerFactory<?>, Integer> indexes;
+
+		Resolution(Map<Class<?>, SerializerFactory<?>> factories, Map<SerializerFactory<?>, Integer> indexes) {
+			this.factories = factories;
+			this.indexes = indexes;
+		}
+
+		@Override
+		protected Integer computeValue(Class<?> clazz) {
+			SerializerFactory<?> factory = factories.get(clazz);
+			if (factory != null) {
+				return indexes.get(factory);
+			} else if (clazz.isArray() && clazz.getComponentType().isPrimitive()) {
+				return indexes.get(PRIMITIVE_ARRAYS);
+			} else if (clazz.isArray()) {
+				return indexes.get(ARRAYS);
+			} else if (clazz.isEnum() || (clazz.getSuperclass() != null && clazz.getSuperclass().isEnum())) {
+				return indexes.get(ENUMS);
+			}
+			return NONE;
+		}
+
+	}
+
+}
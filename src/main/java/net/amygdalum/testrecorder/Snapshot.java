@@ -9,4 +9,9 @@ import java.lang.annotation.Target;
 @Target({ElementType.METHOD})
 public @interface Snapshot {
 	Class<? extends SerializationProfile> profile() default SerializationProfile.class;
+
+	/**
+	 * records only every n-th call of the annotated method, calls that are not recorded skip all recording overhead
+	 */
+	int sample() default 1;
 }
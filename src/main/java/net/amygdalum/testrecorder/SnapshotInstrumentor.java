@@ -1,33 +1,51 @@
 package net.amygdalum.testrecorder;
 
 import static java.util.stream.Collectors.toList;
-import static net.amygdalum.testrecorder.ByteCode.memorizeLocal;
+import static net.amygdalum.testrecorder.ByteCode.argumentLocals;
+import static net.amygdalum.testrecorder.ByteCode.boxPrimitives;
 import static net.amygdalum.testrecorder.ByteCode.pushAsArray;
 import static net.amygdalum.testrecorder.ByteCode.pushType;
 import static net.amygdalum.testrecorder.ByteCode.pushTypes;
-import static net.amygdalum.testrecorder.ByteCode.range;
-import static net.amygdalum.testrecorder.ByteCode.recallLocal;
 import static org.objectweb.asm.Opcodes.AASTORE;
 import static org.objectweb.asm.Opcodes.ACC_ANNOTATION;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
 import static org.objectweb.asm.Opcodes.ACC_INTERFACE;
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
 import static org.objectweb.asm.Opcodes.ACC_STATIC;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
 import static org.objectweb.asm.Opcodes.ALOAD;
 import static org.objectweb.asm.Opcodes.ATHROW;
 import static org.objectweb.asm.Opcodes.DUP;
+import static org.objectweb.asm.Opcodes.DUP2;
 import static org.objectweb.asm.Opcodes.GETSTATIC;
 import static org.objectweb.asm.Opcodes.GOTO;
+import static org.objectweb.asm.Opcodes.H_INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.IADD;
+import static org.objectweb.asm.Opcodes.ICONST_0;
+import static org.objectweb.asm.Opcodes.ICONST_1;
+import static org.objectweb.asm.Opcodes.IFEQ;
+import static org.objectweb.asm.Opcodes.IFNE;
 import static org.objectweb.asm.Opcodes.IFNULL;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.IREM;
+import static org.objectweb.asm.Opcodes.ISTORE;
 import static org.objectweb.asm.Opcodes.INVOKESTATIC;
 import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
 import static org.objectweb.asm.Opcodes.IRETURN;
 import static org.objectweb.asm.Opcodes.POP;
+import static org.objectweb.asm.Opcodes.PUTSTATIC;
 import static org.objectweb.asm.Opcodes.RETURN;
 import static org.objectweb.asm.Opcodes.SWAP;
+import static org.objectweb.asm.Opcodes.V1_7;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.security.ProtectionDomain;
 import java.util.Iterator;
 import java.util.List;
@@ -38,75 +56,167 @@ import java.util.stream.StreamSupport;
 
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.AnnotationNode;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
 import org.objectweb.asm.tree.JumpInsnNode;
 import org.objectweb.asm.tree.LabelNode;
 import org.objectweb.asm.tree.LdcInsnNode;
-import org.objectweb.asm.tree.LocalVariableNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.tree.TryCatchBlockNode;
 import org.objectweb.asm.tree.TypeInsnNode;
 import org.objectweb.asm.tree.VarInsnNode;
 
+import net.amygdalum.testrecorder.InstrumentationCache.Hierarchy;
+import net.amygdalum.testrecorder.util.PrefixTrie;
 import net.amygdalum.testrecorder.util.Types;
 
 public class SnapshotInstrumentor implements ClassFileTransformer {
 
 	private static final String STATIC_INIT_NAME = "<clinit>";
 
+	private static final int UTF8 = 1;
+
 	private static final String GET_DECLARED_METHOD = "getDeclaredMethod";
 
+	private static final String SAMPLE = "sample";
+	private static final String SAMPLE_COUNTER_FIELD_PREFIX = "$testrecorder$sample$";
+	private static final String METHOD_ID_FIELD_PREFIX = "$testrecorder$id$";
+	private static final String INPUT_TYPES_FIELD_PREFIX = "$testrecorder$input$";
+	private static final String OUTPUT_TYPES_FIELD_PREFIX = "$testrecorder$output$";
+
 	public static final String SNAPSHOT_MANAGER_FIELD_NAME = "MANAGER";
 	private static final String REGISTER = "register";
+	private static final String IS_ACTIVE = "isActive";
+	private static final String PUSH_PROCESS = "push";
+	private static final String POP_PROCESS = "pop";
+	private static final String COLLECT_VALUE = "value";
 	private static final String SETUP_VARIABLES = "setupVariables";
 	private static final String INPUT_VARIABLES = "inputVariables";
 	private static final String OUTPUT_VARIABLES = "outputVariables";
 	private static final String THROW_VARIABLES = "throwVariables";
 	private static final String EXPECT_VARIABLES = "expectVariables";
+	private static final String RECORDING = "RECORDING";
+	private static final String IS_ENABLED = "isEnabled";
+	private static final String BOOTSTRAP = "bootstrap";
 
 	private static final String Class_name = Type.getInternalName(Class.class);
 	private static final String Types_name = Type.getInternalName(Types.class);
 	private static final String SnapshotManager_name = Type.getInternalName(SnapshotManager.class);
+	private static final String SnapshotProcess_name = Type.getInternalName(SnapshotProcess.class);
+	private static final String RecordingSwitch_name = Type.getInternalName(RecordingSwitch.class);
 
 	private static final String SnaphotManager_descriptor = Type.getDescriptor(SnapshotManager.class);
+	private static final String RecordingSwitch_descriptor = Type.getDescriptor(RecordingSwitch.class);
 	private static final String Snapshot_descriptor = Type.getDescriptor(Snapshot.class);
+	private static final String Types_descriptor = Type.getDescriptor(java.lang.reflect.Type[].class);
 	private static final String SnapshotInput_descriptor = Type.getDescriptor(SnapshotInput.class);
 	private static final String SnapshotOutput_descriptor = Type.getDescriptor(SnapshotOutput.class);
 
-	private static final String SnaphotManager_registerMethod_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, REGISTER, String.class, Method.class);
-	private static final String SnaphotManager_setupVariables_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, SETUP_VARIABLES, Object.class, String.class, Object[].class);
-	private static final String SnaphotManager_expectVariablesResult_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, EXPECT_VARIABLES, Object.class, Object.class, Object[].class);
-	private static final String SnaphotManager_expectVariablesNoResult_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, EXPECT_VARIABLES, Object.class, Object[].class);
-	private static final String SnaphotManager_throwVariables_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, THROW_VARIABLES, Object.class, Throwable.class, Object[].class);
+	private static final String SnaphotManager_registerMethod_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, REGISTER, Method.class);
+	private static final String SnaphotManager_sample_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, SAMPLE, int.class, int.class);
+	private static final String SnaphotManager_isActive_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, IS_ACTIVE);
+	private static final String SnaphotManager_push_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, PUSH_PROCESS, int.class);
+	private static final String SnaphotManager_pop_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, POP_PROCESS);
+	private static final String SnaphotManager_expectVariables_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, EXPECT_VARIABLES, SnapshotProcess.class, Object.class);
+	private static final String SnaphotManager_throwVariables_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, THROW_VARIABLES, Throwable.class, SnapshotProcess.class, Object.class);
+	private static final String SnapshotProcess_setupVariables_descriptor = ByteCode.methodDescriptor(SnapshotProcess.class, SETUP_VARIABLES, Object.class);
 	private static final String SnaphotManager_outputVariables_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, OUTPUT_VARIABLES, Class.class, String.class, java.lang.reflect.Type[].class, Object[].class);
 	private static final String SnaphotManager_inputVariablesResult_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, INPUT_VARIABLES, Class.class, String.class, java.lang.reflect.Type.class, Object.class, java.lang.reflect.Type[].class, Object[].class);
 	private static final String SnaphotManager_inputVariablesNoResult_descriptor = ByteCode.methodDescriptor(SnapshotManager.class, INPUT_VARIABLES, Class.class, String.class, java.lang.reflect.Type[].class, Object[].class);
 
+	private static final String RecordingSwitch_enabled_descriptor = ByteCode.methodDescriptor(RecordingSwitch.class, IS_ENABLED);
+	private static final Handle RecordingSwitch_bootstrap = new Handle(H_INVOKESTATIC, RecordingSwitch_name, BOOTSTRAP, ByteCode.methodDescriptor(RecordingSwitch.class, BOOTSTRAP, Lookup.class, String.class, MethodType.class));
+
 	private static final String Types_getDeclaredMethod_descriptor = ByteCode.methodDescriptor(Types.class, GET_DECLARED_METHOD, Class.class, String.class, Class[].class);
 
-	private TestRecorderAgentConfig config;
+	private static final byte[][] ANNOTATION_DESCRIPTORS = {
+		Snapshot_descriptor.getBytes(StandardCharsets.UTF_8),
+		SnapshotInput_descriptor.getBytes(StandardCharsets.UTF_8),
+		SnapshotOutput_descriptor.getBytes(StandardCharsets.UTF_8)
+	};
+
+	private static final Hierarchy HIERARCHY = new DefaultHierarchy();
+
+	private PrefixTrie packages;
+	private InstrumentationCache cache;
+	private boolean retransformable;
 
 	public SnapshotInstrumentor(TestRecorderAgentConfig config) {
-		this.config = config;
+		this(config, false);
+	}
+
+	/**
+	 * @param retransformable true if instrumented classes must keep their schema (no added fields or methods). This is required
+	 * for retransforming classes that are already loaded, and for restoring the original classes later. 
+	 */
+	public SnapshotInstrumentor(TestRecorderAgentConfig config, boolean retransformable) {
+		this.packages = new PrefixTrie(config.getPackages().stream()
+			.map(pkg -> pkg.replace('.', '/'))
+			.collect(toList()));
+		this.retransformable = retransformable;
+		if (config.getInstrumentationCache() != null && !retransformable) {
+			this.cache = new InstrumentationCache(config.getInstrumentationCache(), config);
+		}
 		SnapshotManager.init(config);
 	}
 
+	public boolean matches(Class<?> clazz) {
+		return packages.matchesPrefixOf(Type.getInternalName(clazz));
+	}
+
 	@Override
 	public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
-		for (String pkg : config.getPackages()) {
-			pkg = pkg.replace('.', '/');
-			if (className != null && className.startsWith(pkg)) {
-				System.out.println("recording snapshots of " + className);
-				return instrument(new ClassReader(classfileBuffer));
+		if (className == null || !packages.matchesPrefixOf(className)) {
+			return null;
+		}
+		ClassReader cr = new ClassReader(classfileBuffer);
+		if (!mentionsSnapshotAnnotations(cr)) {
+			return null;
+		}
+		if (cache != null) {
+			return cache.computeIfAbsent(classfileBuffer, HIERARCHY, hierarchy -> instrument(cr, loader, hierarchy));
+		}
+		return instrument(cr, loader);
+	}
+
+	/**
+	 * scans the constant pool for the descriptors of the snapshot annotations. A class without these descriptors
+	 * cannot have annotated methods, so there is no need to build and rewrite its class tree. 
+	 */
+	private static boolean mentionsSnapshotAnnotations(ClassReader cr) {
+		byte[] b = cr.b;
+		for (int i = 1; i < cr.getItemCount(); i++) {
+			int offset = cr.getItem(i);
+			if (offset == 0 || b[offset - 1] != UTF8) {
+				continue;
+			}
+			int length = cr.readUnsignedShort(offset);
+			for (byte[] descriptor : ANNOTATION_DESCRIPTORS) {
+				if (length == descriptor.length && matches(b, offset + 2, descriptor)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean matches(byte[] b, int start, byte[] descriptor) {
+		for (int i = 0; i < descriptor.length; i++) {
+			if (b[start + i] != descriptor[i]) {
+				return false;
 			}
 		}
-		return null;
+		return true;
 	}
 
 	public byte[] instrument(String className) throws IOException {
@@ -114,20 +224,34 @@ public class SnapshotInstrumentor implements ClassFileTransformer {
 	}
 
 	public byte[] instrument(ClassReader cr) {
+		return instrument(cr, SnapshotInstrumentor.class.getClassLoader());
+	}
+
+	public byte[] instrument(ClassReader cr, ClassLoader loader) {
+		return instrument(cr, loader, HIERARCHY);
+	}
+
+	private byte[] instrument(ClassReader cr, ClassLoader loader, Hierarchy hierarchy) {
 		ClassNode classNode = new ClassNode();
 
 		cr.accept(classNode, 0);
 		if (isClass(classNode)) {
 
-			instrumentStaticInitializer(classNode);
+			if (retransformable) {
+				int[] ids = registerSnapshotMethods(classNode, loader);
 
-			instrumentSnapshotMethods(classNode);
+				instrumentSnapshotMethods(classNode, ids);
+			} else {
+				instrumentStaticInitializer(classNode);
+
+				instrumentSnapshotMethods(classNode, null);
+			}
 
 			instrumentInputMethods(classNode);
 			instrumentOutputMethods(classNode);
 		}
 
-		ClassWriter out = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+		ClassWriter out = new HierarchyClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES, hierarchy);
 		classNode.accept(out);
 		return out.toByteArray();
 	}
@@ -141,21 +265,55 @@ public class SnapshotInstrumentor implements ClassFileTransformer {
 
 		InsnList insnList = new InsnList();
 
-		insnList.add(new FieldInsnNode(Opcodes.GETSTATIC, SnapshotManager_name, SNAPSHOT_MANAGER_FIELD_NAME, SnaphotManager_descriptor));
-		for (MethodNode methodNode : getSnapshotMethods(classNode)) {
-			insnList.add(new InsnNode(DUP));
-			insnList.add(new LdcInsnNode(keySignature(classNode, methodNode)));
+		List<MethodNode> snapshotMethods = getSnapshotMethods(classNode);
+		for (int i = 0; i < snapshotMethods.size(); i++) {
+			MethodNode methodNode = snapshotMethods.get(i);
+			String idName = METHOD_ID_FIELD_PREFIX + i;
+			classNode.fields.add(new FieldNode(ACC_PRIVATE | ACC_STATIC | ACC_FINAL | ACC_SYNTHETIC, idName, Type.INT_TYPE.getDescriptor(), null, null));
+
+			insnList.add(new FieldInsnNode(GETSTATIC, SnapshotManager_name, SNAPSHOT_MANAGER_FIELD_NAME, SnaphotManager_descriptor));
 
 			insnList.add(pushMethod(classNode, methodNode));
 
 			insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotManager_name, REGISTER, SnaphotManager_registerMethod_descriptor, false));
+			insnList.add(new FieldInsnNode(PUTSTATIC, classNode.name, idName, Type.INT_TYPE.getDescriptor()));
+		}
+
+		List<MethodNode> inputMethods = getInputMethods(classNode);
+		for (int i = 0; i < inputMethods.size(); i++) {
+			insnList.add(initTypesField(classNode, INPUT_TYPES_FIELD_PREFIX + i, inputMethods.get(i)));
+		}
+
+		List<MethodNode> outputMethods = getOutputMethods(classNode);
+		for (int i = 0; i < outputMethods.size(); i++) {
+			insnList.add(initTypesField(classNode, OUTPUT_TYPES_FIELD_PREFIX + i, outputMethods.get(i)));
 		}
-		insnList.add(new InsnNode(POP));
 
 		method.instructions.insert(insnList);
 
 	}
 
+	private int[] registerSnapshotMethods(ClassNode classNode, ClassLoader loader) {
+		List<MethodNode> snapshotMethods = getSnapshotMethods(classNode);
+		int[] ids = new int[snapshotMethods.size()];
+		for (int i = 0; i < ids.length; i++) {
+			MethodNode methodNode = snapshotMethods.get(i);
+			ids[i] = SnapshotManager.MANAGER.register(loader, classNode.name, methodNode.name, methodNode.desc);
+		}
+		return ids;
+	}
+
+	private InsnList initTypesField(ClassNode classNode, String typesName, MethodNode methodNode) {
+		classNode.fields.add(new FieldNode(ACC_PRIVATE | ACC_STATIC | ACC_FINAL | ACC_SYNTHETIC, typesName, Types_descriptor, null, null));
+
+		InsnList insnList = new InsnList();
+
+		insnList.add(pushTypes(Type.getArgumentTypes(methodNode.desc)));
+		insnList.add(new FieldInsnNode(PUTSTATIC, classNode.name, typesName, Types_descriptor));
+
+		return insnList;
+	}
+
 	private MethodNode findStaticInitializer(List<MethodNode> methods) {
 		for (MethodNode method : methods) {
 			if (method.name.equals(STATIC_INIT_NAME)) {
@@ -168,13 +326,18 @@ public class SnapshotInstrumentor implements ClassFileTransformer {
 		return method;
 	}
 
-	private void instrumentSnapshotMethods(ClassNode classNode) {
-		for (MethodNode method : getSnapshotMethods(classNode)) {
+	private void instrumentSnapshotMethods(ClassNode classNode, int[] ids) {
+		List<MethodNode> snapshotMethods = getSnapshotMethods(classNode);
+		for (int i = 0; i < snapshotMethods.size(); i++) {
+			MethodNode method = snapshotMethods.get(i);
+			int recordedLocal = method.maxLocals;
+			method.maxLocals++;
+			InsnList recorded = recorded(classNode, method, i, ids, recordedLocal);
 			LabelNode tryLabel = new LabelNode();
 			LabelNode catchLabel = new LabelNode();
 			LabelNode finallyLabel = new LabelNode();
 			method.tryCatchBlocks.add(createTryCatchBlock(tryLabel, catchLabel));
-			method.instructions.insert(createTry(tryLabel, setupVariables(classNode, method)));
+			method.instructions.insert(createTry(recorded, tryLabel, onlyRecorded(recordedLocal, setupVariables(classNode, method, pushMethodId(classNode, i, ids)))));
 			List<InsnNode> rets = findReturn(method.instructions);
 			for (InsnNode ret : rets) {
 				method.instructions.insert(ret, new JumpInsnNode(GOTO, finallyLabel));
@@ -185,23 +348,112 @@ public class SnapshotInstrumentor implements ClassFileTransformer {
 				.distinct()
 				.findFirst()
 				.orElse(RETURN);
-			method.instructions.add(createCatchFinally(catchLabel, throwVariables(classNode, method), finallyLabel, expectVariables(classNode, method), new InsnNode(returnOpcode)));
+			InsnList onError = onlyRecorded(recordedLocal, throwVariables(classNode, method));
+			InsnList onSuccess = onlyRecorded(recordedLocal, expectVariables(classNode, method));
+			method.instructions.add(createCatchFinally(catchLabel, onError, finallyLabel, onSuccess, new InsnNode(returnOpcode)));
+		}
+	}
+
+	private int getSample(MethodNode method) {
+		for (AnnotationNode annotation : method.visibleAnnotations) {
+			if (annotation.desc.equals(Snapshot_descriptor) && annotation.values != null) {
+				for (int i = 0; i + 1 < annotation.values.size(); i += 2) {
+					if (SAMPLE.equals(annotation.values.get(i))) {
+						return (Integer) annotation.values.get(i + 1);
+					}
+				}
+			}
+		}
+		return 1;
+	}
+
+	private AbstractInsnNode pushMethodId(ClassNode classNode, int index, int[] ids) {
+		if (ids != null) {
+			return new LdcInsnNode(ids[index]);
+		}
+		return new FieldInsnNode(GETSTATIC, classNode.name, METHOD_ID_FIELD_PREFIX + index, Type.INT_TYPE.getDescriptor());
+	}
+
+	private InsnList recorded(ClassNode classNode, MethodNode method, int index, int[] ids, int recordedLocal) {
+		LabelNode skip = new LabelNode();
+		LabelNode done = new LabelNode();
+
+		InsnList insnList = new InsnList();
+
+		insnList.add(isRecordingEnabled(classNode));
+		insnList.add(new JumpInsnNode(IFEQ, skip));
+
+		int sample = getSample(method);
+		if (sample > 1 && ids != null) {
+			insnList.add(new FieldInsnNode(GETSTATIC, SnapshotManager_name, SNAPSHOT_MANAGER_FIELD_NAME, SnaphotManager_descriptor));
+			insnList.add(new LdcInsnNode(ids[index]));
+			insnList.add(new LdcInsnNode(sample));
+			insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotManager_name, SAMPLE, SnaphotManager_sample_descriptor, false));
+			insnList.add(new JumpInsnNode(IFEQ, skip));
+		} else if (sample > 1) {
+			String counterName = SAMPLE_COUNTER_FIELD_PREFIX + index;
+			classNode.fields.add(new FieldNode(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, counterName, Type.INT_TYPE.getDescriptor(), null, null));
+
+			insnList.add(new FieldInsnNode(GETSTATIC, classNode.name, counterName, Type.INT_TYPE.getDescriptor()));
+			insnList.add(new InsnNode(DUP));
+			insnList.add(new InsnNode(ICONST_1));
+			insnList.add(new InsnNode(IADD));
+			insnList.add(new FieldInsnNode(PUTSTATIC, classNode.name, counterName, Type.INT_TYPE.getDescriptor()));
+			insnList.add(new LdcInsnNode(sample));
+			insnList.add(new InsnNode(IREM));
+			insnList.add(new JumpInsnNode(IFNE, skip));
 		}
+
+		insnList.add(new InsnNode(ICONST_1));
+		insnList.add(new JumpInsnNode(GOTO, done));
+		insnList.add(skip);
+		insnList.add(new InsnNode(ICONST_0));
+		insnList.add(done);
+		insnList.add(new VarInsnNode(ISTORE, recordedLocal));
+
+		return insnList;
+	}
+
+	private InsnList isRecordingEnabled(ClassNode classNode) {
+		InsnList insnList = new InsnList();
+		if ((classNode.version & 0xffff) >= V1_7) {
+			insnList.add(new InvokeDynamicInsnNode(RECORDING, RecordingSwitch_enabled_descriptor, RecordingSwitch_bootstrap));
+		} else {
+			insnList.add(new FieldInsnNode(GETSTATIC, RecordingSwitch_name, RECORDING, RecordingSwitch_descriptor));
+			insnList.add(new MethodInsnNode(INVOKEVIRTUAL, RecordingSwitch_name, IS_ENABLED, RecordingSwitch_enabled_descriptor, false));
+		}
+		return insnList;
+	}
+
+	private InsnList onlyRecorded(int recordedLocal, InsnList instructions) {
+		LabelNode skip = new LabelNode();
+
+		InsnList insnList = new InsnList();
+
+		insnList.add(new VarInsnNode(ILOAD, recordedLocal));
+		insnList.add(new JumpInsnNode(IFEQ, skip));
+		insnList.add(instructions);
+		insnList.add(skip);
+
+		return insnList;
 	}
 
 	private void instrumentInputMethods(ClassNode classNode) {
-		for (MethodNode method : getInputMethods(classNode)) {
+		List<MethodNode> inputMethods = getInputMethods(classNode);
+		for (int i = 0; i < inputMethods.size(); i++) {
+			MethodNode method = inputMethods.get(i);
 			List<InsnNode> rets = findReturn(method.instructions);
-			InsnList notifyInput = notifyInput(classNode, method);
 			for (InsnNode ret : rets) {
-				method.instructions.insertBefore(ret, notifyInput);
+				method.instructions.insertBefore(ret, notifyInput(classNode, method, INPUT_TYPES_FIELD_PREFIX + i));
 			}
 		}
 	}
 
 	private void instrumentOutputMethods(ClassNode classNode) {
-		for (MethodNode method : getOutputMethods(classNode)) {
-			method.instructions.insert(notifyOutput(classNode, method));
+		List<MethodNode> outputMethods = getOutputMethods(classNode);
+		for (int i = 0; i < outputMethods.size(); i++) {
+			MethodNode method = outputMethods.get(i);
+			method.instructions.insert(notifyOutput(classNode, method, OUTPUT_TYPES_FIELD_PREFIX + i));
 		}
 	}
 
@@ -287,8 +539,9 @@ public class SnapshotInstrumentor implements ClassFileTransformer {
 		return new TryCatchBlockNode(tryLabel, catchLabel, catchLabel, null);
 	}
 
-	private InsnList createTry(LabelNode tryLabel, InsnList onBegin) {
+	private InsnList createTry(InsnList beforeTry, LabelNode tryLabel, InsnList onBegin) {
 		InsnList insnList = new InsnList();
+		insnList.add(beforeTry);
 		insnList.add(tryLabel);
 		insnList.add(onBegin);
 		return insnList;
@@ -306,21 +559,23 @@ public class SnapshotInstrumentor implements ClassFileTransformer {
 		return insnList;
 	}
 
-	private InsnList setupVariables(ClassNode classNode, MethodNode methodNode) {
+	private InsnList setupVariables(ClassNode classNode, MethodNode methodNode, AbstractInsnNode pushMethodId) {
 		Type[] argumentTypes = Type.getArgumentTypes(methodNode.desc);
-		List<LocalVariableNode> arguments = range(methodNode.localVariables, 1, argumentTypes.length);
+		int[] arguments = argumentLocals(1, argumentTypes);
 
 		InsnList insnList = new InsnList();
 
 		insnList.add(new FieldInsnNode(GETSTATIC, SnapshotManager_name, SNAPSHOT_MANAGER_FIELD_NAME, SnaphotManager_descriptor));
 
-		insnList.add(new VarInsnNode(ALOAD, 0));
+		insnList.add(pushMethodId);
 
-		insnList.add(new LdcInsnNode(keySignature(classNode, methodNode)));
+		insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotManager_name, PUSH_PROCESS, SnaphotManager_push_descriptor, false));
 
-		insnList.add(pushAsArray(arguments, argumentTypes));
+		insnList.add(collectValues(arguments, argumentTypes));
 
-		insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotManager_name, SETUP_VARIABLES, SnaphotManager_setupVariables_descriptor, false));
+		insnList.add(new VarInsnNode(ALOAD, 0));
+
+		insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotProcess_name, SETUP_VARIABLES, SnapshotProcess_setupVariables_descriptor, false));
 
 		return insnList;
 	}
@@ -328,36 +583,40 @@ public class SnapshotInstrumentor implements ClassFileTransformer {
 	private InsnList expectVariables(ClassNode classNode, MethodNode methodNode) {
 		Type returnType = Type.getReturnType(methodNode.desc);
 		Type[] argumentTypes = Type.getArgumentTypes(methodNode.desc);
-		List<LocalVariableNode> arguments = range(methodNode.localVariables, 1, argumentTypes.length);
+		int[] arguments = argumentLocals(1, argumentTypes);
 
 		InsnList insnList = new InsnList();
 		int newLocal = methodNode.maxLocals;
 
-		if (returnType.getSize() > 0) {
-			insnList.add(memorizeLocal(returnType, newLocal));
+		if (returnType.getSize() == 1) {
+			insnList.add(new InsnNode(DUP));
+			insnList.add(new VarInsnNode(returnType.getOpcode(ISTORE), newLocal));
+		} else if (returnType.getSize() == 2) {
+			insnList.add(new InsnNode(DUP2));
+			insnList.add(new VarInsnNode(returnType.getOpcode(ISTORE), newLocal));
 		}
 
 		insnList.add(new FieldInsnNode(GETSTATIC, SnapshotManager_name, SNAPSHOT_MANAGER_FIELD_NAME, SnaphotManager_descriptor));
 
-		insnList.add(new VarInsnNode(ALOAD, 0));
+		insnList.add(new FieldInsnNode(GETSTATIC, SnapshotManager_name, SNAPSHOT_MANAGER_FIELD_NAME, SnaphotManager_descriptor));
+		insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotManager_name, POP_PROCESS, SnaphotManager_pop_descriptor, false));
 
-		if (returnType.getSize() > 0) {
-			insnList.add(recallLocal(newLocal));
-		}
-		insnList.add(pushAsArray(arguments, argumentTypes));
+		insnList.add(collectValues(arguments, argumentTypes));
 
 		if (returnType.getSize() > 0) {
-			insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotManager_name, EXPECT_VARIABLES, SnaphotManager_expectVariablesResult_descriptor, false));
-		} else {
-			insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotManager_name, EXPECT_VARIABLES, SnaphotManager_expectVariablesNoResult_descriptor, false));
+			insnList.add(collectValue(newLocal, returnType));
 		}
 
+		insnList.add(new VarInsnNode(ALOAD, 0));
+
+		insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotManager_name, EXPECT_VARIABLES, SnaphotManager_expectVariables_descriptor, false));
+
 		return insnList;
 	}
 
 	private InsnList throwVariables(ClassNode classNode, MethodNode methodNode) {
 		Type[] argumentTypes = Type.getArgumentTypes(methodNode.desc);
-		List<LocalVariableNode> arguments = range(methodNode.localVariables, 1, argumentTypes.length);
+		int[] arguments = argumentLocals(1, argumentTypes);
 
 		InsnList insnList = new InsnList();
 
@@ -367,44 +626,63 @@ public class SnapshotInstrumentor implements ClassFileTransformer {
 
 		insnList.add(new InsnNode(SWAP));
 
-		insnList.add(new VarInsnNode(ALOAD, 0));
+		insnList.add(new FieldInsnNode(GETSTATIC, SnapshotManager_name, SNAPSHOT_MANAGER_FIELD_NAME, SnaphotManager_descriptor));
+		insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotManager_name, POP_PROCESS, SnaphotManager_pop_descriptor, false));
 
-		insnList.add(new InsnNode(SWAP));
+		insnList.add(collectValues(arguments, argumentTypes));
 
-		insnList.add(pushAsArray(arguments, argumentTypes));
+		insnList.add(new VarInsnNode(ALOAD, 0));
 
 		insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotManager_name, THROW_VARIABLES, SnaphotManager_throwVariables_descriptor, false));
 
 		return insnList;
 	}
 
-	private InsnList notifyInput(ClassNode classNode, MethodNode methodNode) {
+	private InsnList collectValues(int[] locals, Type[] types) {
+		InsnList insnList = new InsnList();
+		for (int i = 0; i < types.length; i++) {
+			insnList.add(collectValue(locals[i], types[i]));
+		}
+		return insnList;
+	}
+
+	private InsnList collectValue(int local, Type type) {
+		InsnList insnList = new InsnList();
+		insnList.add(new VarInsnNode(type.getOpcode(ILOAD), local));
+		Type valueType = type.getSort() == Type.OBJECT || type.getSort() == Type.ARRAY ? Type.getType(Object.class) : type;
+		insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotProcess_name, COLLECT_VALUE, Type.getMethodDescriptor(Type.getType(SnapshotProcess.class), valueType), false));
+		return insnList;
+	}
+
+	private InsnList notifyInput(ClassNode classNode, MethodNode methodNode, String typesName) {
 		Type returnType = Type.getReturnType(methodNode.desc);
 		Type[] argumentTypes = Type.getArgumentTypes(methodNode.desc);
-		List<LocalVariableNode> arguments = range(methodNode.localVariables, 1, argumentTypes.length);
+		int[] arguments = argumentLocals(1, argumentTypes);
 
 		InsnList insnList = new InsnList();
 		int newLocal = methodNode.maxLocals;
 
-		if (returnType.getSize() > 0) {
-			insnList.add(memorizeLocal(returnType, newLocal));
+		if (returnType.getSize() == 1) {
+			insnList.add(new InsnNode(DUP));
+			insnList.add(new VarInsnNode(returnType.getOpcode(ISTORE), newLocal));
+		} else if (returnType.getSize() == 2) {
+			insnList.add(new InsnNode(DUP2));
+			insnList.add(new VarInsnNode(returnType.getOpcode(ISTORE), newLocal));
 		}
 
 		LabelNode skip = new LabelNode();
 		LabelNode done = new LabelNode();
 
-		insnList.add(new FieldInsnNode(GETSTATIC, SnapshotManager_name, SNAPSHOT_MANAGER_FIELD_NAME, SnaphotManager_descriptor));
-
-		insnList.add(new InsnNode(DUP));
-		insnList.add(new JumpInsnNode(IFNULL, skip));
+		insnList.add(activeSnapshotManager(skip));
 
 		insnList.add(new LdcInsnNode(Type.getObjectType(classNode.name)));
 		insnList.add(new LdcInsnNode(methodNode.name));
 		if (returnType.getSize() > 0) {
 			insnList.add(pushType(returnType));
-			insnList.add(recallLocal(newLocal));
+			insnList.add(new VarInsnNode(returnType.getOpcode(ILOAD), newLocal));
+			insnList.add(boxPrimitives(returnType));
 		}
-		insnList.add(pushTypes(argumentTypes));
+		insnList.add(pushArgumentTypes(classNode, typesName, argumentTypes));
 		insnList.add(pushAsArray(arguments, argumentTypes));
 		if (returnType.getSize() > 0) {
 			insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotManager_name, INPUT_VARIABLES, SnaphotManager_inputVariablesResult_descriptor, false));
@@ -418,23 +696,20 @@ public class SnapshotInstrumentor implements ClassFileTransformer {
 		return insnList;
 	}
 
-	private InsnList notifyOutput(ClassNode classNode, MethodNode methodNode) {
+	private InsnList notifyOutput(ClassNode classNode, MethodNode methodNode, String typesName) {
 		Type[] argumentTypes = Type.getArgumentTypes(methodNode.desc);
-		List<LocalVariableNode> arguments = range(methodNode.localVariables, 1, argumentTypes.length);
+		int[] arguments = argumentLocals(1, argumentTypes);
 
 		InsnList insnList = new InsnList();
 
 		LabelNode skip = new LabelNode();
 		LabelNode done = new LabelNode();
 
-		insnList.add(new FieldInsnNode(GETSTATIC, SnapshotManager_name, SNAPSHOT_MANAGER_FIELD_NAME, SnaphotManager_descriptor));
-
-		insnList.add(new InsnNode(DUP));
-		insnList.add(new JumpInsnNode(IFNULL, skip));
+		insnList.add(activeSnapshotManager(skip));
 
 		insnList.add(new LdcInsnNode(Type.getObjectType(classNode.name)));
 		insnList.add(new LdcInsnNode(methodNode.name));
-		insnList.add(pushTypes(argumentTypes));
+		insnList.add(pushArgumentTypes(classNode, typesName, argumentTypes));
 		insnList.add(pushAsArray(arguments, argumentTypes));
 		insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotManager_name, OUTPUT_VARIABLES, SnaphotManager_outputVariables_descriptor, false));
 		insnList.add(new JumpInsnNode(Opcodes.GOTO, done));
@@ -444,8 +719,71 @@ public class SnapshotInstrumentor implements ClassFileTransformer {
 		return insnList;
 	}
 
-	private String keySignature(ClassNode classNode, MethodNode methodNode) {
-		return classNode.name + ":" + methodNode.name + methodNode.desc;
+	private InsnList pushArgumentTypes(ClassNode classNode, String typesName, Type[] argumentTypes) {
+		if (retransformable) {
+			return pushTypes(argumentTypes);
+		}
+		InsnList insnList = new InsnList();
+		insnList.add(new FieldInsnNode(GETSTATIC, classNode.name, typesName, Types_descriptor));
+		return insnList;
+	}
+
+	private InsnList activeSnapshotManager(LabelNode skip) {
+		InsnList insnList = new InsnList();
+
+		insnList.add(new FieldInsnNode(GETSTATIC, SnapshotManager_name, SNAPSHOT_MANAGER_FIELD_NAME, SnaphotManager_descriptor));
+
+		insnList.add(new InsnNode(DUP));
+		insnList.add(new JumpInsnNode(IFNULL, skip));
+
+		insnList.add(new InsnNode(DUP));
+		insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SnapshotManager_name, IS_ACTIVE, SnaphotManager_isActive_descriptor, false));
+		insnList.add(new JumpInsnNode(IFEQ, skip));
+
+		return insnList;
+	}
+
+	private static class HierarchyClassWriter extends ClassWriter {
+
+		private Hierarchy hierarchy;
+
+		public HierarchyClassWriter(int flags, Hierarchy hierarchy) {
+			super(flags);
+			this.hierarchy = hierarchy;
+		}
+
+		@Override
+		protected String getCommonSuperClass(String type1, String type2) {
+			return hierarchy.getCommonSuperClass(type1, type2);
+		}
+
+	}
+
+	/**
+	 * resolves common super classes as a plain {@link ClassWriter} does and reads class files from the class loader it resolves them with.
+	 */
+	private static class DefaultHierarchy extends ClassWriter implements Hierarchy {
+
+		public DefaultHierarchy() {
+			super(0);
+		}
+
+		@Override
+		public String getCommonSuperClass(String type1, String type2) {
+			return super.getCommonSuperClass(type1, type2);
+		}
+
+		@Override
+		public byte[] getClassFile(String type) {
+			ClassLoader loader = getClass().getClassLoader();
+			String name = type + ".class";
+			try (InputStream in = loader == null ? ClassLoader.getSystemResourceAsStream(name) : loader.getResourceAsStream(name)) {
+				return in == null ? null : new ClassReader(in).b;
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
 	}
 
 }
@@ -7,9 +7,8 @@ import static net.amygdalum.testrecorder.TestrecorderThreadFactory.RECORDING;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Deque;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -17,9 +16,12 @@ public class SnapshotManager {
 
 	public static SnapshotManager MANAGER;
 
-	private ExecutorService snapshot;
+	private ExecutorService[] snapshot;
 
-	private Map<String, ContextSnapshotFactory> methodSnapshots;
+	private volatile ContextSnapshotFactory[] methodSnapshots;
+	private volatile int[] methodCalls;
+	private MethodReference[] methodReferences;
+	private int methodSnapshotCount;
 
 	private ThreadLocal<Deque<SnapshotProcess>> current = ThreadLocal.withInitial(() -> newStack());
 
@@ -28,12 +30,29 @@ public class SnapshotManager {
 	public SnapshotManager(TestRecorderAgentConfig config) {
 		this.config = new FixedTestRecorderAgentConfig(config);
 
-		this.snapshot = Executors.newSingleThreadExecutor(new TestrecorderThreadFactory("$snapshot"));
-		this.methodSnapshots = new HashMap<>();
+		this.snapshot = createSnapshotExecutors(this.config.getSnapshotThreads());
+		this.methodSnapshots = new ContextSnapshotFactory[16];
+		this.methodCalls = new int[16];
+		this.methodReferences = new MethodReference[16];
+	}
+
+	private static ExecutorService[] createSnapshotExecutors(int threads) {
+		if (threads <= 0) {
+			return new ExecutorService[0];
+		} else if (threads == 1) {
+			return new ExecutorService[] { Executors.newSingleThreadExecutor(new TestrecorderThreadFactory("$snapshot")) };
+		}
+		ExecutorService[] executors = new ExecutorService[threads];
+		for (int i = 0; i < threads; i++) {
+			executors[i] = Executors.newSingleThreadExecutor(new TestrecorderThreadFactory("$snapshot-" + i));
+		}
+		return executors;
 	}
 
 	public void close() throws Throwable {
-		snapshot.shutdown();
+		for (ExecutorService executor : snapshot) {
+			executor.shutdown();
+		}
 		SnapshotConsumer snapshotConsumer = config.getSnapshotConsumer();
 		if (snapshotConsumer != null) {
 			snapshotConsumer.close();
@@ -49,16 +68,60 @@ public class SnapshotManager {
 		return config.getSnapshotConsumer();
 	}
 
-	public void register(String signature, Method method) {
+	public synchronized int register(Method method) {
+		return add(createFactoryFor(method), null);
+	}
+
+	/**
+	 * registers a method that is not yet accessible by reflection (e.g. because its class is just being transformed). The
+	 * method is resolved on the first snapshot.
+	 */
+	public synchronized int register(ClassLoader loader, String className, String methodName, String methodDescriptor) {
+		return add(null, new MethodReference(loader, className, methodName, methodDescriptor));
+	}
+
+	private int add(ContextSnapshotFactory factory, MethodReference reference) {
+		ContextSnapshotFactory[] snapshots = methodSnapshots;
+		int[] calls = methodCalls;
+		if (methodSnapshotCount == snapshots.length) {
+			snapshots = Arrays.copyOf(snapshots, snapshots.length * 2);
+			calls = Arrays.copyOf(calls, calls.length * 2);
+			methodReferences = Arrays.copyOf(methodReferences, methodReferences.length * 2);
+		}
+		int id = methodSnapshotCount;
+		snapshots[id] = factory;
+		methodReferences[id] = reference;
+		methodSnapshotCount++;
+		methodCalls = calls;
+		methodSnapshots = snapshots;
+		return id;
+	}
+
+	private synchronized ContextSnapshotFactory resolve(int id) {
+		ContextSnapshotFactory[] snapshots = methodSnapshots;
+		if (snapshots[id] == null) {
+			snapshots[id] = createFactoryFor(methodReferences[id].resolve());
+			methodSnapshots = snapshots;
+		}
+		return snapshots[id];
+	}
+
+	private ContextSnapshotFactory createFactoryFor(Method method) {
 		Class<?> declaringClass = method.getDeclaringClass();
 		SerializationProfile profile = createProfileFor(method.getAnnotation(Snapshot.class));
 		Type returnType = method.getGenericReturnType();
 		String name = method.getName();
 		Type[] parameterTypes = method.getGenericParameterTypes();
 
-		ContextSnapshotFactory factory = new ContextSnapshotFactory(declaringClass, profile, returnType, name, parameterTypes);
+		return new ContextSnapshotFactory(declaringClass, profile, returnType, name, parameterTypes);
+	}
 
-		methodSnapshots.put(signature, factory);
+	/**
+	 * counts the calls of the given method, only every sample-th call should be recorded.
+	 */
+	public boolean sample(int id, int sample) {
+		int[] calls = methodCalls;
+		return calls[id]++ % sample == 0;
 	}
 
 	private SerializationProfile createProfileFor(Snapshot snapshot) {
@@ -76,13 +139,26 @@ public class SnapshotManager {
 		}
 	}
 
-	public SnapshotProcess push(String signature) {
-		ContextSnapshotFactory factory = methodSnapshots.get(signature);
-		SnapshotProcess process = new SnapshotProcess(snapshot, config.getTimeoutInMillis(), factory);
+	public SnapshotProcess push(int id) {
+		ContextSnapshotFactory factory = methodSnapshots[id];
+		if (factory == null) {
+			factory = resolve(id);
+		}
+		SnapshotProcess process = new SnapshotProcess(snapshotExecutor(), config.getTimeoutInMillis(), config.getMaxSnapshotObjects(), config.getSerializerGenerationThreshold(), config.getParallelSerializationThreshold(), factory);
 		current.get().push(process);
 		return process;
 	}
 
+	private ExecutorService snapshotExecutor() {
+		if (snapshot.length == 0) {
+			return null;
+		} else if (snapshot.length == 1) {
+			return snapshot[0];
+		}
+		int stripe = (int) (currentThread().getId() % snapshot.length);
+		return snapshot[stripe];
+	}
+
 	public SnapshotProcess current() {
 		Deque<SnapshotProcess> stack = current.get();
 		if (stack.isEmpty()) {
@@ -92,13 +168,20 @@ public class SnapshotManager {
 		}
 	}
 
+	/**
+	 * @return true if the current thread is within a recorded snapshot method, i.e. {@link #current()} would not return the passive process
+	 */
+	public boolean isActive() {
+		return current() != PASSIVE;
+	}
+
 	public SnapshotProcess pop() {
 		return current.get().pop();
 	}
 
-	public void setupVariables(Object self, String signature, Object... args) {
-		SnapshotProcess process = push(signature);
-		process.setupVariables(signature, self, args);
+	public void setupVariables(Object self, int id, Object... args) {
+		SnapshotProcess process = push(id);
+		process.setupVariables(self, args);
 	}
 
 	public void inputVariables(Class<?> clazz, String method, Type resultType, Object result, Type[] paramTypes, Object... args) {
@@ -125,6 +208,16 @@ public class SnapshotManager {
 		consume(process.getSnapshot());
 	}
 
+	public void expectVariables(SnapshotProcess process, Object self) {
+		process.expectVariables(self);
+		consume(process.getSnapshot());
+	}
+
+	public void throwVariables(Throwable throwable, SnapshotProcess process, Object self) {
+		process.throwVariables(throwable, self);
+		consume(process.getSnapshot());
+	}
+
 	public void throwVariables(Object self, Throwable throwable, Object... args) {
 		SnapshotProcess process = pop();
 		process.throwVariables(self, throwable, args);
@@ -147,4 +240,35 @@ public class SnapshotManager {
 			return new ArrayDeque<>();
 		}
 	}
+
+	private static class MethodReference {
+
+		private ClassLoader loader;
+		private String className;
+		private String methodName;
+		private String methodDescriptor;
+
+		MethodReference(ClassLoader loader, String className, String methodName, String methodDescriptor) {
+			this.loader = loader;
+			this.className = className;
+			this.methodName = methodName;
+			this.methodDescriptor = methodDescriptor;
+		}
+
+		public Method resolve() {
+			try {
+				Class<?> clazz = Class.forName(className.replace('/', '.'), false, loader);
+				for (Method method : clazz.getDeclaredMethods()) {
+					if (method.getName().equals(methodName) && org.objectweb.asm.Type.getMethodDescriptor(method).equals(methodDescriptor)) {
+						return method;
+					}
+				}
+				throw new SerializationException(new NoSuchMethodException(className + "." + methodName + methodDescriptor));
+			} catch (ClassNotFoundException e) {
+				throw new SerializationException(e);
+			}
+		}
+
+	}
+
 }
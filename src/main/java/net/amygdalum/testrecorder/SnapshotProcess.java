@@ -8,12 +8,14 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 
 import net.amygdalum.testrecorder.values.SerializedField;
 import net.amygdalum.testrecorder.values.SerializedInput;
+import net.amygdalum.testrecorder.values.SerializedLiteral;
 import net.amygdalum.testrecorder.values.SerializedOutput;
 
 public class SnapshotProcess {
@@ -22,23 +24,47 @@ public class SnapshotProcess {
 	
 	private ExecutorService executor;
 	private long timeoutInMillis;
+	private long maxObjects;
 	private ContextSnapshot snapshot;
-	private SerializerFacade facade;
+	private ConfigurableSerializerFacade facade;
 	private List<Field> globals;
 	private List<SerializedInput> input;
 	private List<SerializedOutput> output;
 
+	private int argumentCount;
+	private int next;
+	private SerializedValue[] values;
+	private Object[] objects;
+	private SerializedValue resultValue;
+	private Object resultObject;
+
 	private SnapshotProcess() {
 	}
 	
 	public SnapshotProcess(ExecutorService executor, long timeoutInMillis, ContextSnapshotFactory factory) {
+		this(executor, timeoutInMillis, Long.MAX_VALUE, factory);
+	}
+
+	public SnapshotProcess(ExecutorService executor, long timeoutInMillis, long maxObjects, ContextSnapshotFactory factory) {
+		this(executor, timeoutInMillis, maxObjects, -1, factory);
+	}
+
+	public SnapshotProcess(ExecutorService executor, long timeoutInMillis, long maxObjects, int generationThreshold, ContextSnapshotFactory factory) {
+		this(executor, timeoutInMillis, maxObjects, generationThreshold, -1, factory);
+	}
+
+	public SnapshotProcess(ExecutorService executor, long timeoutInMillis, long maxObjects, int generationThreshold, int parallelThreshold, ContextSnapshotFactory factory) {
 		this.executor = executor;
 		this.timeoutInMillis = timeoutInMillis;
+		this.maxObjects = maxObjects;
 		this.snapshot = factory.createSnapshot();
 		this.facade = new ConfigurableSerializerFacade(factory.profile());
+		this.facade.setGenerationThreshold(generationThreshold);
+		this.facade.setParallelThreshold(parallelThreshold);
 		this.globals = factory.getGlobalFields();
 		this.input = new ArrayList<>();
 		this.output = new ArrayList<>();
+		this.argumentCount = snapshot.getArgumentTypes().length;
 	}
 	
 	public ContextSnapshot getSnapshot() {
@@ -46,18 +72,131 @@ public class SnapshotProcess {
 	}
 	
 	public void inputVariables(Class<?> clazz, String method, Type resultType, Object result, Type[] paramTypes, Object[] args) {
-		input.add(new SerializedInput(clazz, method, resultType, facade.serialize(resultType, result), paramTypes, facade.serialize(paramTypes, args)));
+		record(snapshot -> input.add(new SerializedInput(clazz, method, resultType, facade.serialize(resultType, result), paramTypes, facade.serialize(paramTypes, args))));
 	}
 
 	public void inputVariables(Class<?> clazz, String method, Type[] paramTypes, Object[] args) {
-		input.add(new SerializedInput(clazz, method, paramTypes, facade.serialize(paramTypes, args)));
+		record(snapshot -> input.add(new SerializedInput(clazz, method, paramTypes, facade.serialize(paramTypes, args))));
 	}
 
 	public void outputVariables(Class<?> clazz, String method, Type[] paramTypes, Object[] args) {
-		output.add(new SerializedOutput(clazz, method, paramTypes, facade.serialize(paramTypes, args)));
+		record(snapshot -> output.add(new SerializedOutput(clazz, method, paramTypes, facade.serialize(paramTypes, args))));
+	}
+
+	public SnapshotProcess value(boolean value) {
+		return collect(SerializedLiteral.literal(value), null);
+	}
+
+	public SnapshotProcess value(char value) {
+		return collect(SerializedLiteral.literal(value), null);
+	}
+
+	public SnapshotProcess value(byte value) {
+		return collect(SerializedLiteral.literal(value), null);
+	}
+
+	public SnapshotProcess value(short value) {
+		return collect(SerializedLiteral.literal(value), null);
+	}
+
+	public SnapshotProcess value(int value) {
+		return collect(SerializedLiteral.literal(value), null);
+	}
+
+	public SnapshotProcess value(float value) {
+		return collect(SerializedLiteral.literal(value), null);
+	}
+
+	public SnapshotProcess value(long value) {
+		return collect(SerializedLiteral.literal(value), null);
+	}
+
+	public SnapshotProcess value(double value) {
+		return collect(SerializedLiteral.literal(value), null);
+	}
+
+	public SnapshotProcess value(Object value) {
+		return collect(null, value);
+	}
+
+	/**
+	 * collects the arguments (and - for expectations - the result as trailing value) that are passed by the value methods.
+	 * Primitive values are stored as literals at once, references are serialized with the next setup or expect call.
+	 */
+	protected SnapshotProcess collect(SerializedValue value, Object object) {
+		if (next < argumentCount) {
+			if (values == null) {
+				values = new SerializedValue[argumentCount];
+			}
+			values[next] = value;
+			if (value == null) {
+				if (objects == null) {
+					objects = new Object[argumentCount];
+				}
+				objects[next] = object;
+			}
+		} else {
+			resultValue = value;
+			resultObject = object;
+		}
+		next++;
+		return this;
+	}
+
+	public void setupVariables(Object self) {
+		Collected collected = collected();
+		modify(snapshot -> {
+			snapshot.setSetupThis(facade.serialize(self.getClass(), self));
+			snapshot.setSetupArgs(collected.args(snapshot.getArgumentTypes()));
+			snapshot.setSetupGlobals(globals.stream()
+				.map(field -> facade.serialize(field, null))
+				.toArray(SerializedField[]::new));
+			snapshot.setSetupInput(input);
+			facade.fingerprint();
+		});
+	}
+
+	public void expectVariables(Object self) {
+		Collected collected = collected();
+		modify(snapshot -> {
+			snapshot.setExpectThis(facade.serialize(self.getClass(), self));
+			if (collected.hasResult()) {
+				snapshot.setExpectResult(collected.result(snapshot.getResultType()));
+			}
+			snapshot.setExpectArgs(collected.args(snapshot.getArgumentTypes()));
+			snapshot.setExpectGlobals(globals.stream()
+				.map(field -> facade.serialize(field, null))
+				.toArray(SerializedField[]::new));
+			snapshot.setExpectOutput(output);
+		});
+		finish();
+	}
+
+	public void throwVariables(Throwable throwable, Object self) {
+		Collected collected = collected();
+		modify(snapshot -> {
+			snapshot.setExpectThis(facade.serialize(self.getClass(), self));
+			snapshot.setExpectArgs(collected.args(snapshot.getArgumentTypes()));
+			snapshot.setExpectException(facade.serialize(throwable.getClass(), throwable));
+			snapshot.setExpectGlobals(globals.stream()
+				.map(field -> facade.serialize(field, null))
+				.toArray(SerializedField[]::new));
+			snapshot.setExpectOutput(output);
+		});
+		finish();
+	}
+
+	private Collected collected() {
+		Collected collected = new Collected(values, objects, resultValue, resultObject, next);
+		values = null;
+		objects = null;
+		resultValue = null;
+		resultObject = null;
+		next = 0;
+		return collected;
 	}
 
-	public void setupVariables(String signature, Object self, Object... args) {
+	public void setupVariables(Object self, Object... args) {
 		modify(snapshot -> {
 			snapshot.setSetupThis(facade.serialize(self.getClass(), self));
 			snapshot.setSetupArgs(facade.serialize(snapshot.getArgumentTypes(), args));
@@ -65,6 +204,7 @@ public class SnapshotProcess {
 				.map(field -> facade.serialize(field, null))
 				.toArray(SerializedField[]::new));
 			snapshot.setSetupInput(input);
+			facade.fingerprint();
 		});
 	}
 
@@ -78,6 +218,7 @@ public class SnapshotProcess {
 				.toArray(SerializedField[]::new));
 			snapshot.setExpectOutput(output);
 		});
+		finish();
 	}
 
 	public void expectVariables(Object self, Object... args) {
@@ -89,6 +230,7 @@ public class SnapshotProcess {
 				.toArray(SerializedField[]::new));
 			snapshot.setExpectOutput(output);
 		});
+		finish();
 	}
 	
 	public void throwVariables(Object self, Throwable throwable, Object[] args) {
@@ -101,16 +243,64 @@ public class SnapshotProcess {
 				.toArray(SerializedField[]::new));
 			snapshot.setExpectOutput(output);
 		});
+		finish();
+	}
+
+	/**
+	 * releases the facade after the expectation is recorded. If the snapshot is invalid, a timed out task might still use the facade,
+	 * so it is not released.
+	 */
+	private void finish() {
+		if (snapshot.isValid()) {
+			facade.release();
+		}
+	}
+
+	private void record(Consumer<ContextSnapshot> task) {
+		if (!snapshot.isValid()) {
+			return;
+		}
+		facade.setBudget(newBudget());
+		try {
+			task.accept(snapshot);
+		} catch (RuntimeException | StackOverflowError e) {
+			snapshot.invalidate();
+		}
 	}
 
 	private void modify(Consumer<ContextSnapshot> task) {
+		if (!snapshot.isValid()) {
+			return;
+		}
+		facade.setBudget(newBudget());
+		if (executor == null) {
+			modifyInThread(task);
+		} else {
+			modifyInExecutor(task);
+		}
+	}
+
+	private SerializationBudget newBudget() {
+		return new SerializationBudget(maxObjects, TimeUnit.MILLISECONDS.toNanos(timeoutInMillis));
+	}
+
+	private void modifyInThread(Consumer<ContextSnapshot> task) {
+		try {
+			task.accept(snapshot);
+			facade.reset();
+		} catch (RuntimeException | StackOverflowError e) {
+			snapshot.invalidate();
+		}
+	}
+
+	private void modifyInExecutor(Consumer<ContextSnapshot> task) {
 		try {
 			Future<?> future = executor.submit(() -> {
 				task.accept(snapshot);
 			});
 			future.get(timeoutInMillis, TimeUnit.MILLISECONDS);
 			facade.reset();
-		} catch (InterruptedException | ExecutionException | TimeoutException | CancellationException e) {
+		} catch (InterruptedException | ExecutionException | TimeoutException | CancellationException | RejectedExecutionException e) {
 			snapshot.invalidate();
 		}
 	}
@@ -130,7 +320,16 @@ public class SnapshotProcess {
 			}
 			
 			@Override
-			public void setupVariables(String signature, Object self, Object... args) {
+			protected SnapshotProcess collect(SerializedValue value, Object object) {
+				return this;
+			}
+
+			@Override
+			public void setupVariables(Object self) {
+			}
+
+			@Override
+			public void setupVariables(Object self, Object... args) {
 			}
 			
 			@Override
@@ -140,10 +339,18 @@ public class SnapshotProcess {
 			@Override
 			public void expectVariables(Object self, Object... args) {
 			}
+
+			@Override
+			public void expectVariables(Object self) {
+			}
 			
 			@Override
 			public void throwVariables(Object self, Throwable throwable, Object[] args) {
 			}
+
+			@Override
+			public void throwVariables(Throwable throwable, Object self) {
+			}
 			
 			@Override
 			public ContextSnapshot getSnapshot() {
@@ -152,4 +359,44 @@ public class SnapshotProcess {
 		};
 	}
 
+	private class Collected {
+
+		private SerializedValue[] values;
+		private Object[] objects;
+		private SerializedValue resultValue;
+		private Object resultObject;
+		private int count;
+
+		Collected(SerializedValue[] values, Object[] objects, SerializedValue resultValue, Object resultObject, int count) {
+			this.values = values == null ? new SerializedValue[0] : values;
+			this.objects = objects;
+			this.resultValue = resultValue;
+			this.resultObject = resultObject;
+			this.count = count;
+		}
+
+		public boolean hasResult() {
+			return count > argumentCount;
+		}
+
+		public SerializedValue result(Type type) {
+			if (resultValue != null) {
+				return resultValue;
+			}
+			return facade.serialize(type, resultObject);
+		}
+
+		public SerializedValue[] args(Type[] types) {
+			if (objects != null) {
+				for (int i = 0; i < values.length; i++) {
+					if (values[i] == null) {
+						values[i] = facade.serialize(types[i], objects[i]);
+					}
+				}
+			}
+			return values;
+		}
+
+	}
+
 }
@@ -1,13 +1,81 @@
 package net.amygdalum.testrecorder;
 
 import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class TestRecorderAgent {
 
+	public static final String DETACH = "detach";
+
+	private static Instrumentation attachedInst;
+	private static SnapshotInstrumentor attachedInstrumentor;
+
 	public static void premain(String agentArgs, Instrumentation inst) {
 		TestRecorderAgentConfig config = loadConfig(agentArgs);
 		inst.addTransformer(new SnapshotInstrumentor(config));
+		RecordingSwitch.RECORDING.register();
+		initialize(config.getInitializer());
+	}
+
+	/**
+	 * attaches the agent to a running jvm and retransforms all loaded classes of the configured packages. Attaching again with
+	 * the argument {@value #DETACH} restores the original classes.
+	 */
+	public static synchronized void agentmain(String agentArgs, Instrumentation inst) {
+		if (DETACH.equals(agentArgs)) {
+			detach();
+			return;
+		}
+		if (attachedInstrumentor != null) {
+			System.out.println("already attached, skipping");
+			return;
+		}
+		TestRecorderAgentConfig config = loadConfig(agentArgs);
+		SnapshotInstrumentor instrumentor = new SnapshotInstrumentor(config, true);
+		inst.addTransformer(instrumentor, true);
+		attachedInst = inst;
+		attachedInstrumentor = instrumentor;
+		RecordingSwitch.RECORDING.register();
 		initialize(config.getInitializer());
+		retransform(inst, instrumentor);
+	}
+
+	/**
+	 * removes the agent attached with {@link #agentmain(String, Instrumentation)}, restores the original classes and closes the
+	 * snapshot manager (flushing all recorded snapshots).
+	 */
+	public static synchronized void detach() {
+		if (attachedInstrumentor == null) {
+			return;
+		}
+		attachedInst.removeTransformer(attachedInstrumentor);
+		retransform(attachedInst, attachedInstrumentor);
+		try {
+			SnapshotManager.MANAGER.close();
+		} catch (Throwable e) {
+			System.out.println("closing snapshot manager failed with " + e.getMessage());
+		}
+		attachedInst = null;
+		attachedInstrumentor = null;
+	}
+
+	private static void retransform(Instrumentation inst, SnapshotInstrumentor instrumentor) {
+		List<Class<?>> classes = new ArrayList<>();
+		for (Class<?> clazz : inst.getAllLoadedClasses()) {
+			if (inst.isModifiableClass(clazz) && instrumentor.matches(clazz)) {
+				classes.add(clazz);
+			}
+		}
+		if (classes.isEmpty()) {
+			return;
+		}
+		try {
+			inst.retransformClasses(classes.toArray(new Class<?>[0]));
+		} catch (UnmodifiableClassException | RuntimeException e) {
+			System.out.println("retransforming classes failed with " + e.getMessage());
+		}
 	}
 
 	public static void initialize(Class<? extends Runnable> initializerClass) {
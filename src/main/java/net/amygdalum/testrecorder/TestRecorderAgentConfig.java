@@ -1,5 +1,6 @@
 package net.amygdalum.testrecorder;
 
+import java.nio.file.Path;
 import java.util.List;
 
 public interface TestRecorderAgentConfig extends SerializationProfile {
@@ -15,6 +16,41 @@ public interface TestRecorderAgentConfig extends SerializationProfile {
 
 	long getTimeoutInMillis();
 
+	/**
+	 * @return the number of threads recording snapshots (each recording thread is striped to one of them)
+	 */
+	default int getSnapshotThreads() {
+		return 1;
+	}
+
+	/**
+	 * @return the maximum number of objects serialized for one snapshot before the snapshot is dropped
+	 */
+	default long getMaxSnapshotObjects() {
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * @return the number of serializations of a class after which a specialized serializer is generated, negative values disable generation
+	 */
+	default int getSerializerGenerationThreshold() {
+		return -1;
+	}
+
+	/**
+	 * @return the minimum size of lists and arrays whose elements are serialized in parallel, negative values disable parallel serialization
+	 */
+	default int getParallelSerializationThreshold() {
+		return -1;
+	}
+
+	/**
+	 * @return the directory to store instrumented classes in for reuse on the next start, null disables the cache
+	 */
+	default Path getInstrumentationCache() {
+		return null;
+	}
+
 	List<String> getPackages();
 	
 	Class<? extends Runnable> getInitializer();
@@ -29,6 +29,7 @@ import net.amygdalum.testrecorder.values.SerializedLiteral;
 import net.amygdalum.testrecorder.values.SerializedMap;
 import net.amygdalum.testrecorder.values.SerializedNull;
 import net.amygdalum.testrecorder.values.SerializedObject;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
 import net.amygdalum.testrecorder.values.SerializedSet;
 
 public class SimpleDeserializer implements Deserializer<Object> {
@@ -105,6 +106,14 @@ public class SimpleDeserializer implements Deserializer<Object> {
 				}
 			});
 			return array;
+		} else if (rt instanceof SerializedPrimitiveArray) {
+			SerializedPrimitiveArray value = (SerializedPrimitiveArray) rt;
+			Object rawArray = value.getArray();
+			int length = value.getLength();
+			Object array = fetch(value, () -> Array.newInstance(value.getRawType(), length), base -> {
+				System.arraycopy(rawArray, 0, base, 0, length);
+			});
+			return array;
 		} else if (rt instanceof SerializedNull) {
 			return null;
 		} else {
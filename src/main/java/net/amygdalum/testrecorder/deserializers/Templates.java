@@ -36,6 +36,7 @@ public final class Templates {
 	private static final String WIDENING_MATCHER = "widening(<value>)";
 	private static final String ENUM_MATCHER = "matchingEnum(<value>)";
 	private static final String RECURSIVE_MATCHER = "recursive(<type>)";
+	private static final String TRUNCATED_MATCHER = "truncated(<type>)";
 	private static final String CONTAINS_IN_ORDER_MATCHER = "containsInOrder(<type>.class, <values; separator=\", \">)";
 	private static final String EMPTY_MATCHER = "empty()";
 	private static final String CONTAINS_IN_ANY_ORDER_MATCHER = "contains(<type>.class, <values; separator=\", \">)";
@@ -398,6 +399,13 @@ public final class Templates {
 		return matcher.render();
 	}
 
+	public static String truncatedMatcher(String type) {
+		ST matcher = new ST(TRUNCATED_MATCHER);
+		matcher.add("type", type);
+
+		return matcher.render();
+	}
+
 	public static String arrayContainingMatcher(String type, String... elementValues) {
 		ST matcher = new ST(ARRAY_CONTAINING_MATCHER);
 		matcher.add("type", type);
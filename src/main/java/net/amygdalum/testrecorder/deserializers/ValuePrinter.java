@@ -2,8 +2,10 @@ package net.amygdalum.testrecorder.deserializers;
 
 import static java.util.stream.Collectors.joining;
 
+import java.lang.reflect.Array;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import net.amygdalum.testrecorder.Deserializer;
@@ -18,7 +20,9 @@ import net.amygdalum.testrecorder.values.SerializedList;
 import net.amygdalum.testrecorder.values.SerializedMap;
 import net.amygdalum.testrecorder.values.SerializedNull;
 import net.amygdalum.testrecorder.values.SerializedObject;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
 import net.amygdalum.testrecorder.values.SerializedSet;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
 
 public class ValuePrinter implements Deserializer<String> {
 
@@ -67,8 +71,17 @@ public class ValuePrinter implements Deserializer<String> {
 			return Stream.of(value.getArray())
 				.map(element -> element.accept(this))
 				.collect(joining(", ", "<", ">"));
+		} else if (rt instanceof SerializedPrimitiveArray) {
+			SerializedPrimitiveArray value = (SerializedPrimitiveArray) rt;
+			Object array = value.getArray();
+			return IntStream.range(0, value.getLength())
+				.mapToObj(i -> String.valueOf(Array.get(array, i)))
+				.collect(joining(", ", "<", ">"));
 		} else if (rt instanceof SerializedNull) {
 			return "null";
+		} else if (rt instanceof SerializedTruncated) {
+			SerializedTruncated value = (SerializedTruncated) rt;
+			return "<truncated: " + value.getReason() + ">";
 		} else {
 			return "";
 		}
@@ -46,7 +46,7 @@ public class DefaultMapAdaptor extends DefaultSetupGenerator<SerializedMap> impl
 
 			String tempVar = equalResultTypes(value) ? local.getName() : generator.temporaryLocal();
 
-			String map = newObject(types.getBestName(value.getType()));
+			String map = newMap(value, types);
 			String mapInit = assignLocalVariableStatement(types.getSimpleName(value.getType()), tempVar, map);
 			statements.add(mapInit);
 
@@ -64,4 +64,8 @@ public class DefaultMapAdaptor extends DefaultSetupGenerator<SerializedMap> impl
 		});
 	}
 
+	protected String newMap(SerializedMap value, TypeManager types) {
+		return newObject(types.getBestName(value.getType()));
+	}
+
 }
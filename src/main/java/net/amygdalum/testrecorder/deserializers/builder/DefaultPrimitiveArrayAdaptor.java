@@ -0,0 +1,59 @@
+package net.amygdalum.testrecorder.deserializers.builder;
+
+import static java.util.stream.Collectors.toList;
+import static net.amygdalum.testrecorder.deserializers.Templates.arrayLiteral;
+import static net.amygdalum.testrecorder.deserializers.Templates.asLiteral;
+import static net.amygdalum.testrecorder.deserializers.Templates.assignLocalVariableStatement;
+import static net.amygdalum.testrecorder.deserializers.Templates.callLocalMethod;
+import static net.amygdalum.testrecorder.util.PrimitiveArrays.encode;
+import static net.amygdalum.testrecorder.util.PrimitiveArrays.isLarge;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import net.amygdalum.testrecorder.deserializers.Computation;
+import net.amygdalum.testrecorder.deserializers.TypeManager;
+import net.amygdalum.testrecorder.util.PrimitiveArrays;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+
+public class DefaultPrimitiveArrayAdaptor extends DefaultSetupGenerator<SerializedPrimitiveArray> implements SetupGenerator<SerializedPrimitiveArray> {
+
+	@Override
+	public Class<SerializedPrimitiveArray> getAdaptedClass() {
+		return SerializedPrimitiveArray.class;
+	}
+
+	@Override
+	public Computation tryDeserialize(SerializedPrimitiveArray value, SetupGenerators generator) {
+		TypeManager types = generator.getTypes();
+		types.registerType(value.getResultType());
+
+		return generator.forVariable(value, value.getResultType(), local -> {
+			Object array = value.getArray();
+
+			String arrayValue;
+			if (isLarge(array)) {
+				String decode = value.getRawType().getName() + "Array";
+				types.staticImport(PrimitiveArrays.class, decode);
+				List<String> chunks = Stream.of(encode(array))
+					.map(chunk -> asLiteral(chunk))
+					.collect(toList());
+				arrayValue = callLocalMethod(decode, chunks);
+			} else {
+				List<String> elements = IntStream.range(0, value.getLength())
+					.mapToObj(i -> asLiteral(Array.get(array, i)))
+					.collect(toList());
+				arrayValue = arrayLiteral(types.getSimpleName(value.getResultType()), elements);
+			}
+
+			List<String> statements = new ArrayList<>();
+			statements.add(assignLocalVariableStatement(types.getSimpleName(value.getResultType()), local.getName(), arrayValue));
+
+			return new Computation(local.getName(), value.getResultType(), statements);
+		});
+	}
+
+}
@@ -0,0 +1,18 @@
+package net.amygdalum.testrecorder.deserializers.builder;
+
+import net.amygdalum.testrecorder.deserializers.Computation;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
+
+public class DefaultTruncatedAdaptor extends DefaultSetupGenerator<SerializedTruncated> implements SetupGenerator<SerializedTruncated> {
+
+	@Override
+	public Class<SerializedTruncated> getAdaptedClass() {
+		return SerializedTruncated.class;
+	}
+
+	@Override
+	public Computation tryDeserialize(SerializedTruncated value, SetupGenerators generator) {
+		return new Computation("null", value.getResultType());
+	}
+
+}
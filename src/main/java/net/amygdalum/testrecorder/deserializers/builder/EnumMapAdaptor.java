@@ -0,0 +1,39 @@
+package net.amygdalum.testrecorder.deserializers.builder;
+
+import static net.amygdalum.testrecorder.deserializers.Templates.newObject;
+import static net.amygdalum.testrecorder.util.Types.baseType;
+
+import java.lang.reflect.Type;
+import java.util.EnumMap;
+
+import net.amygdalum.testrecorder.DeserializationException;
+import net.amygdalum.testrecorder.deserializers.Computation;
+import net.amygdalum.testrecorder.deserializers.TypeManager;
+import net.amygdalum.testrecorder.values.SerializedMap;
+
+public class EnumMapAdaptor extends DefaultMapAdaptor {
+
+	@Override
+	public Class<DefaultMapAdaptor> parent() {
+		return DefaultMapAdaptor.class;
+	}
+
+	@Override
+	public boolean matches(Type type) {
+		return baseType(type) == EnumMap.class;
+	}
+
+	@Override
+	public Computation tryDeserialize(SerializedMap value, SetupGenerators generator) {
+		if (!baseType(value.getMapKeyType()).isEnum()) {
+			throw new DeserializationException(value.toString());
+		}
+		return super.tryDeserialize(value, generator);
+	}
+
+	@Override
+	protected String newMap(SerializedMap value, TypeManager types) {
+		return newObject(types.getBestName(value.getType()), types.getRawTypeName(value.getMapKeyType()));
+	}
+
+}
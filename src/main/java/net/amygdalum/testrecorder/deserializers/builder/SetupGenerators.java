@@ -109,10 +109,15 @@ public class SetupGenerators implements Deserializer<Computation> {
 		types.registerTypes(fieldType, resultType, fieldResultType);
 
 		SerializedValue value = field.getValue();
+		Computation valueTemplate;
 		if (value instanceof SerializedReferenceType) {
-			((SerializedReferenceType) value).setResultType(fieldResultType);
+			SerializedReferenceType referenceValue = (SerializedReferenceType) value;
+			referenceValue.setResultType(fieldResultType);
+			valueTemplate = value.accept(this);
+			referenceValue.setResultType(resultType);
+		} else {
+			valueTemplate = value.accept(this);
 		}
-		Computation valueTemplate = value.accept(this);
 
 		List<String> statements = valueTemplate.getStatements();
 
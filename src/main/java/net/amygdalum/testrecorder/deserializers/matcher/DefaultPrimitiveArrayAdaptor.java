@@ -0,0 +1,56 @@
+package net.amygdalum.testrecorder.deserializers.matcher;
+
+import static net.amygdalum.testrecorder.deserializers.Templates.asLiteral;
+import static net.amygdalum.testrecorder.deserializers.Templates.callLocalMethod;
+import static net.amygdalum.testrecorder.deserializers.Templates.primitiveArrayContainingMatcher;
+import static net.amygdalum.testrecorder.util.PrimitiveArrays.encode;
+import static net.amygdalum.testrecorder.util.PrimitiveArrays.isLarge;
+import static net.amygdalum.testrecorder.util.Types.parameterized;
+import static net.amygdalum.testrecorder.util.Types.wildcard;
+
+import java.lang.reflect.Array;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.hamcrest.Matcher;
+
+import net.amygdalum.testrecorder.deserializers.Computation;
+import net.amygdalum.testrecorder.deserializers.TypeManager;
+import net.amygdalum.testrecorder.util.PrimitiveArrayMatcher;
+import net.amygdalum.testrecorder.util.PrimitiveArrays;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+
+public class DefaultPrimitiveArrayAdaptor extends DefaultMatcherGenerator<SerializedPrimitiveArray> implements MatcherGenerator<SerializedPrimitiveArray> {
+
+	@Override
+	public Class<SerializedPrimitiveArray> getAdaptedClass() {
+		return SerializedPrimitiveArray.class;
+	}
+
+	@Override
+	public Computation tryDeserialize(SerializedPrimitiveArray value, MatcherGenerators generator) {
+		TypeManager types = generator.getTypes();
+		String name = value.getRawType().getName();
+		types.staticImport(PrimitiveArrayMatcher.class, name + "ArrayContaining");
+
+		Object array = value.getArray();
+
+		String[] elementValues;
+		if (isLarge(array)) {
+			String decode = name + "Array";
+			types.staticImport(PrimitiveArrays.class, decode);
+			String[] chunks = Stream.of(encode(array))
+				.map(chunk -> asLiteral(chunk))
+				.toArray(String[]::new);
+			elementValues = new String[] { callLocalMethod(decode, chunks) };
+		} else {
+			elementValues = IntStream.range(0, value.getLength())
+				.mapToObj(i -> asLiteral(Array.get(array, i)))
+				.toArray(String[]::new);
+		}
+
+		String primitiveArrayContainingMatcher = primitiveArrayContainingMatcher(name, elementValues);
+		return new Computation(primitiveArrayContainingMatcher, parameterized(Matcher.class, null, wildcard()));
+	}
+
+}
@@ -0,0 +1,40 @@
+package net.amygdalum.testrecorder.deserializers.matcher;
+
+import static java.util.Collections.emptyList;
+import static net.amygdalum.testrecorder.deserializers.Templates.truncatedMatcher;
+import static net.amygdalum.testrecorder.util.Types.parameterized;
+import static net.amygdalum.testrecorder.util.Types.wildcard;
+
+import java.lang.reflect.Type;
+
+import org.hamcrest.Matcher;
+
+import net.amygdalum.testrecorder.deserializers.Computation;
+import net.amygdalum.testrecorder.deserializers.TypeManager;
+import net.amygdalum.testrecorder.util.GenericMatcher;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
+
+public class DefaultTruncatedAdaptor extends DefaultMatcherGenerator<SerializedTruncated> implements MatcherGenerator<SerializedTruncated> {
+
+	@Override
+	public Class<SerializedTruncated> getAdaptedClass() {
+		return SerializedTruncated.class;
+	}
+
+	@Override
+	public Computation tryDeserialize(SerializedTruncated value, MatcherGenerators generator) {
+		TypeManager types = generator.getTypes();
+		types.registerType(value.getType());
+		types.staticImport(GenericMatcher.class, "truncated");
+
+		Type resultType = value.getResultType().equals(value.getType()) ? parameterized(Matcher.class, null, value.getResultType()) : parameterized(Matcher.class, null, wildcard());
+		if (!types.isHidden(value.getType())) {
+			return new Computation(truncatedMatcher(types.getRawTypeName(value.getType())), resultType, emptyList());
+		} else if (!types.isHidden(value.getResultType())) {
+			return new Computation(truncatedMatcher(types.getRawTypeName(value.getResultType())), resultType, emptyList());
+		} else {
+			return new Computation(truncatedMatcher(types.getRawTypeName(Object.class)), parameterized(Matcher.class, null, wildcard()), emptyList());
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package net.amygdalum.testrecorder.journal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The entries written to the current segment. Entries added by a record that could not be written are removed again with
+ * {@link #rollback()}, so the dictionary matches the segment content.
+ */
+class Dictionary<T> {
+
+	private Map<T, Integer> indexes;
+	private List<T> entries;
+	private int committed;
+
+	Dictionary() {
+		this.indexes = new HashMap<>();
+		this.entries = new ArrayList<>();
+	}
+
+	int indexOf(T entry) {
+		Integer index = indexes.get(entry);
+		return index == null ? -1 : index;
+	}
+
+	void add(T entry) {
+		indexes.put(entry, entries.size());
+		entries.add(entry);
+	}
+
+	void commit() {
+		committed = entries.size();
+	}
+
+	void rollback() {
+		while (entries.size() > committed) {
+			indexes.remove(entries.remove(entries.size() - 1));
+		}
+	}
+
+	void clear() {
+		indexes.clear();
+		entries.clear();
+		committed = 0;
+	}
+
+}
@@ -0,0 +1,13 @@
+package net.amygdalum.testrecorder.journal;
+
+public class JournalException extends RuntimeException {
+
+	public JournalException(Throwable e) {
+		super(e);
+	}
+
+	public JournalException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,62 @@
+package net.amygdalum.testrecorder.journal;
+
+/**
+ * The binary layout of a snapshot journal.
+ * 
+ * A journal is a directory of segment files. Each segment starts with {@link #MAGIC} followed by records, each record is the
+ * length of its content (a 4 byte int) followed by the content, a length of 0 ends the segment. Strings, types and object schemas
+ * are stored in dictionaries per segment: the first occurrence in a segment is written as {@link #NEW} followed by its definition,
+ * later occurrences as the index in the dictionary (shifted by {@link #FIRST_INDEX}). So each segment can be read on its own.
+ * 
+ * The values of a snapshot are written as a graph: each reference value is written once (its header, i.e. kind and types, where it
+ * is first reached, its content later in the order the values were reached), further references to the same value as
+ * {@link #BACKREF} with its id.
+ */
+final class JournalFormat {
+
+	static final int MAGIC = 0x54524a31;
+	static final int HEADER_SIZE = 4;
+	static final int LENGTH_SIZE = 4;
+
+	static final int NULL = 0;
+	static final int NEW = 1;
+	static final int FIRST_INDEX = 2;
+
+	static final int BACKREF = 1;
+	static final int NULL_VALUE = 2;
+	static final int LITERAL = 3;
+	static final int OBJECT = 4;
+	static final int LIST = 5;
+	static final int SET = 6;
+	static final int MAP = 7;
+	static final int ARRAY = 8;
+	static final int PRIMITIVE_ARRAY = 9;
+	static final int ENUM = 10;
+	static final int IMMUTABLE = 11;
+	static final int TRUNCATED = 12;
+
+	static final int BOOLEAN = 0;
+	static final int CHAR = 1;
+	static final int BYTE = 2;
+	static final int SHORT = 3;
+	static final int INT = 4;
+	static final int LONG = 5;
+	static final int FLOAT = 6;
+	static final int DOUBLE = 7;
+	static final int STRING = 8;
+
+	static final int BIG_INTEGER = 0;
+	static final int BIG_DECIMAL = 1;
+	static final int CLASS = 2;
+
+	static final int CLASS_TYPE = 0;
+	static final int PARAMETERIZED_TYPE = 1;
+	static final int GENERIC_ARRAY_TYPE = 2;
+	static final int WILDCARD_TYPE = 3;
+	static final int CLASS_VARIABLE = 4;
+	static final int METHOD_VARIABLE = 5;
+
+	private JournalFormat() {
+	}
+
+}
@@ -0,0 +1,86 @@
+package net.amygdalum.testrecorder.journal;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a journal record written by {@link JournalOutput}.
+ */
+public class JournalInput {
+
+	private ByteBuffer buffer;
+
+	public JournalInput(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	public int readByte() {
+		return buffer.get() & 0xff;
+	}
+
+	public boolean readBoolean() {
+		return buffer.get() != 0;
+	}
+
+	public char readChar() {
+		return (char) readVarInt();
+	}
+
+	public short readShort() {
+		return (short) unzigzag(readVarLong());
+	}
+
+	public int readInt() {
+		return (int) unzigzag(readVarLong());
+	}
+
+	public long readLong() {
+		return unzigzag(readVarLong());
+	}
+
+	public float readFloat() {
+		return Float.intBitsToFloat((int) readFixed(4));
+	}
+
+	public double readDouble() {
+		return Double.longBitsToDouble(readFixed(8));
+	}
+
+	private long readFixed(int length) {
+		long value = 0;
+		for (int i = 0; i < length; i++) {
+			value = (value << 8) | (buffer.get() & 0xff);
+		}
+		return value;
+	}
+
+	public int readVarInt() {
+		return (int) readVarLong();
+	}
+
+	private long readVarLong() {
+		long value = 0;
+		int shift = 0;
+		while (true) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+			shift += 7;
+		}
+	}
+
+	public String readUTF() {
+		int length = readVarInt();
+		byte[] utf = new byte[length];
+		buffer.get(utf);
+		return new String(utf, UTF_8);
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+}
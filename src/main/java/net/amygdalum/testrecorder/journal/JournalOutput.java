@@ -0,0 +1,106 @@
+package net.amygdalum.testrecorder.journal;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer a journal record is encoded into before it is appended to a segment. Counts and indexes are written as
+ * variable length integers (7 bits per byte), so small numbers take a single byte.
+ */
+public class JournalOutput {
+
+	private byte[] bytes;
+	private int size;
+
+	public JournalOutput() {
+		this.bytes = new byte[1024];
+	}
+
+	public void reset() {
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public byte[] bytes() {
+		return bytes;
+	}
+
+	private void ensure(int additional) {
+		if (size + additional > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+		}
+	}
+
+	public void writeByte(int value) {
+		ensure(1);
+		bytes[size++] = (byte) value;
+	}
+
+	public void writeBoolean(boolean value) {
+		writeByte(value ? 1 : 0);
+	}
+
+	public void writeChar(char value) {
+		writeVarInt(value);
+	}
+
+	public void writeShort(short value) {
+		writeVarLong(zigzag(value));
+	}
+
+	public void writeInt(int value) {
+		writeVarLong(zigzag(value));
+	}
+
+	public void writeLong(long value) {
+		writeVarLong(zigzag(value));
+	}
+
+	public void writeFloat(float value) {
+		writeFixed(Float.floatToRawIntBits(value), 4);
+	}
+
+	public void writeDouble(double value) {
+		writeFixed(Double.doubleToRawLongBits(value), 8);
+	}
+
+	private void writeFixed(long value, int length) {
+		ensure(length);
+		for (int i = length - 1; i >= 0; i--) {
+			bytes[size++] = (byte) (value >>> (i * 8));
+		}
+	}
+
+	/**
+	 * writes a non negative int
+	 */
+	public void writeVarInt(int value) {
+		writeVarLong(value & 0xffff_ffffL);
+	}
+
+	private void writeVarLong(long value) {
+		ensure(10);
+		while ((value & ~0x7fL) != 0) {
+			bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		bytes[size++] = (byte) value;
+	}
+
+	public void writeUTF(String value) {
+		byte[] utf = value.getBytes(UTF_8);
+		writeVarInt(utf.length);
+		ensure(utf.length);
+		System.arraycopy(utf, 0, bytes, size, utf.length);
+		size += utf.length;
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+}
@@ -0,0 +1,542 @@
+package net.amygdalum.testrecorder.journal;
+
+import static net.amygdalum.testrecorder.journal.JournalFormat.ARRAY;
+import static net.amygdalum.testrecorder.journal.JournalFormat.BACKREF;
+import static net.amygdalum.testrecorder.journal.JournalFormat.BIG_DECIMAL;
+import static net.amygdalum.testrecorder.journal.JournalFormat.BIG_INTEGER;
+import static net.amygdalum.testrecorder.journal.JournalFormat.BOOLEAN;
+import static net.amygdalum.testrecorder.journal.JournalFormat.BYTE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.CHAR;
+import static net.amygdalum.testrecorder.journal.JournalFormat.CLASS;
+import static net.amygdalum.testrecorder.journal.JournalFormat.CLASS_TYPE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.CLASS_VARIABLE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.DOUBLE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.ENUM;
+import static net.amygdalum.testrecorder.journal.JournalFormat.FIRST_INDEX;
+import static net.amygdalum.testrecorder.journal.JournalFormat.FLOAT;
+import static net.amygdalum.testrecorder.journal.JournalFormat.GENERIC_ARRAY_TYPE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.IMMUTABLE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.INT;
+import static net.amygdalum.testrecorder.journal.JournalFormat.LIST;
+import static net.amygdalum.testrecorder.journal.JournalFormat.LITERAL;
+import static net.amygdalum.testrecorder.journal.JournalFormat.LONG;
+import static net.amygdalum.testrecorder.journal.JournalFormat.MAP;
+import static net.amygdalum.testrecorder.journal.JournalFormat.METHOD_VARIABLE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.NEW;
+import static net.amygdalum.testrecorder.journal.JournalFormat.NULL;
+import static net.amygdalum.testrecorder.journal.JournalFormat.NULL_VALUE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.OBJECT;
+import static net.amygdalum.testrecorder.journal.JournalFormat.PARAMETERIZED_TYPE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.PRIMITIVE_ARRAY;
+import static net.amygdalum.testrecorder.journal.JournalFormat.SET;
+import static net.amygdalum.testrecorder.journal.JournalFormat.SHORT;
+import static net.amygdalum.testrecorder.journal.JournalFormat.STRING;
+import static net.amygdalum.testrecorder.journal.JournalFormat.TRUNCATED;
+import static net.amygdalum.testrecorder.journal.JournalFormat.WILDCARD_TYPE;
+import static net.amygdalum.testrecorder.util.Types.array;
+import static net.amygdalum.testrecorder.util.Types.parameterized;
+import static net.amygdalum.testrecorder.util.Types.wildcard;
+import static net.amygdalum.testrecorder.util.Types.wildcardExtends;
+import static net.amygdalum.testrecorder.util.Types.wildcardSuper;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.amygdalum.testrecorder.ContextSnapshot;
+import net.amygdalum.testrecorder.SerializedReferenceType;
+import net.amygdalum.testrecorder.SerializedValue;
+import net.amygdalum.testrecorder.values.SerializedArray;
+import net.amygdalum.testrecorder.values.SerializedEnum;
+import net.amygdalum.testrecorder.values.SerializedField;
+import net.amygdalum.testrecorder.values.SerializedImmutable;
+import net.amygdalum.testrecorder.values.SerializedInput;
+import net.amygdalum.testrecorder.values.SerializedList;
+import net.amygdalum.testrecorder.values.SerializedLiteral;
+import net.amygdalum.testrecorder.values.SerializedMap;
+import net.amygdalum.testrecorder.values.SerializedNull;
+import net.amygdalum.testrecorder.values.SerializedObject;
+import net.amygdalum.testrecorder.values.SerializedOutput;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+import net.amygdalum.testrecorder.values.SerializedSet;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
+
+/**
+ * Decodes snapshots encoded by {@link SnapshotEncoder}. As the encoder the decoder keeps the dictionaries of the current segment, so
+ * all records of a segment have to be decoded by the same decoder (in the order they were written) and {@link #reset()} has to be
+ * called before the records of the next segment.
+ *
+ * Classes are loaded with the given class loader, so the recorded classes have to be on its class path.
+ */
+public class SnapshotDecoder {
+
+	private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+
+	static {
+		for (Class<?> primitive : new Class<?>[] { boolean.class, char.class, byte.class, short.class, int.class, long.class, float.class, double.class, void.class }) {
+			PRIMITIVES.put(primitive.getName(), primitive);
+		}
+	}
+
+	private ClassLoader loader;
+
+	private List<String> strings;
+	private List<Type> types;
+	private List<Schema> schemas;
+
+	private List<SerializedValue> values;
+	private Deque<SerializedValue> contents;
+
+	public SnapshotDecoder(ClassLoader loader) {
+		this.loader = loader;
+		this.strings = new ArrayList<>();
+		this.types = new ArrayList<>();
+		this.schemas = new ArrayList<>();
+		this.values = new ArrayList<>();
+		this.contents = new ArrayDeque<>();
+	}
+
+	public void reset() {
+		strings.clear();
+		types.clear();
+		schemas.clear();
+	}
+
+	public ContextSnapshot decode(JournalInput in) {
+		try {
+			return readSnapshot(in);
+		} finally {
+			values.clear();
+			contents.clear();
+		}
+	}
+
+	private ContextSnapshot readSnapshot(JournalInput in) {
+		Class<?> declaringClass = (Class<?>) readType(in);
+		Type resultType = readType(in);
+		String methodName = readString(in);
+		Type[] argumentTypes = readTypes(in);
+		ContextSnapshot snapshot = new ContextSnapshot(declaringClass, resultType, methodName, argumentTypes);
+
+		snapshot.setSetupThis(readValue(in));
+		snapshot.setSetupArgs(readValues(in));
+		snapshot.setSetupGlobals(readFields(in));
+
+		snapshot.setExpectThis(readValue(in));
+		snapshot.setExpectResult(readValue(in));
+		snapshot.setExpectException(readValue(in));
+		snapshot.setExpectArgs(readValues(in));
+		snapshot.setExpectGlobals(readFields(in));
+
+		snapshot.setSetupInput(readInputs(in));
+		snapshot.setExpectOutput(readOutputs(in));
+
+		while (!contents.isEmpty()) {
+			readContent(contents.remove(), in);
+		}
+		return snapshot;
+	}
+
+	private List<SerializedInput> readInputs(JournalInput in) {
+		int size = in.readVarInt() - 1;
+		if (size < 0) {
+			return null;
+		}
+		List<SerializedInput> inputs = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Class<?> clazz = (Class<?>) readType(in);
+			String name = readString(in);
+			Type resultType = readType(in);
+			SerializedValue result = readValue(in);
+			Type[] types = readTypes(in);
+			SerializedValue[] values = readValues(in);
+			inputs.add(new SerializedInput(clazz, name, resultType, result, types, values));
+		}
+		return inputs;
+	}
+
+	private List<SerializedOutput> readOutputs(JournalInput in) {
+		int size = in.readVarInt() - 1;
+		if (size < 0) {
+			return null;
+		}
+		List<SerializedOutput> outputs = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Class<?> clazz = (Class<?>) readType(in);
+			String name = readString(in);
+			Type[] types = readTypes(in);
+			SerializedValue[] values = readValues(in);
+			outputs.add(new SerializedOutput(clazz, name, types, values));
+		}
+		return outputs;
+	}
+
+	private SerializedField[] readFields(JournalInput in) {
+		int size = in.readVarInt() - 1;
+		if (size < 0) {
+			return null;
+		}
+		SerializedField[] fields = new SerializedField[size];
+		for (int i = 0; i < size; i++) {
+			Class<?> clazz = (Class<?>) readType(in);
+			String name = readString(in);
+			Type type = readType(in);
+			fields[i] = new SerializedField(clazz, name, type, readValue(in));
+		}
+		return fields;
+	}
+
+	private SerializedValue[] readValues(JournalInput in) {
+		int size = in.readVarInt() - 1;
+		if (size < 0) {
+			return null;
+		}
+		SerializedValue[] values = new SerializedValue[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = readValue(in);
+		}
+		return values;
+	}
+
+	private SerializedValue readValue(JournalInput in) {
+		int kind = in.readByte();
+		switch (kind) {
+		case NULL:
+			return null;
+		case BACKREF:
+			return values.get(in.readVarInt());
+		case LITERAL:
+			Type resultType = readType(in);
+			return SerializedLiteral.literal(resultType, readLiteral(in));
+		case NULL_VALUE:
+			return SerializedNull.nullInstance(readType(in));
+		default:
+			return readHeader(kind, in);
+		}
+	}
+
+	private SerializedValue readHeader(int kind, JournalInput in) {
+		Type type = readType(in);
+		Type resultType = readType(in);
+		SerializedReferenceType value;
+		switch (kind) {
+		case OBJECT:
+			value = new SerializedObject(type);
+			contents.add(value);
+			break;
+		case LIST:
+			value = new SerializedList(type);
+			contents.add(value);
+			break;
+		case SET:
+			value = new SerializedSet(type);
+			contents.add(value);
+			break;
+		case MAP:
+			value = new SerializedMap(type);
+			contents.add(value);
+			break;
+		case ARRAY:
+			value = new SerializedArray(type);
+			contents.add(value);
+			break;
+		case PRIMITIVE_ARRAY:
+			value = new SerializedPrimitiveArray(type).with(readPrimitiveArray(((Class<?>) type).getComponentType(), in));
+			break;
+		case ENUM:
+			SerializedEnum serializedEnum = new SerializedEnum(type);
+			serializedEnum.setName(readString(in));
+			value = serializedEnum;
+			break;
+		case IMMUTABLE:
+			value = new SerializedImmutable<>(type).withValue(readImmutable(in));
+			break;
+		case TRUNCATED:
+			value = new SerializedTruncated(type, readString(in));
+			break;
+		default:
+			throw new JournalException("unknown value kind " + kind);
+		}
+		value.setResultType(resultType);
+		values.add(value);
+		return value;
+	}
+
+	private void readContent(SerializedValue value, JournalInput in) {
+		if (value instanceof SerializedObject) {
+			SerializedObject object = (SerializedObject) value;
+			Schema schema = readSchema(in);
+			for (int i = 0; i < schema.size(); i++) {
+				object.addField(new SerializedField(schema.declaringClasses[i], schema.names[i], schema.types[i], readValue(in)));
+			}
+		} else if (value instanceof SerializedList) {
+			SerializedList list = (SerializedList) value;
+			int size = in.readVarInt();
+			for (int i = 0; i < size; i++) {
+				list.add(readValue(in));
+			}
+		} else if (value instanceof SerializedSet) {
+			SerializedSet set = (SerializedSet) value;
+			int size = in.readVarInt();
+			for (int i = 0; i < size; i++) {
+				set.add(readValue(in));
+			}
+		} else if (value instanceof SerializedMap) {
+			SerializedMap map = (SerializedMap) value;
+			int size = in.readVarInt();
+			for (int i = 0; i < size; i++) {
+				SerializedValue key = readValue(in);
+				map.put(key, readValue(in));
+			}
+		} else if (value instanceof SerializedArray) {
+			SerializedArray array = (SerializedArray) value;
+			int size = in.readVarInt();
+			for (int i = 0; i < size; i++) {
+				array.add(readValue(in));
+			}
+		}
+	}
+
+	private Object readLiteral(JournalInput in) {
+		int kind = in.readByte();
+		switch (kind) {
+		case BOOLEAN:
+			return in.readBoolean();
+		case CHAR:
+			return in.readChar();
+		case BYTE:
+			return (byte) in.readByte();
+		case SHORT:
+			return in.readShort();
+		case INT:
+			return in.readInt();
+		case LONG:
+			return in.readLong();
+		case FLOAT:
+			return in.readFloat();
+		case DOUBLE:
+			return in.readDouble();
+		case STRING:
+			return in.readUTF();
+		default:
+			throw new JournalException("unknown literal kind " + kind);
+		}
+	}
+
+	private Object readImmutable(JournalInput in) {
+		int kind = in.readByte();
+		switch (kind) {
+		case BIG_INTEGER:
+			return new BigInteger(readString(in));
+		case BIG_DECIMAL:
+			return new BigDecimal(readString(in));
+		case CLASS:
+			return readType(in);
+		default:
+			throw new JournalException("unknown immutable kind " + kind);
+		}
+	}
+
+	private Object readPrimitiveArray(Class<?> componentType, JournalInput in) {
+		int length = in.readVarInt();
+		if (componentType == boolean.class) {
+			boolean[] array = new boolean[length];
+			for (int i = 0; i < length; i++) {
+				array[i] = in.readBoolean();
+			}
+			return array;
+		} else if (componentType == char.class) {
+			char[] array = new char[length];
+			for (int i = 0; i < length; i++) {
+				array[i] = in.readChar();
+			}
+			return array;
+		} else if (componentType == byte.class) {
+			byte[] array = new byte[length];
+			for (int i = 0; i < length; i++) {
+				array[i] = (byte) in.readByte();
+			}
+			return array;
+		} else if (componentType == short.class) {
+			short[] array = new short[length];
+			for (int i = 0; i < length; i++) {
+				array[i] = in.readShort();
+			}
+			return array;
+		} else if (componentType == int.class) {
+			int[] array = new int[length];
+			for (int i = 0; i < length; i++) {
+				array[i] = in.readInt();
+			}
+			return array;
+		} else if (componentType == long.class) {
+			long[] array = new long[length];
+			for (int i = 0; i < length; i++) {
+				array[i] = in.readLong();
+			}
+			return array;
+		} else if (componentType == float.class) {
+			float[] array = new float[length];
+			for (int i = 0; i < length; i++) {
+				array[i] = in.readFloat();
+			}
+			return array;
+		} else if (componentType == double.class) {
+			double[] array = new double[length];
+			for (int i = 0; i < length; i++) {
+				array[i] = in.readDouble();
+			}
+			return array;
+		}
+		throw new JournalException("unknown primitive array type " + componentType);
+	}
+
+	private Schema readSchema(JournalInput in) {
+		int index = in.readVarInt();
+		if (index != NEW) {
+			return schemas.get(index - FIRST_INDEX);
+		}
+		int size = in.readVarInt();
+		Schema schema = new Schema(size);
+		for (int i = 0; i < size; i++) {
+			schema.declaringClasses[i] = (Class<?>) readType(in);
+			schema.names[i] = readString(in);
+			schema.types[i] = readType(in);
+		}
+		schemas.add(schema);
+		return schema;
+	}
+
+	private String readString(JournalInput in) {
+		int index = in.readVarInt();
+		if (index == NULL) {
+			return null;
+		} else if (index != NEW) {
+			return strings.get(index - FIRST_INDEX);
+		}
+		String string = in.readUTF();
+		strings.add(string);
+		return string;
+	}
+
+	private Type[] readTypes(JournalInput in) {
+		int size = in.readVarInt() - 1;
+		if (size < 0) {
+			return null;
+		}
+		Type[] types = new Type[size];
+		for (int i = 0; i < size; i++) {
+			types[i] = readType(in);
+		}
+		return types;
+	}
+
+	private Type readType(JournalInput in) {
+		int index = in.readVarInt();
+		if (index == NULL) {
+			return null;
+		} else if (index != NEW) {
+			return types.get(index - FIRST_INDEX);
+		}
+		Type type;
+		int kind = in.readByte();
+		switch (kind) {
+		case CLASS_TYPE:
+			type = classOf(readString(in));
+			break;
+		case PARAMETERIZED_TYPE:
+			Type raw = readType(in);
+			Type owner = readType(in);
+			type = parameterized(raw, owner, readTypes(in));
+			break;
+		case GENERIC_ARRAY_TYPE:
+			type = array(readType(in));
+			break;
+		case WILDCARD_TYPE:
+			Type[] upperBounds = readTypes(in);
+			Type[] lowerBounds = readTypes(in);
+			if (lowerBounds.length > 0) {
+				type = wildcardSuper(lowerBounds);
+			} else if (upperBounds.length > 0 && upperBounds[0] != Object.class) {
+				type = wildcardExtends(upperBounds);
+			} else {
+				type = wildcard();
+			}
+			break;
+		case CLASS_VARIABLE:
+			Class<?> clazz = (Class<?>) readType(in);
+			type = variable(clazz.getTypeParameters(), readString(in));
+			break;
+		case METHOD_VARIABLE:
+			Class<?> declaringClass = (Class<?>) readType(in);
+			String methodName = readString(in);
+			Type[] parameterTypes = readTypes(in);
+			type = variable(method(declaringClass, methodName, parameterTypes).getTypeParameters(), readString(in));
+			break;
+		default:
+			throw new JournalException("unknown type kind " + kind);
+		}
+		types.add(type);
+		return type;
+	}
+
+	private Class<?> classOf(String name) {
+		Class<?> primitive = PRIMITIVES.get(name);
+		if (primitive != null) {
+			return primitive;
+		}
+		try {
+			return Class.forName(name, false, loader);
+		} catch (ClassNotFoundException e) {
+			throw new JournalException(e);
+		}
+	}
+
+	private static Method method(Class<?> clazz, String name, Type[] parameterTypes) {
+		Class<?>[] parameterClasses = new Class<?>[parameterTypes.length];
+		for (int i = 0; i < parameterTypes.length; i++) {
+			parameterClasses[i] = (Class<?>) parameterTypes[i];
+		}
+		try {
+			return clazz.getDeclaredMethod(name, parameterClasses);
+		} catch (NoSuchMethodException e) {
+			throw new JournalException(e);
+		}
+	}
+
+	private static TypeVariable<?> variable(TypeVariable<?>[] variables, String name) {
+		for (TypeVariable<?> variable : variables) {
+			if (variable.getName().equals(name)) {
+				return variable;
+			}
+		}
+		throw new JournalException("unknown type variable " + name);
+	}
+
+	private static class Schema {
+
+		private Class<?>[] declaringClasses;
+		private String[] names;
+		private Type[] types;
+
+		Schema(int size) {
+			this.declaringClasses = new Class<?>[size];
+			this.names = new String[size];
+			this.types = new Type[size];
+		}
+
+		int size() {
+			return names.length;
+		}
+
+	}
+
+}
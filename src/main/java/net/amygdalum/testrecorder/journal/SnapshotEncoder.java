@@ -0,0 +1,509 @@
+package net.amygdalum.testrecorder.journal;
+
+import static net.amygdalum.testrecorder.journal.JournalFormat.ARRAY;
+import static net.amygdalum.testrecorder.journal.JournalFormat.BACKREF;
+import static net.amygdalum.testrecorder.journal.JournalFormat.BIG_DECIMAL;
+import static net.amygdalum.testrecorder.journal.JournalFormat.BIG_INTEGER;
+import static net.amygdalum.testrecorder.journal.JournalFormat.BOOLEAN;
+import static net.amygdalum.testrecorder.journal.JournalFormat.BYTE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.CHAR;
+import static net.amygdalum.testrecorder.journal.JournalFormat.CLASS;
+import static net.amygdalum.testrecorder.journal.JournalFormat.CLASS_TYPE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.CLASS_VARIABLE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.DOUBLE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.ENUM;
+import static net.amygdalum.testrecorder.journal.JournalFormat.FIRST_INDEX;
+import static net.amygdalum.testrecorder.journal.JournalFormat.FLOAT;
+import static net.amygdalum.testrecorder.journal.JournalFormat.GENERIC_ARRAY_TYPE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.IMMUTABLE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.INT;
+import static net.amygdalum.testrecorder.journal.JournalFormat.LIST;
+import static net.amygdalum.testrecorder.journal.JournalFormat.LITERAL;
+import static net.amygdalum.testrecorder.journal.JournalFormat.LONG;
+import static net.amygdalum.testrecorder.journal.JournalFormat.MAP;
+import static net.amygdalum.testrecorder.journal.JournalFormat.METHOD_VARIABLE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.NEW;
+import static net.amygdalum.testrecorder.journal.JournalFormat.NULL;
+import static net.amygdalum.testrecorder.journal.JournalFormat.NULL_VALUE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.OBJECT;
+import static net.amygdalum.testrecorder.journal.JournalFormat.PARAMETERIZED_TYPE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.PRIMITIVE_ARRAY;
+import static net.amygdalum.testrecorder.journal.JournalFormat.SET;
+import static net.amygdalum.testrecorder.journal.JournalFormat.SHORT;
+import static net.amygdalum.testrecorder.journal.JournalFormat.STRING;
+import static net.amygdalum.testrecorder.journal.JournalFormat.TRUNCATED;
+import static net.amygdalum.testrecorder.journal.JournalFormat.WILDCARD_TYPE;
+import static net.amygdalum.testrecorder.util.Types.baseType;
+
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.GenericDeclaration;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.amygdalum.testrecorder.ContextSnapshot;
+import net.amygdalum.testrecorder.SerializedValue;
+import net.amygdalum.testrecorder.values.ObjectSchema;
+import net.amygdalum.testrecorder.values.SerializedArray;
+import net.amygdalum.testrecorder.values.SerializedEnum;
+import net.amygdalum.testrecorder.values.SerializedField;
+import net.amygdalum.testrecorder.values.SerializedImmutable;
+import net.amygdalum.testrecorder.values.SerializedInput;
+import net.amygdalum.testrecorder.values.SerializedList;
+import net.amygdalum.testrecorder.values.SerializedLiteral;
+import net.amygdalum.testrecorder.values.SerializedMap;
+import net.amygdalum.testrecorder.values.SerializedNull;
+import net.amygdalum.testrecorder.values.SerializedObject;
+import net.amygdalum.testrecorder.values.SerializedOutput;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+import net.amygdalum.testrecorder.values.SerializedSet;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
+
+/**
+ * Encodes snapshots into the binary format described in {@link JournalFormat}. The encoder keeps the dictionaries of the current
+ * segment, so all records of a segment have to be encoded by the same encoder (in the order they are written) and {@link #reset()}
+ * has to be called when a new segment is started.
+ *
+ * Values are written in the order they are reached (breadth first), so even very deep object graphs are encoded without recursion.
+ */
+public class SnapshotEncoder {
+
+	private Dictionary<String> strings;
+	private Dictionary<Type> types;
+	private Dictionary<ObjectSchema> schemas;
+
+	private Map<SerializedValue, Integer> ids;
+	private Deque<SerializedValue> contents;
+
+	public SnapshotEncoder() {
+		this.strings = new Dictionary<>();
+		this.types = new Dictionary<>();
+		this.schemas = new Dictionary<>();
+		this.ids = new IdentityHashMap<>();
+		this.contents = new ArrayDeque<>();
+	}
+
+	public void reset() {
+		strings.clear();
+		types.clear();
+		schemas.clear();
+	}
+
+	/**
+	 * encodes the snapshot, the dictionary entries added by this snapshot are kept only if the encoded record is written and
+	 * {@link #commit() committed}
+	 */
+	public void encode(ContextSnapshot snapshot, JournalOutput out) {
+		try {
+			writeSnapshot(snapshot, out);
+		} catch (RuntimeException e) {
+			rollback();
+			throw e;
+		} finally {
+			ids.clear();
+			contents.clear();
+		}
+	}
+
+	public void commit() {
+		strings.commit();
+		types.commit();
+		schemas.commit();
+	}
+
+	public void rollback() {
+		strings.rollback();
+		types.rollback();
+		schemas.rollback();
+	}
+
+	private void writeSnapshot(ContextSnapshot snapshot, JournalOutput out) {
+		writeType(snapshot.getDeclaringClass(), out);
+		writeType(snapshot.getResultType(), out);
+		writeString(snapshot.getMethodName(), out);
+		writeTypes(snapshot.getArgumentTypes(), out);
+
+		writeValue(snapshot.getSetupThis(), out);
+		writeValues(snapshot.getSetupArgs(), out);
+		writeFields(snapshot.getSetupGlobals(), out);
+
+		writeValue(snapshot.getExpectThis(), out);
+		writeValue(snapshot.getExpectResult(), out);
+		writeValue(snapshot.getExpectException(), out);
+		writeValues(snapshot.getExpectArgs(), out);
+		writeFields(snapshot.getExpectGlobals(), out);
+
+		writeInputs(snapshot.getSetupInput(), out);
+		writeOutputs(snapshot.getExpectOutput(), out);
+
+		while (!contents.isEmpty()) {
+			writeContent(contents.remove(), out);
+		}
+	}
+
+	private void writeInputs(List<SerializedInput> inputs, JournalOutput out) {
+		if (inputs == null) {
+			out.writeVarInt(NULL);
+			return;
+		}
+		out.writeVarInt(inputs.size() + 1);
+		for (SerializedInput input : inputs) {
+			writeType(input.getDeclaringClass(), out);
+			writeString(input.getName(), out);
+			writeType(input.getResultType(), out);
+			writeValue(input.getResult(), out);
+			writeTypes(input.getTypes(), out);
+			writeValues(input.getValues(), out);
+		}
+	}
+
+	private void writeOutputs(List<SerializedOutput> outputs, JournalOutput out) {
+		if (outputs == null) {
+			out.writeVarInt(NULL);
+			return;
+		}
+		out.writeVarInt(outputs.size() + 1);
+		for (SerializedOutput output : outputs) {
+			writeType(output.getDeclaringClass(), out);
+			writeString(output.getName(), out);
+			writeTypes(output.getTypes(), out);
+			writeValues(output.getValues(), out);
+		}
+	}
+
+	private void writeFields(SerializedField[] fields, JournalOutput out) {
+		if (fields == null) {
+			out.writeVarInt(NULL);
+			return;
+		}
+		out.writeVarInt(fields.length + 1);
+		for (SerializedField field : fields) {
+			writeType(field.getDeclaringClass(), out);
+			writeString(field.getName(), out);
+			writeType(field.getType(), out);
+			writeValue(field.getValue(), out);
+		}
+	}
+
+	private void writeValues(SerializedValue[] values, JournalOutput out) {
+		if (values == null) {
+			out.writeVarInt(NULL);
+			return;
+		}
+		out.writeVarInt(values.length + 1);
+		for (SerializedValue value : values) {
+			writeValue(value, out);
+		}
+	}
+
+	/**
+	 * writes a reference to the given value, a value that was not reached before is written with its header (kind, types and
+	 * immutable content), the values it refers to are written later with {@link #writeContent(SerializedValue, JournalOutput)}
+	 */
+	private void writeValue(SerializedValue value, JournalOutput out) {
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof SerializedLiteral) {
+			out.writeByte(LITERAL);
+			writeType(value.getResultType(), out);
+			writeLiteral(((SerializedLiteral) value).getValue(), out);
+		} else if (value instanceof SerializedNull) {
+			out.writeByte(NULL_VALUE);
+			writeType(value.getType(), out);
+		} else {
+			Integer id = ids.get(value);
+			if (id != null) {
+				out.writeByte(BACKREF);
+				out.writeVarInt(id);
+				return;
+			}
+			ids.put(value, ids.size());
+			writeHeader(value, out);
+		}
+	}
+
+	private void writeHeader(SerializedValue value, JournalOutput out) {
+		if (value instanceof SerializedObject) {
+			out.writeByte(OBJECT);
+			contents.add(value);
+		} else if (value instanceof SerializedList) {
+			out.writeByte(LIST);
+			contents.add(value);
+		} else if (value instanceof SerializedSet) {
+			out.writeByte(SET);
+			contents.add(value);
+		} else if (value instanceof SerializedMap) {
+			out.writeByte(MAP);
+			contents.add(value);
+		} else if (value instanceof SerializedArray) {
+			out.writeByte(ARRAY);
+			contents.add(value);
+		} else if (value instanceof SerializedPrimitiveArray) {
+			out.writeByte(PRIMITIVE_ARRAY);
+		} else if (value instanceof SerializedEnum) {
+			out.writeByte(ENUM);
+		} else if (value instanceof SerializedImmutable<?>) {
+			out.writeByte(IMMUTABLE);
+		} else if (value instanceof SerializedTruncated) {
+			out.writeByte(TRUNCATED);
+		} else {
+			throw new JournalException("cannot journal " + value.getClass().getName());
+		}
+		writeType(value.getType(), out);
+		writeType(value.getResultType(), out);
+		if (value instanceof SerializedPrimitiveArray) {
+			writePrimitiveArray(((SerializedPrimitiveArray) value).getArray(), out);
+		} else if (value instanceof SerializedEnum) {
+			writeString(((SerializedEnum) value).getName(), out);
+		} else if (value instanceof SerializedImmutable<?>) {
+			writeImmutable(((SerializedImmutable<?>) value).getValue(), out);
+		} else if (value instanceof SerializedTruncated) {
+			writeString(((SerializedTruncated) value).getReason(), out);
+		}
+	}
+
+	private void writeContent(SerializedValue value, JournalOutput out) {
+		if (value instanceof SerializedObject) {
+			SerializedObject object = (SerializedObject) value;
+			ObjectSchema schema = object.getSchema();
+			writeSchema(schema, out);
+			List<SerializedField> fields = object.getFields();
+			for (int i = 0; i < schema.size(); i++) {
+				writeValue(fields.get(i).getValue(), out);
+			}
+		} else if (value instanceof SerializedList) {
+			SerializedList list = (SerializedList) value;
+			out.writeVarInt(list.size());
+			for (SerializedValue element : list) {
+				writeValue(element, out);
+			}
+		} else if (value instanceof SerializedSet) {
+			SerializedSet set = (SerializedSet) value;
+			out.writeVarInt(set.size());
+			for (SerializedValue element : set) {
+				writeValue(element, out);
+			}
+		} else if (value instanceof SerializedMap) {
+			SerializedMap map = (SerializedMap) value;
+			out.writeVarInt(map.size());
+			for (Map.Entry<SerializedValue, SerializedValue> entry : map.entrySet()) {
+				writeValue(entry.getKey(), out);
+				writeValue(entry.getValue(), out);
+			}
+		} else if (value instanceof SerializedArray) {
+			List<SerializedValue> array = ((SerializedArray) value).getArrayAsList();
+			out.writeVarInt(array.size());
+			for (SerializedValue element : array) {
+				writeValue(element, out);
+			}
+		}
+	}
+
+	private void writeLiteral(Object value, JournalOutput out) {
+		if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof Character) {
+			out.writeByte(CHAR);
+			out.writeChar((Character) value);
+		} else if (value instanceof Byte) {
+			out.writeByte(BYTE);
+			out.writeByte((Byte) value);
+		} else if (value instanceof Short) {
+			out.writeByte(SHORT);
+			out.writeShort((Short) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(INT);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof String) {
+			out.writeByte(STRING);
+			out.writeUTF((String) value);
+		} else {
+			throw new JournalException("cannot journal literal of " + value.getClass().getName());
+		}
+	}
+
+	private void writeImmutable(Object value, JournalOutput out) {
+		if (value instanceof BigInteger) {
+			out.writeByte(BIG_INTEGER);
+			writeString(value.toString(), out);
+		} else if (value instanceof BigDecimal) {
+			out.writeByte(BIG_DECIMAL);
+			writeString(value.toString(), out);
+		} else if (value instanceof Class<?>) {
+			out.writeByte(CLASS);
+			writeType((Class<?>) value, out);
+		} else {
+			throw new JournalException("cannot journal immutable " + (value == null ? "null" : value.getClass().getName()));
+		}
+	}
+
+	private void writePrimitiveArray(Object array, JournalOutput out) {
+		if (array instanceof boolean[]) {
+			boolean[] values = (boolean[]) array;
+			out.writeVarInt(values.length);
+			for (boolean value : values) {
+				out.writeBoolean(value);
+			}
+		} else if (array instanceof char[]) {
+			char[] values = (char[]) array;
+			out.writeVarInt(values.length);
+			for (char value : values) {
+				out.writeChar(value);
+			}
+		} else if (array instanceof byte[]) {
+			byte[] values = (byte[]) array;
+			out.writeVarInt(values.length);
+			for (byte value : values) {
+				out.writeByte(value);
+			}
+		} else if (array instanceof short[]) {
+			short[] values = (short[]) array;
+			out.writeVarInt(values.length);
+			for (short value : values) {
+				out.writeShort(value);
+			}
+		} else if (array instanceof int[]) {
+			int[] values = (int[]) array;
+			out.writeVarInt(values.length);
+			for (int value : values) {
+				out.writeInt(value);
+			}
+		} else if (array instanceof long[]) {
+			long[] values = (long[]) array;
+			out.writeVarInt(values.length);
+			for (long value : values) {
+				out.writeLong(value);
+			}
+		} else if (array instanceof float[]) {
+			float[] values = (float[]) array;
+			out.writeVarInt(values.length);
+			for (float value : values) {
+				out.writeFloat(value);
+			}
+		} else if (array instanceof double[]) {
+			double[] values = (double[]) array;
+			out.writeVarInt(values.length);
+			for (double value : values) {
+				out.writeDouble(value);
+			}
+		}
+	}
+
+	private void writeSchema(ObjectSchema schema, JournalOutput out) {
+		int index = schemas.indexOf(schema);
+		if (index >= 0) {
+			out.writeVarInt(index + FIRST_INDEX);
+			return;
+		}
+		out.writeVarInt(NEW);
+		out.writeVarInt(schema.size());
+		for (int i = 0; i < schema.size(); i++) {
+			writeType(schema.getDeclaringClass(i), out);
+			writeString(schema.getName(i), out);
+			writeType(schema.getType(i), out);
+		}
+		schemas.add(schema);
+	}
+
+	private void writeString(String string, JournalOutput out) {
+		if (string == null) {
+			out.writeVarInt(NULL);
+			return;
+		}
+		int index = strings.indexOf(string);
+		if (index >= 0) {
+			out.writeVarInt(index + FIRST_INDEX);
+			return;
+		}
+		out.writeVarInt(NEW);
+		out.writeUTF(string);
+		strings.add(string);
+	}
+
+	private void writeTypes(Type[] types, JournalOutput out) {
+		if (types == null) {
+			out.writeVarInt(NULL);
+			return;
+		}
+		out.writeVarInt(types.length + 1);
+		for (Type type : types) {
+			writeType(type, out);
+		}
+	}
+
+	private void writeType(Type type, JournalOutput out) {
+		if (type == null) {
+			out.writeVarInt(NULL);
+			return;
+		}
+		int index = types.indexOf(type);
+		if (index >= 0) {
+			out.writeVarInt(index + FIRST_INDEX);
+			return;
+		}
+		out.writeVarInt(NEW);
+		if (type instanceof Class<?>) {
+			out.writeByte(CLASS_TYPE);
+			writeString(((Class<?>) type).getName(), out);
+		} else if (type instanceof ParameterizedType) {
+			ParameterizedType parameterizedType = (ParameterizedType) type;
+			out.writeByte(PARAMETERIZED_TYPE);
+			writeType(parameterizedType.getRawType(), out);
+			writeType(parameterizedType.getOwnerType(), out);
+			writeTypes(parameterizedType.getActualTypeArguments(), out);
+		} else if (type instanceof GenericArrayType) {
+			out.writeByte(GENERIC_ARRAY_TYPE);
+			writeType(((GenericArrayType) type).getGenericComponentType(), out);
+		} else if (type instanceof WildcardType) {
+			WildcardType wildcardType = (WildcardType) type;
+			out.writeByte(WILDCARD_TYPE);
+			writeTypes(wildcardType.getUpperBounds(), out);
+			writeTypes(wildcardType.getLowerBounds(), out);
+		} else if (type instanceof TypeVariable<?>) {
+			writeTypeVariable((TypeVariable<?>) type, out);
+		} else {
+			out.writeByte(CLASS_TYPE);
+			writeString(baseType(type).getName(), out);
+		}
+		types.add(type);
+	}
+
+	private void writeTypeVariable(TypeVariable<?> variable, JournalOutput out) {
+		GenericDeclaration declaration = variable.getGenericDeclaration();
+		if (declaration instanceof Class<?>) {
+			out.writeByte(CLASS_VARIABLE);
+			writeType((Class<?>) declaration, out);
+			writeString(variable.getName(), out);
+		} else if (declaration instanceof Method) {
+			Method method = (Method) declaration;
+			out.writeByte(METHOD_VARIABLE);
+			writeType(method.getDeclaringClass(), out);
+			writeString(method.getName(), out);
+			writeTypes(method.getParameterTypes(), out);
+			writeString(variable.getName(), out);
+		} else {
+			out.writeByte(CLASS_TYPE);
+			writeString(baseType(variable).getName(), out);
+		}
+	}
+
+}
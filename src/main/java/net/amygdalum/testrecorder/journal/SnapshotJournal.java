@@ -0,0 +1,211 @@
+package net.amygdalum.testrecorder.journal;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.HEADER_SIZE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.LENGTH_SIZE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.MAGIC;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.amygdalum.testrecorder.ContextSnapshot;
+import net.amygdalum.testrecorder.SnapshotConsumer;
+import net.amygdalum.testrecorder.TestrecorderThreadFactory;
+
+/**
+ * A snapshot consumer appending the snapshots to a binary journal, so that tests can be generated offline (with
+ * {@link SnapshotJournalReader}) instead of generating them in the recorded application.
+ *
+ * The journal is a directory of memory mapped segment files of a fixed size. Snapshots are encoded and appended to the current
+ * segment, a snapshot not fitting into the current segment starts a new segment. The segments are forced to disk after a number of
+ * snapshots, when a segment is full and on {@link #close()}. A new journal continues numbering after the segments already existing in
+ * the directory.
+ *
+ * Encoding and writing is done by a single writer thread, {@link #accept(ContextSnapshot)} only enqueues the snapshot (and blocks only
+ * if the queue is full). {@link #close()} writes all enqueued snapshots before forcing the last segment.
+ */
+public class SnapshotJournal implements SnapshotConsumer {
+
+	public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+	public static final int DEFAULT_FLUSH_INTERVAL = 64;
+	private static final int QUEUE_SIZE = 1024;
+
+	private static final String SEGMENT_PREFIX = "snapshots-";
+	private static final String SEGMENT_SUFFIX = ".journal";
+
+	private Path dir;
+	private int segmentSize;
+	private int flushInterval;
+
+	private ExecutorService executor;
+	private SnapshotEncoder encoder;
+	private JournalOutput out;
+
+	private int segmentNumber;
+	private FileChannel channel;
+	private MappedByteBuffer segment;
+	private int unflushed;
+
+	public SnapshotJournal(Path dir) {
+		this.dir = dir;
+		this.segmentSize = DEFAULT_SEGMENT_SIZE;
+		this.flushInterval = DEFAULT_FLUSH_INTERVAL;
+		this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE),
+			new TestrecorderThreadFactory("$journal"), new WaitForQueue());
+		this.encoder = new SnapshotEncoder();
+		this.out = new JournalOutput();
+		this.segmentNumber = -1;
+	}
+
+	public SnapshotJournal withSegmentSize(int segmentSize) {
+		this.segmentSize = segmentSize;
+		return this;
+	}
+
+	public SnapshotJournal withFlushInterval(int flushInterval) {
+		this.flushInterval = flushInterval;
+		return this;
+	}
+
+	static String segmentName(int number) {
+		return String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX);
+	}
+
+	static boolean isSegment(Path file) {
+		String name = file.getFileName().toString();
+		return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+	}
+
+	@Override
+	public void accept(ContextSnapshot snapshot) {
+		executor.execute(() -> {
+			try {
+				append(snapshot);
+			} catch (IOException | RuntimeException e) {
+				encoder.rollback();
+				System.out.println("failed journaling snapshot for " + snapshot.getMethodName() + ": " + e.getMessage());
+			}
+		});
+	}
+
+	private void append(ContextSnapshot snapshot) throws IOException {
+		if (segment == null) {
+			startSegment(segmentSize);
+		}
+		out.reset();
+		encoder.encode(snapshot, out);
+		if (LENGTH_SIZE + out.size() > segment.remaining()) {
+			endSegment();
+			out.reset();
+			encoder.encode(snapshot, out);
+			startSegment(Math.max(segmentSize, HEADER_SIZE + LENGTH_SIZE + out.size()));
+		}
+		int position = segment.position();
+		segment.position(position + LENGTH_SIZE);
+		segment.put(out.bytes(), 0, out.size());
+		segment.putInt(position, out.size());
+		encoder.commit();
+		unflushed++;
+		if (unflushed >= flushInterval) {
+			flush();
+		}
+	}
+
+	private void startSegment(int size) throws IOException {
+		if (segmentNumber < 0) {
+			Files.createDirectories(dir);
+			segmentNumber = nextSegmentNumber();
+		}
+		Path file = dir.resolve(segmentName(segmentNumber++));
+		channel = FileChannel.open(file, CREATE_NEW, READ, WRITE);
+		segment = channel.map(MapMode.READ_WRITE, 0, size);
+		segment.putInt(MAGIC);
+	}
+
+	private int nextSegmentNumber() throws IOException {
+		int next = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SnapshotJournal::isSegment)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				int number = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+				next = Math.max(next, number + 1);
+			}
+		}
+		return next;
+	}
+
+	private void flush() {
+		force(segment);
+		unflushed = 0;
+	}
+
+	void force(MappedByteBuffer segment) {
+		segment.force();
+	}
+
+	private void endSegment() throws IOException {
+		flush();
+		channel.close();
+		channel = null;
+		segment = null;
+		encoder.reset();
+	}
+
+	@Override
+	public synchronized void close() {
+		if (executor.isShutdown()) {
+			return;
+		}
+		executor.execute(this::closeSegment);
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void closeSegment() {
+		if (segment == null) {
+			return;
+		}
+		try {
+			endSegment();
+		} catch (IOException e) {
+			System.out.println("failed closing journal " + dir + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * blocks the recording thread while the queue is full instead of dropping snapshots.
+	 */
+	private static class WaitForQueue implements RejectedExecutionHandler {
+
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			if (executor.isShutdown()) {
+				System.out.println("failed journaling snapshot: journal is closed");
+				return;
+			}
+			try {
+				executor.getQueue().put(task);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+	}
+
+}
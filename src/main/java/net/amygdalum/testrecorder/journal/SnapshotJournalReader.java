@@ -0,0 +1,107 @@
+package net.amygdalum.testrecorder.journal;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static net.amygdalum.testrecorder.journal.JournalFormat.LENGTH_SIZE;
+import static net.amygdalum.testrecorder.journal.JournalFormat.MAGIC;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.amygdalum.testrecorder.ContextSnapshot;
+import net.amygdalum.testrecorder.SnapshotConsumer;
+
+/**
+ * Reads the snapshots of a journal written by {@link SnapshotJournal}, e.g. to generate tests offline:
+ *
+ * <pre>
+ * TestGenerator generator = new TestGenerator(null);
+ * new SnapshotJournalReader(journal).replay(generator);
+ * generator.await().writeResults(tests);
+ * </pre>
+ */
+public class SnapshotJournalReader {
+
+	private Path dir;
+	private ClassLoader loader;
+
+	public SnapshotJournalReader(Path dir) {
+		this(dir, Thread.currentThread().getContextClassLoader());
+	}
+
+	public SnapshotJournalReader(Path dir, ClassLoader loader) {
+		this.dir = dir;
+		this.loader = loader;
+	}
+
+	public List<ContextSnapshot> read() {
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		replay(new SnapshotConsumer() {
+
+			@Override
+			public void accept(ContextSnapshot snapshot) {
+				snapshots.add(snapshot);
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+		return snapshots;
+	}
+
+	/**
+	 * passes all snapshots of the journal (in the order they were written) to the given consumer. The consumer is not closed.
+	 */
+	public void replay(SnapshotConsumer consumer) {
+		SnapshotDecoder decoder = new SnapshotDecoder(loader);
+		for (Path file : segments()) {
+			decoder.reset();
+			ByteBuffer segment = map(file);
+			if (segment.remaining() < LENGTH_SIZE || segment.getInt() != MAGIC) {
+				throw new JournalException(file + " is not a journal segment");
+			}
+			JournalInput in = new JournalInput(segment);
+			while (segment.remaining() >= LENGTH_SIZE) {
+				int length = segment.getInt();
+				if (length <= 0) {
+					break;
+				}
+				int end = segment.position() + length;
+				consumer.accept(decoder.decode(in));
+				segment.position(end);
+			}
+		}
+	}
+
+	private List<Path> segments() {
+		List<Path> segments = new ArrayList<>();
+		if (!Files.isDirectory(dir)) {
+			return segments;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SnapshotJournal::isSegment)) {
+			for (Path file : files) {
+				segments.add(file);
+			}
+		} catch (IOException e) {
+			throw new JournalException(e);
+		}
+		segments.sort(null);
+		return segments;
+	}
+
+	private static ByteBuffer map(Path file) {
+		try (FileChannel channel = FileChannel.open(file, READ)) {
+			return channel.map(MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException e) {
+			throw new JournalException(e);
+		}
+	}
+
+}
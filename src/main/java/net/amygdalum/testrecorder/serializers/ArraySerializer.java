@@ -8,6 +8,7 @@ import java.util.List;
 
 import net.amygdalum.testrecorder.Serializer;
 import net.amygdalum.testrecorder.SerializerFacade;
+import net.amygdalum.testrecorder.SerializerFactory;
 import net.amygdalum.testrecorder.values.SerializedArray;
 
 public class ArraySerializer implements Serializer<SerializedArray> {
@@ -35,4 +36,13 @@ public class ArraySerializer implements Serializer<SerializedArray> {
 		}
 	}
 
+	public static class Factory implements SerializerFactory<SerializedArray> {
+
+		@Override
+		public ArraySerializer newSerializer(SerializerFacade facade) {
+			return new ArraySerializer(facade);
+		}
+
+	}
+
 }
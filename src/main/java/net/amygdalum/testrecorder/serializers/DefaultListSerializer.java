@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import net.amygdalum.testrecorder.Serializer;
 import net.amygdalum.testrecorder.SerializerFacade;
@@ -23,7 +24,7 @@ public class DefaultListSerializer implements Serializer<SerializedList> {
 
 	@Override
 	public List<Class<?>> getMatchingClasses() {
-		return asList(LinkedList.class, ArrayList.class, Vector.class);
+		return asList(LinkedList.class, ArrayList.class, Vector.class, CopyOnWriteArrayList.class);
 	}
 
 	@Override
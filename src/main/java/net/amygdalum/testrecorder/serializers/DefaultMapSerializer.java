@@ -8,6 +8,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.amygdalum.testrecorder.Serializer;
 import net.amygdalum.testrecorder.SerializerFacade;
@@ -24,7 +25,7 @@ public class DefaultMapSerializer implements Serializer<SerializedMap> {
 
 	@Override
 	public List<Class<?>> getMatchingClasses() {
-		return asList(HashMap.class, LinkedHashMap.class, TreeMap.class);
+		return asList(HashMap.class, LinkedHashMap.class, TreeMap.class, ConcurrentHashMap.class);
 	}
 
 	@Override
@@ -4,6 +4,7 @@ import static java.util.Arrays.asList;
 
 import java.lang.reflect.Type;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -27,7 +28,7 @@ public class DefaultQueueSerializer implements Serializer<SerializedList> {
 
 	@Override
 	public List<Class<?>> getMatchingClasses() {
-		return asList(LinkedBlockingQueue.class, ArrayBlockingQueue.class, ConcurrentLinkedQueue.class, PriorityBlockingQueue.class, LinkedTransferQueue.class, DelayQueue.class);
+		return asList(LinkedBlockingQueue.class, ArrayBlockingQueue.class, ConcurrentLinkedQueue.class, PriorityBlockingQueue.class, LinkedTransferQueue.class, DelayQueue.class, PriorityQueue.class);
 	}
 
 	@Override
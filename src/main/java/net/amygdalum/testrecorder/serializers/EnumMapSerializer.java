@@ -0,0 +1,78 @@
+package net.amygdalum.testrecorder.serializers;
+
+import static java.util.Arrays.asList;
+import static net.amygdalum.testrecorder.util.Types.baseType;
+import static net.amygdalum.testrecorder.util.Types.parameterized;
+
+import java.lang.reflect.Type;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import net.amygdalum.testrecorder.Serializer;
+import net.amygdalum.testrecorder.SerializerFacade;
+import net.amygdalum.testrecorder.SerializerFactory;
+import net.amygdalum.testrecorder.util.FieldAccessor;
+import net.amygdalum.testrecorder.values.SerializedMap;
+
+/**
+ * Serializes an {@link EnumMap} through its entries. The key type (needed to create an EnumMap) is stored as type argument of
+ * the serialized type. It is taken from the keys or the declared type, only the key type of an empty map with unknown key type is
+ * read from the internal field of the map.
+ */
+public class EnumMapSerializer implements Serializer<SerializedMap> {
+
+	private SerializerFacade facade;
+
+	public EnumMapSerializer(SerializerFacade facade) {
+		this.facade = facade;
+	}
+
+	@Override
+	public List<Class<?>> getMatchingClasses() {
+		return asList(EnumMap.class);
+	}
+
+	@Override
+	public SerializedMap generate(Type resultType, Type type) {
+		return new SerializedMap(type).withResult(resultType);
+	}
+
+	@Override
+	public void populate(SerializedMap serializedObject, Object object) {
+		Map<?, ?> map = (Map<?, ?>) object;
+		Type keyType = keyType(serializedObject.getMapKeyType(), map);
+		Type valueType = serializedObject.getMapValueType();
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			Object key = entry.getKey();
+			Object value = entry.getValue();
+			serializedObject.put(facade.serialize(keyType, key), facade.serialize(valueType, value));
+		}
+		if (keyType != Object.class) {
+			serializedObject.setType(parameterized(EnumMap.class, null, keyType, valueType));
+		}
+	}
+
+	private Type keyType(Type declaredKeyType, Map<?, ?> map) {
+		if (!map.isEmpty()) {
+			return ((Enum<?>) map.keySet().iterator().next()).getDeclaringClass();
+		} else if (baseType(declaredKeyType).isEnum()) {
+			return declaredKeyType;
+		}
+		try {
+			return (Class<?>) FieldAccessor.of(EnumMap.class.getDeclaredField("keyType")).get(map);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return Object.class;
+		}
+	}
+
+	public static class Factory implements SerializerFactory<SerializedMap> {
+
+		@Override
+		public EnumMapSerializer newSerializer(SerializerFacade facade) {
+			return new EnumMapSerializer(facade);
+		}
+
+	}
+
+}
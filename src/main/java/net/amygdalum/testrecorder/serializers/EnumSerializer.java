@@ -8,6 +8,7 @@ import java.util.List;
 
 import net.amygdalum.testrecorder.Serializer;
 import net.amygdalum.testrecorder.SerializerFacade;
+import net.amygdalum.testrecorder.SerializerFactory;
 import net.amygdalum.testrecorder.values.SerializedEnum;
 
 public class EnumSerializer implements Serializer<SerializedEnum> {
@@ -34,4 +35,13 @@ public class EnumSerializer implements Serializer<SerializedEnum> {
 		serializedEnum.setName(e.name());
 	}
 
+	public static class Factory implements SerializerFactory<SerializedEnum> {
+
+		@Override
+		public EnumSerializer newSerializer(SerializerFacade facade) {
+			return new EnumSerializer(facade);
+		}
+
+	}
+
 }
@@ -0,0 +1,128 @@
+package net.amygdalum.testrecorder.serializers;
+
+import static java.util.Collections.emptyList;
+import static net.amygdalum.testrecorder.util.Types.baseType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.amygdalum.testrecorder.SerializedReferenceType;
+import net.amygdalum.testrecorder.Serializer;
+import net.amygdalum.testrecorder.SerializerFacade;
+import net.amygdalum.testrecorder.values.SerializedField;
+import net.amygdalum.testrecorder.values.SerializedLiteral;
+import net.amygdalum.testrecorder.values.SerializedNull;
+import net.amygdalum.testrecorder.values.SerializedObject;
+
+/**
+ * Base class of the serializers generated by {@link GeneratedSerializerFactory}. A generated serializer serializes exactly one class,
+ * its {@link #populateFields(SerializedObject, Object)} reads the (non excluded) fields of this class with constant method handles
+ * and passes the values to the type specific field methods.
+ */
+public abstract class GeneratedSerializer implements Serializer<SerializedReferenceType> {
+
+	private static final Map<String, MethodHandle[]> GETTERS = new ConcurrentHashMap<>();
+
+	private SerializerFacade facade;
+	private Class<?> type;
+	private Field[] fields;
+	private boolean excluded;
+
+	protected GeneratedSerializer(SerializerFacade facade, Class<?> type, Field[] fields) {
+		this.facade = facade;
+		this.type = type;
+		this.fields = fields;
+		this.excluded = facade.excludes(type);
+	}
+
+	static void prepareGetters(String name, MethodHandle[] getters) {
+		GETTERS.put(name, getters);
+	}
+
+	static void discardGetters(String name) {
+		GETTERS.remove(name);
+	}
+
+	/**
+	 * called by the static initializer of a generated serializer to store the getters of its fields in static final fields
+	 */
+	protected static MethodHandle[] getters(String name) {
+		return GETTERS.get(name);
+	}
+
+	@Override
+	public List<Class<?>> getMatchingClasses() {
+		return emptyList();
+	}
+
+	@Override
+	public SerializedReferenceType generate(Type resultType, Type type) {
+		boolean excluded = type == this.type ? this.excluded : facade.excludes(baseType(type));
+		if (excluded) {
+			return SerializedNull.nullInstance(type);
+		} else {
+			return new SerializedObject(type).withResult(resultType);
+		}
+	}
+
+	@Override
+	public void populate(SerializedReferenceType serializedValue, Object object) {
+		if (!(serializedValue instanceof SerializedObject)) {
+			return;
+		}
+		if (object.getClass() != type) {
+			throw new IllegalArgumentException("serializer for " + type.getName() + " cannot serialize " + object.getClass().getName());
+		}
+		populateFields((SerializedObject) serializedValue, object);
+	}
+
+	protected abstract void populateFields(SerializedObject serializedObject, Object object);
+
+	protected SerializedField field(int index, Object value) {
+		Field field = fields[index];
+		Class<?> fieldType = field.getType();
+		return new SerializedField(field.getDeclaringClass(), field.getName(), fieldType, facade.serialize(fieldType, value));
+	}
+
+	protected SerializedField field(int index, boolean value) {
+		return literalField(index, SerializedLiteral.literal(value));
+	}
+
+	protected SerializedField field(int index, char value) {
+		return literalField(index, SerializedLiteral.literal(value));
+	}
+
+	protected SerializedField field(int index, byte value) {
+		return literalField(index, SerializedLiteral.literal(value));
+	}
+
+	protected SerializedField field(int index, short value) {
+		return literalField(index, SerializedLiteral.literal(value));
+	}
+
+	protected SerializedField field(int index, int value) {
+		return literalField(index, SerializedLiteral.literal(value));
+	}
+
+	protected SerializedField field(int index, float value) {
+		return literalField(index, SerializedLiteral.literal(value));
+	}
+
+	protected SerializedField field(int index, long value) {
+		return literalField(index, SerializedLiteral.literal(value));
+	}
+
+	protected SerializedField field(int index, double value) {
+		return literalField(index, SerializedLiteral.literal(value));
+	}
+
+	private SerializedField literalField(int index, SerializedLiteral value) {
+		Field field = fields[index];
+		return new SerializedField(field.getDeclaringClass(), field.getName(), field.getType(), value);
+	}
+
+}
@@ -0,0 +1,200 @@
+package net.amygdalum.testrecorder.serializers;
+
+import static java.lang.invoke.MethodType.methodType;
+import static java.lang.reflect.Modifier.isStatic;
+import static net.amygdalum.testrecorder.ByteCode.methodDescriptor;
+import static org.objectweb.asm.Opcodes.AALOAD;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
+import static org.objectweb.asm.Opcodes.ACC_PROTECTED;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_STATIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.GETSTATIC;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.PUTSTATIC;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.V1_8;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+import net.amygdalum.testrecorder.SerializedReferenceType;
+import net.amygdalum.testrecorder.Serializer;
+import net.amygdalum.testrecorder.SerializerFacade;
+import net.amygdalum.testrecorder.SerializerFactory;
+import net.amygdalum.testrecorder.SerializationException;
+import net.amygdalum.testrecorder.util.FieldAccessor;
+import net.amygdalum.testrecorder.values.SerializedField;
+import net.amygdalum.testrecorder.values.SerializedObject;
+
+/**
+ * Generates a {@link GeneratedSerializer} for exactly one class and a fixed list of (already filtered) instance fields.
+ * The generated code reads each field with a method handle stored in a static final field (which the JIT treats as constant), so
+ * neither reflection nor exclusion checks are done at serialization time, and primitive field values are not boxed.
+ */
+public class GeneratedSerializerFactory implements SerializerFactory<SerializedReferenceType> {
+
+	private static final String BASE = Type.getInternalName(GeneratedSerializer.class);
+	private static final String METHOD_HANDLE = Type.getInternalName(MethodHandle.class);
+	private static final String METHOD_HANDLE_DESCRIPTOR = Type.getDescriptor(MethodHandle.class);
+	private static final String GETTERS_DESCRIPTOR = Type.getMethodDescriptor(Type.getType(MethodHandle[].class), Type.getType(String.class));
+	private static final String SERIALIZED_OBJECT = Type.getInternalName(SerializedObject.class);
+	private static final String CONSTRUCTOR_DESCRIPTOR = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(SerializerFacade.class), Type.getType(Class.class), Type.getType(Field[].class));
+	private static final String POPULATE_DESCRIPTOR = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(SerializedObject.class), Type.getType(Object.class));
+	private static final String ADD_FIELD_DESCRIPTOR = methodDescriptor(SerializedObject.class, "addField", SerializedField.class);
+
+	private static final AtomicInteger COUNT = new AtomicInteger();
+
+	private Class<?> type;
+	private Field[] fields;
+	private Constructor<? extends GeneratedSerializer> constructor;
+
+	public GeneratedSerializerFactory(Class<?> type, Field[] fields) {
+		this.type = type;
+		this.fields = fields;
+		this.constructor = generate(type, fields);
+	}
+
+	public static boolean supports(Class<?> type, Field[] fields) {
+		if (type.isArray() || type.isInterface()) {
+			return false;
+		}
+		for (Field field : fields) {
+			if (isStatic(field.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public Serializer<SerializedReferenceType> newSerializer(SerializerFacade facade) {
+		try {
+			return constructor.newInstance(facade, type, fields);
+		} catch (ReflectiveOperationException e) {
+			throw new SerializationException(e);
+		}
+	}
+
+	private static Constructor<? extends GeneratedSerializer> generate(Class<?> type, Field[] fields) {
+		String typeName = type.getName();
+		String name = GeneratedSerializer.class.getName() + "$" + typeName.substring(typeName.lastIndexOf('.') + 1) + "$" + COUNT.incrementAndGet();
+		byte[] bytes = generateClass(name.replace('.', '/'), name, fields);
+		GeneratedSerializerLoader loader = new GeneratedSerializerLoader(GeneratedSerializer.class.getClassLoader());
+		try {
+			GeneratedSerializer.prepareGetters(name, getters(fields));
+			loader.define(name, bytes);
+			Class<? extends GeneratedSerializer> clazz = Class.forName(name, true, loader).asSubclass(GeneratedSerializer.class);
+			return clazz.getConstructor(SerializerFacade.class, Class.class, Field[].class);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			throw new SerializationException(e);
+		} finally {
+			GeneratedSerializer.discardGetters(name);
+		}
+	}
+
+	private static MethodHandle[] getters(Field[] fields) throws IllegalAccessException {
+		MethodHandle[] getters = new MethodHandle[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			getters[i] = FieldAccessor.of(fields[i]).getter().asType(methodType(valueType(fields[i]), Object.class));
+		}
+		return getters;
+	}
+
+	private static Class<?> valueType(Field field) {
+		return field.getType().isPrimitive() ? field.getType() : Object.class;
+	}
+
+	private static byte[] generateClass(String name, String className, Field[] fields) {
+		ClassNode classNode = new ClassNode();
+		classNode.version = V1_8;
+		classNode.access = ACC_PUBLIC | ACC_SUPER;
+		classNode.name = name;
+		classNode.superName = BASE;
+
+		MethodNode init = new MethodNode(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, null, null);
+		init.instructions.add(new VarInsnNode(ALOAD, 0));
+		init.instructions.add(new VarInsnNode(ALOAD, 1));
+		init.instructions.add(new VarInsnNode(ALOAD, 2));
+		init.instructions.add(new VarInsnNode(ALOAD, 3));
+		init.instructions.add(new MethodInsnNode(INVOKESPECIAL, BASE, "<init>", CONSTRUCTOR_DESCRIPTOR, false));
+		init.instructions.add(new InsnNode(RETURN));
+		classNode.methods.add(init);
+
+		MethodNode clinit = new MethodNode(ACC_STATIC, "<clinit>", "()V", null, null);
+		clinit.instructions.add(new LdcInsnNode(className));
+		clinit.instructions.add(new MethodInsnNode(INVOKESTATIC, BASE, "getters", GETTERS_DESCRIPTOR, false));
+		clinit.instructions.add(new VarInsnNode(ASTORE, 0));
+		for (int i = 0; i < fields.length; i++) {
+			classNode.fields.add(new FieldNode(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, getterName(i), METHOD_HANDLE_DESCRIPTOR, null, null));
+			clinit.instructions.add(new VarInsnNode(ALOAD, 0));
+			clinit.instructions.add(new LdcInsnNode(i));
+			clinit.instructions.add(new InsnNode(AALOAD));
+			clinit.instructions.add(new FieldInsnNode(PUTSTATIC, name, getterName(i), METHOD_HANDLE_DESCRIPTOR));
+		}
+		clinit.instructions.add(new InsnNode(RETURN));
+		classNode.methods.add(clinit);
+
+		MethodNode populate = new MethodNode(ACC_PROTECTED, "populateFields", POPULATE_DESCRIPTOR, null, null);
+		for (int i = 0; i < fields.length; i++) {
+			populate.instructions.add(populateField(name, i, fields[i]));
+		}
+		populate.instructions.add(new InsnNode(RETURN));
+		classNode.methods.add(populate);
+
+		ClassWriter out = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+		classNode.accept(out);
+		return out.toByteArray();
+	}
+
+	private static InsnList populateField(String name, int index, Field field) {
+		Type valueType = Type.getType(valueType(field));
+
+		InsnList insnList = new InsnList();
+		insnList.add(new VarInsnNode(ALOAD, 1));
+		insnList.add(new VarInsnNode(ALOAD, 0));
+		insnList.add(new LdcInsnNode(index));
+		insnList.add(new FieldInsnNode(GETSTATIC, name, getterName(index), METHOD_HANDLE_DESCRIPTOR));
+		insnList.add(new VarInsnNode(ALOAD, 2));
+		insnList.add(new MethodInsnNode(INVOKEVIRTUAL, METHOD_HANDLE, "invokeExact", Type.getMethodDescriptor(valueType, Type.getType(Object.class)), false));
+		insnList.add(new MethodInsnNode(INVOKEVIRTUAL, BASE, "field", Type.getMethodDescriptor(Type.getType(SerializedField.class), Type.INT_TYPE, valueType), false));
+		insnList.add(new MethodInsnNode(INVOKEVIRTUAL, SERIALIZED_OBJECT, "addField", ADD_FIELD_DESCRIPTOR, false));
+		return insnList;
+	}
+
+	private static String getterName(int index) {
+		return "getter" + index;
+	}
+
+	private static class GeneratedSerializerLoader extends ClassLoader {
+
+		GeneratedSerializerLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		Class<?> define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+
+	}
+
+}
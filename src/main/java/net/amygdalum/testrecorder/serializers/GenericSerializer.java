@@ -7,19 +7,25 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Type;
 import java.util.List;
 
+import net.amygdalum.testrecorder.SerializableFields;
 import net.amygdalum.testrecorder.SerializedReferenceType;
 import net.amygdalum.testrecorder.Serializer;
 import net.amygdalum.testrecorder.SerializerFacade;
-import net.amygdalum.testrecorder.SnapshotExcluded;
 import net.amygdalum.testrecorder.values.SerializedNull;
 import net.amygdalum.testrecorder.values.SerializedObject;
 
 public class GenericSerializer implements Serializer<SerializedReferenceType> {
 
 	private SerializerFacade facade;
+	private SerializableFields fields;
 
 	public GenericSerializer(SerializerFacade facade) {
+		this(facade, new SerializableFields(facade::excludes, facade::excludes));
+	}
+
+	public GenericSerializer(SerializerFacade facade, SerializableFields fields) {
 		this.facade = facade;
+		this.fields = fields;
 	}
 
 	@Override
@@ -42,21 +48,9 @@ public class GenericSerializer implements Serializer<SerializedReferenceType> {
 			return;
 		}
 		SerializedObject serializedObject = (SerializedObject) serializedValue;
-		Class<?> objectClass = object.getClass();
-		while (objectClass != Object.class && !facade.excludes(objectClass)) {
-			for (Field f : objectClass.getDeclaredFields()) {
-				if (isSerializable(f)) {
-					serializedObject.addField(facade.serialize(f, object));
-				}
-			}
-			objectClass = objectClass.getSuperclass();
+		for (Field f : fields.get(object.getClass())) {
+			serializedObject.addField(facade.serialize(f, object));
 		}
 	}
 
-	private boolean isSerializable(Field field) {
-		return !field.isAnnotationPresent(SnapshotExcluded.class)
-			&& !field.isSynthetic()
-			&& !facade.excludes(field);
-	}
-
 }
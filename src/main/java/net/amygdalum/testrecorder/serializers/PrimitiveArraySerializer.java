@@ -0,0 +1,42 @@
+package net.amygdalum.testrecorder.serializers;
+
+import static java.util.Collections.emptyList;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import net.amygdalum.testrecorder.Serializer;
+import net.amygdalum.testrecorder.SerializerFacade;
+import net.amygdalum.testrecorder.SerializerFactory;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+
+public class PrimitiveArraySerializer implements Serializer<SerializedPrimitiveArray> {
+
+	public PrimitiveArraySerializer(SerializerFacade facade) {
+	}
+
+	@Override
+	public List<Class<?>> getMatchingClasses() {
+		return emptyList();
+	}
+
+	@Override
+	public SerializedPrimitiveArray generate(Type resultType, Type type) {
+		return new SerializedPrimitiveArray(type);
+	}
+
+	@Override
+	public void populate(SerializedPrimitiveArray serializedObject, Object object) {
+		serializedObject.with(object);
+	}
+
+	public static class Factory implements SerializerFactory<SerializedPrimitiveArray> {
+
+		@Override
+		public PrimitiveArraySerializer newSerializer(SerializerFacade facade) {
+			return new PrimitiveArraySerializer(facade);
+		}
+
+	}
+
+}
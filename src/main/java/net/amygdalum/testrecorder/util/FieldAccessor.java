@@ -0,0 +1,71 @@
+package net.amygdalum.testrecorder.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads a field through a private accessible copy of the field. In contrast to {@link Reflections#accessing} the access check
+ * is done once when the accessor is created, not each time the field is read (and the accessibility of the original field is
+ * not modified).
+ *
+ * Accessors are cached per declaring class and field name and shared by all callers.
+ */
+public final class FieldAccessor {
+
+	private static final ClassValue<Map<String, FieldAccessor>> ACCESSORS = new ClassValue<Map<String, FieldAccessor>>() {
+		@Override
+		protected Map<String, FieldAccessor> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private final Field field;
+	private final Field accessible;
+
+	private FieldAccessor(Field field, Field accessible) {
+		this.field = field;
+		this.accessible = accessible;
+	}
+
+	public static FieldAccessor of(Field field) {
+		Map<String, FieldAccessor> accessors = ACCESSORS.get(field.getDeclaringClass());
+		FieldAccessor accessor = accessors.get(field.getName());
+		if (accessor == null) {
+			accessor = accessors.computeIfAbsent(field.getName(), name -> create(field));
+		}
+		return accessor;
+	}
+
+	private static FieldAccessor create(Field field) {
+		try {
+			Field accessible = field.getDeclaringClass().getDeclaredField(field.getName());
+			accessible.setAccessible(true);
+			return new FieldAccessor(field, accessible);
+		} catch (NoSuchFieldException | SecurityException e) {
+			throw new IllegalStateException("cannot access field " + field, e);
+		}
+	}
+
+	public Field getField() {
+		return field;
+	}
+
+	/**
+	 * @param object the object to read the field from, ignored for static fields
+	 * @return the (boxed) field value
+	 */
+	public Object get(Object object) throws ReflectiveOperationException {
+		return accessible.get(object);
+	}
+
+	/**
+	 * @return a method handle reading the field (without boxing primitive values), for instance fields taking the object as argument
+	 */
+	public MethodHandle getter() throws IllegalAccessException {
+		return MethodHandles.lookup().unreflectGetter(accessible);
+	}
+
+}
@@ -1,6 +1,5 @@
 package net.amygdalum.testrecorder.util;
 
-import static net.amygdalum.testrecorder.util.Reflections.accessing;
 import static net.amygdalum.testrecorder.util.Types.allFields;
 import static net.amygdalum.testrecorder.values.SerializedLiteral.isLiteral;
 
@@ -73,8 +72,7 @@ public class GenericComparison {
 			if (field.isSynthetic()) {
 				continue;
 			}
-			String fieldName = field.getName();
-			todo.enqueue(GenericComparison.from(root, fieldName, left, right));
+			todo.enqueue(GenericComparison.from(root, field, left, right));
 		}
 		return true;
 	}
@@ -94,12 +92,16 @@ public class GenericComparison {
 		if (isLiteral(clazz)) {
 			return left.equals(right);
 		}
+		boolean sameClass = clazz == right.getClass();
 		for (Field field : allFields(clazz)) {
 			if (field.isSynthetic()) {
 				continue;
 			}
-			String fieldName = field.getName();
-			todo.enqueue(GenericComparison.from(root, fieldName, left, right));
+			if (sameClass) {
+				todo.enqueue(GenericComparison.from(root, field, left, right));
+			} else {
+				todo.enqueue(GenericComparison.from(root, field.getName(), left, right));
+			}
 		}
 		return true;
 	}
@@ -111,7 +113,7 @@ public class GenericComparison {
 	}
 
 	public static Object getValue(Field field, Object item) throws ReflectiveOperationException {
-		return accessing(field).call(() -> field.get(item));
+		return FieldAccessor.of(field).get(item);
 	}
 
 	public static GenericComparison from(String root, String field, Object left, Object right) {
@@ -125,6 +127,19 @@ public class GenericComparison {
 		}
 	}
 
+	public static GenericComparison from(String root, Field field, Object left, Object right) {
+		try {
+			FieldAccessor accessor = FieldAccessor.of(field);
+			Object f1 = accessor.get(left);
+			Object f2 = accessor.get(right);
+			String fieldName = field.getName();
+			String newRoot = root == null ? fieldName : root + '.' + fieldName;
+			return new GenericComparison(newRoot, f1, f2);
+		} catch (ReflectiveOperationException e) {
+			return GenericComparison.NULL;
+		}
+	}
+
 	public static void compare(WorkSet<GenericComparison> remainder, GenericComparator comparator) {
 		while (remainder.hasMoreElements()) {
 			GenericComparison current = remainder.dequeue();
@@ -6,7 +6,9 @@ import static net.amygdalum.testrecorder.util.GenericComparatorResult.MISMATCH;
 import static net.amygdalum.testrecorder.util.GenericComparatorResult.NOT_APPLYING;
 import static net.amygdalum.testrecorder.util.GenericComparison.getValue;
 import static net.amygdalum.testrecorder.util.Types.allFields;
+import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
 
 import java.lang.reflect.Field;
 import java.util.List;
@@ -80,6 +82,15 @@ public class GenericMatcher extends GenericObject {
 		return instanceOf(wrapped.getWrappedClass());
 	}
 
+	@SuppressWarnings("unchecked")
+	public static <T> Matcher<T> truncated(Class<T> clazz) {
+		return (Matcher<T>) anyOf(nullValue(), instanceOf(clazz));
+	}
+
+	public static Matcher<?> truncated(Wrapped wrapped) {
+		return anyOf(nullValue(), instanceOf(wrapped.getWrappedClass()));
+	}
+
 	private class InternalsMatcher<T> extends TypeSafeMatcher<T> implements RecursiveMatcher {
 
 		private Class<T> clazz;
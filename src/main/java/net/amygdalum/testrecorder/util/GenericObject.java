@@ -29,7 +29,7 @@ public abstract class GenericObject {
 	public static void define(Object o, GenericObject genericObject) {
 		for (Field field : genericObject.getGenericFields()) {
 			try {
-				accessing(field).exec(() -> setField(o, field.getName(), field.get(genericObject)));
+				setField(o, field.getName(), FieldAccessor.of(field).get(genericObject));
 			} catch (ReflectiveOperationException e) {
 				throw new GenericObjectException(e);
 			}
@@ -170,7 +170,7 @@ public abstract class GenericObject {
 	public Wrapped as(Wrapped wrapped) {
 		for (Field field : getGenericFields()) {
 			try {
-				accessing(field).exec(() -> wrapped.setField(field.getName(), field.get(this)));
+				wrapped.setField(field.getName(), FieldAccessor.of(field).get(this));
 			} catch (ReflectiveOperationException e) {
 				throw new GenericObjectException(e);
 			}
@@ -181,7 +181,7 @@ public abstract class GenericObject {
 	public <T> T as(T o) {
 		for (Field field : getGenericFields()) {
 			try {
-				accessing(field).exec(() -> setField(o, field.getName(), field.get(this)));
+				setField(o, field.getName(), FieldAccessor.of(field).get(this));
 			} catch (ReflectiveOperationException e) {
 				throw new GenericObjectException(e);
 			}
@@ -217,10 +217,8 @@ public abstract class GenericObject {
 
 	public static void copyField(Field field, Object from, Object to) {
 		try {
-			accessing(field).exec(() -> {
-				Object value = field.get(from);
-				field.set(to, value);
-			});
+			Object value = FieldAccessor.of(field).get(from);
+			setField(to, field, value);
 		} catch (ReflectiveOperationException e) {
 			throw new GenericObjectException(e);
 		}
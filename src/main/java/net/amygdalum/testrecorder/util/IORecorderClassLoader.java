@@ -1,8 +1,8 @@
 package net.amygdalum.testrecorder.util;
 
 import static java.util.stream.Collectors.toList;
+import static net.amygdalum.testrecorder.ByteCode.argumentLocals;
 import static net.amygdalum.testrecorder.ByteCode.pushAsArray;
-import static net.amygdalum.testrecorder.ByteCode.range;
 import static net.amygdalum.testrecorder.ByteCode.unboxPrimitives;
 import static org.objectweb.asm.Opcodes.ACONST_NULL;
 import static org.objectweb.asm.Opcodes.ARETURN;
@@ -38,7 +38,6 @@ import org.objectweb.asm.tree.InsnNode;
 import org.objectweb.asm.tree.JumpInsnNode;
 import org.objectweb.asm.tree.LabelNode;
 import org.objectweb.asm.tree.LdcInsnNode;
-import org.objectweb.asm.tree.LocalVariableNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.tree.TypeInsnNode;
@@ -187,7 +186,7 @@ public class IORecorderClassLoader extends AbstractInstrumentedClassLoader {
 	private InsnList readInput(ClassNode classNode, MethodNode methodNode) {
 		Type returnType = Type.getReturnType(methodNode.desc);
 		Type[] argumentTypes = Type.getArgumentTypes(methodNode.desc);
-		List<LocalVariableNode> arguments = range(methodNode.localVariables, 1, argumentTypes.length);
+		int[] arguments = argumentLocals(1, argumentTypes);
 
 		InsnList insnList = new InsnList();
 
@@ -295,7 +294,7 @@ public class IORecorderClassLoader extends AbstractInstrumentedClassLoader {
 
 	private InsnList notifyOutput(ClassNode classNode, MethodNode methodNode) {
 		Type[] argumentTypes = Type.getArgumentTypes(methodNode.desc);
-		List<LocalVariableNode> arguments = range(methodNode.localVariables, 1, argumentTypes.length);
+		int[] arguments = argumentLocals(1, argumentTypes);
 
 		InsnList insnList = new InsnList();
 
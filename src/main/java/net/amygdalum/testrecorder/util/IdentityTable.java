@@ -0,0 +1,174 @@
+package net.amygdalum.testrecorder.util;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * A map from objects (compared by identity) to values, optimized for being filled and cleared again and again. Entries are stored
+ * in an open addressing table (linear probing, no removal of single entries) together with the generation they were put in. Only
+ * entries of the current generation are valid, so {@link #clear()} just starts a new generation and takes constant time.
+ *
+ * Stale entries are overwritten by later generations. If the table stays much larger than needed for {@value #SHRINK_AFTER}
+ * generations (e.g. after a single large snapshot) it is replaced by a smaller one, releasing the stale entries.
+ *
+ * The table remembers the slots written since the last {@link #purge()}, so purging takes time proportional to the number of entries
+ * put since then, not to the capacity.
+ */
+public class IdentityTable<V> {
+
+	public static final int MIN_CAPACITY = 64;
+	public static final int SHRINK_AFTER = 8;
+
+	private Object[] keys;
+	private Object[] values;
+	private int[] generations;
+	private int[] written;
+	private int writtenCount;
+	private int mask;
+	private int generation;
+	private int size;
+	private int oversized;
+	private int recentSize;
+
+	public IdentityTable() {
+		allocate(MIN_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		keys = new Object[capacity];
+		values = new Object[capacity];
+		generations = new int[capacity];
+		written = new int[capacity];
+		writtenCount = 0;
+		mask = capacity - 1;
+		generation = 1;
+		size = 0;
+	}
+
+	private static int capacityFor(int size) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < size * 2 && capacity < 1 << 30) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private int index(Object key) {
+		int hash = System.identityHashCode(key) * 0x9e3779b9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int i = index(key);
+		while (generations[i] == generation) {
+			if (keys[i] == key) {
+				return (V) values[i];
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	public void put(Object key, V value) {
+		int i = index(key);
+		while (generations[i] == generation) {
+			if (keys[i] == key) {
+				values[i] = value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		generations[i] = generation;
+		if (writtenCount < written.length) {
+			written[writtenCount] = i;
+		}
+		writtenCount++;
+		size++;
+		if (size * 2 > keys.length) {
+			resize(keys.length * 2);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void resize(int capacity) {
+		Object[] oldKeys = keys;
+		Object[] oldValues = values;
+		int[] oldGenerations = generations;
+		int oldGeneration = generation;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldGenerations[i] == oldGeneration) {
+				put(oldKeys[i], (V) oldValues[i]);
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return keys.length;
+	}
+
+	/**
+	 * Removes all entries in constant time. Only after {@value #SHRINK_AFTER} generations of low usage the table is reallocated.
+	 */
+	public void clear() {
+		if (size * 8 < keys.length && keys.length > MIN_CAPACITY) {
+			oversized++;
+			recentSize = Math.max(recentSize, size);
+		} else {
+			oversized = 0;
+			recentSize = 0;
+		}
+		if (oversized >= SHRINK_AFTER) {
+			allocate(capacityFor(recentSize));
+			oversized = 0;
+			recentSize = 0;
+		} else if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(generations, 0);
+			generation = 1;
+			size = 0;
+		} else {
+			generation++;
+			size = 0;
+		}
+	}
+
+	/**
+	 * Removes all entries like {@link #clear()} and drops the references to the removed keys and values, so that a table kept for
+	 * later use does not retain them. Only the slots written since the last purge are cleared, unless there were more writes than slots.
+	 */
+	public void purge() {
+		clear();
+		if (writtenCount > written.length) {
+			Arrays.fill(keys, null);
+			Arrays.fill(values, null);
+		} else {
+			for (int k = 0; k < writtenCount; k++) {
+				int i = written[k];
+				keys[i] = null;
+				values[i] = null;
+			}
+		}
+		writtenCount = 0;
+	}
+
+	int written() {
+		return writtenCount;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<Object, ? super V> action) {
+		for (int i = 0; i < keys.length; i++) {
+			if (generations[i] == generation) {
+				action.accept(keys[i], (V) values[i]);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+package net.amygdalum.testrecorder.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A set of prefixes that decides in one pass over a name whether it starts with any of these prefixes.
+ */
+public class PrefixTrie {
+
+	private Node root;
+
+	public PrefixTrie() {
+		this.root = new Node();
+	}
+
+	public PrefixTrie(Collection<String> prefixes) {
+		this();
+		for (String prefix : prefixes) {
+			add(prefix);
+		}
+	}
+
+	public void add(String prefix) {
+		Node node = root;
+		for (int i = 0; i < prefix.length(); i++) {
+			node = node.childOrCreate(prefix.charAt(i));
+		}
+		node.terminal = true;
+	}
+
+	public boolean matchesPrefixOf(String name) {
+		Node node = root;
+		if (node.terminal) {
+			return true;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			node = node.child(name.charAt(i));
+			if (node == null) {
+				return false;
+			} else if (node.terminal) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static class Node {
+
+		private static final char[] NO_KEYS = new char[0];
+		private static final Node[] NO_CHILDREN = new Node[0];
+
+		private char[] keys = NO_KEYS;
+		private Node[] children = NO_CHILDREN;
+		private boolean terminal;
+
+		public Node child(char key) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == key) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		public Node childOrCreate(char key) {
+			Node child = child(key);
+			if (child == null) {
+				child = new Node();
+				keys = Arrays.copyOf(keys, keys.length + 1);
+				children = Arrays.copyOf(children, children.length + 1);
+				keys[keys.length - 1] = key;
+				children[children.length - 1] = child;
+			}
+			return child;
+		}
+
+	}
+
+}
@@ -0,0 +1,127 @@
+package net.amygdalum.testrecorder.util;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Encodes primitive arrays as Base64 strings and decodes them again. Generated tests use the decoding methods for large arrays,
+ * because one literal per element would soon exceed the size limits of a class file.
+ *
+ * Encoded arrays are split into chunks of at most {@value #CHUNK_SIZE} characters (the limit for a string constant is 65535 bytes).
+ */
+public final class PrimitiveArrays {
+
+	public static final int MAX_LITERAL_ELEMENTS = 64;
+
+	public static final int CHUNK_SIZE = 60_000;
+
+	private PrimitiveArrays() {
+	}
+
+	public static boolean isLarge(Object array) {
+		return Array.getLength(array) > MAX_LITERAL_ELEMENTS;
+	}
+
+	public static String[] encode(Object array) {
+		Class<?> type = array.getClass().getComponentType();
+		int length = Array.getLength(array);
+		ByteBuffer buffer;
+		if (type == boolean.class) {
+			buffer = ByteBuffer.allocate(length);
+			for (boolean value : (boolean[]) array) {
+				buffer.put(value ? (byte) 1 : (byte) 0);
+			}
+		} else if (type == char.class) {
+			buffer = ByteBuffer.allocate(length * Character.BYTES);
+			buffer.asCharBuffer().put((char[]) array);
+		} else if (type == byte.class) {
+			buffer = ByteBuffer.wrap((byte[]) array);
+		} else if (type == short.class) {
+			buffer = ByteBuffer.allocate(length * Short.BYTES);
+			buffer.asShortBuffer().put((short[]) array);
+		} else if (type == int.class) {
+			buffer = ByteBuffer.allocate(length * Integer.BYTES);
+			buffer.asIntBuffer().put((int[]) array);
+		} else if (type == float.class) {
+			buffer = ByteBuffer.allocate(length * Float.BYTES);
+			buffer.asFloatBuffer().put((float[]) array);
+		} else if (type == long.class) {
+			buffer = ByteBuffer.allocate(length * Long.BYTES);
+			buffer.asLongBuffer().put((long[]) array);
+		} else if (type == double.class) {
+			buffer = ByteBuffer.allocate(length * Double.BYTES);
+			buffer.asDoubleBuffer().put((double[]) array);
+		} else {
+			throw new IllegalArgumentException("expected primitive array, but found " + array.getClass().getName());
+		}
+		String encoded = Base64.getEncoder().encodeToString(buffer.array());
+		List<String> chunks = new ArrayList<>();
+		for (int start = 0; start < encoded.length(); start += CHUNK_SIZE) {
+			chunks.add(encoded.substring(start, Math.min(start + CHUNK_SIZE, encoded.length())));
+		}
+		return chunks.toArray(new String[0]);
+	}
+
+	private static ByteBuffer decode(String... chunks) {
+		return ByteBuffer.wrap(Base64.getDecoder().decode(String.join("", chunks)));
+	}
+
+	public static boolean[] booleanArray(String... encoded) {
+		byte[] bytes = decode(encoded).array();
+		boolean[] array = new boolean[bytes.length];
+		for (int i = 0; i < bytes.length; i++) {
+			array[i] = bytes[i] != 0;
+		}
+		return array;
+	}
+
+	public static char[] charArray(String... encoded) {
+		ByteBuffer buffer = decode(encoded);
+		char[] array = new char[buffer.remaining() / Character.BYTES];
+		buffer.asCharBuffer().get(array);
+		return array;
+	}
+
+	public static byte[] byteArray(String... encoded) {
+		return decode(encoded).array();
+	}
+
+	public static short[] shortArray(String... encoded) {
+		ByteBuffer buffer = decode(encoded);
+		short[] array = new short[buffer.remaining() / Short.BYTES];
+		buffer.asShortBuffer().get(array);
+		return array;
+	}
+
+	public static int[] intArray(String... encoded) {
+		ByteBuffer buffer = decode(encoded);
+		int[] array = new int[buffer.remaining() / Integer.BYTES];
+		buffer.asIntBuffer().get(array);
+		return array;
+	}
+
+	public static float[] floatArray(String... encoded) {
+		ByteBuffer buffer = decode(encoded);
+		float[] array = new float[buffer.remaining() / Float.BYTES];
+		buffer.asFloatBuffer().get(array);
+		return array;
+	}
+
+	public static long[] longArray(String... encoded) {
+		ByteBuffer buffer = decode(encoded);
+		long[] array = new long[buffer.remaining() / Long.BYTES];
+		buffer.asLongBuffer().get(array);
+		return array;
+	}
+
+	public static double[] doubleArray(String... encoded) {
+		ByteBuffer buffer = decode(encoded);
+		double[] array = new double[buffer.remaining() / Double.BYTES];
+		buffer.asDoubleBuffer().get(array);
+		return array;
+	}
+
+}
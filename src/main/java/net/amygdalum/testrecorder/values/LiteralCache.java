@@ -0,0 +1,276 @@
+package net.amygdalum.testrecorder.values;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Interns {@link SerializedLiteral}s by result type and value. The cache is thread safe, lock free and bounded: each literal is stored
+ * in the slot given by its hash, replacing (evicting) the literal stored there before. Literals of small ints, chars and all booleans
+ * are created in advance and never evicted. Strings longer than {@value #MAX_STRING_LENGTH} characters are not cached at all.
+ * 
+ * Evicted literals are created again on the next request, so interned literals are equal (but not necessarily identical) if they have
+ * the same result type and value.
+ */
+public final class LiteralCache {
+
+	private static final int MIN_INT = -128;
+	private static final int MAX_INT = 1023;
+	private static final char MAX_CHAR = 127;
+
+	public static final int MAX_STRING_LENGTH = 1024;
+
+	private final SerializedLiteral[] booleans;
+	private final SerializedLiteral[] booleanObjects;
+	private final SerializedLiteral[] ints;
+	private final SerializedLiteral[] integers;
+	private final SerializedLiteral[] chars;
+	private final SerializedLiteral[] characters;
+
+	private final AtomicReferenceArray<SerializedLiteral> slots;
+	private final int mask;
+
+	private final LongAdder hits;
+	private final LongAdder misses;
+	private final LongAdder evictions;
+
+	/**
+	 * @param capacity the maximum number of cached literals (rounded up to the next power of two), not counting the predefined ones
+	 */
+	public LiteralCache(int capacity) {
+		if (capacity <= 0 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("capacity must be between 1 and " + (1 << 30) + ", but was " + capacity);
+		}
+		this.booleans = new SerializedLiteral[] { new SerializedLiteral(boolean.class, false), new SerializedLiteral(boolean.class, true) };
+		this.booleanObjects = new SerializedLiteral[] { new SerializedLiteral(Boolean.class, false), new SerializedLiteral(Boolean.class, true) };
+		this.ints = new SerializedLiteral[MAX_INT - MIN_INT + 1];
+		this.integers = new SerializedLiteral[MAX_INT - MIN_INT + 1];
+		for (int i = MIN_INT; i <= MAX_INT; i++) {
+			ints[i - MIN_INT] = new SerializedLiteral(int.class, i);
+			integers[i - MIN_INT] = new SerializedLiteral(Integer.class, i);
+		}
+		this.chars = new SerializedLiteral[MAX_CHAR + 1];
+		this.characters = new SerializedLiteral[MAX_CHAR + 1];
+		for (char c = 0; c <= MAX_CHAR; c++) {
+			chars[c] = new SerializedLiteral(char.class, c);
+			characters[c] = new SerializedLiteral(Character.class, c);
+		}
+		int size = Integer.highestOneBit(capacity - 1) << 1;
+		this.slots = new AtomicReferenceArray<>(Math.max(size, 1));
+		this.mask = slots.length() - 1;
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+	}
+
+	public SerializedLiteral get(Type type, Object value) {
+		SerializedLiteral literal = predefined(type, value);
+		if (literal != null) {
+			return hit(literal);
+		}
+		if (value instanceof String && ((String) value).length() > MAX_STRING_LENGTH) {
+			misses.increment();
+			return new SerializedLiteral(type, value);
+		}
+		int index = index(type, value.hashCode());
+		SerializedLiteral cached = slots.get(index);
+		if (cached != null && cached.getResultType().equals(type) && cached.getValue().equals(value)) {
+			return hit(cached);
+		}
+		return store(index, cached, new SerializedLiteral(type, value));
+	}
+
+	/**
+	 * The following methods return the literals of boxed types for primitive values. They are equivalent to
+	 * {@link #get(Type, Object)} with the wrapper type, but box the value only if the literal is not yet cached.
+	 */
+	public SerializedLiteral get(boolean value) {
+		return hit(booleanObjects[value ? 1 : 0]);
+	}
+
+	public SerializedLiteral get(char value) {
+		if (value <= MAX_CHAR) {
+			return hit(characters[value]);
+		}
+		int index = index(Character.class, Character.hashCode(value));
+		SerializedLiteral cached = slots.get(index);
+		if (cached != null && cached.getResultType() == Character.class && cached.getValue() instanceof Character && (Character) cached.getValue() == value) {
+			return hit(cached);
+		}
+		return store(index, cached, new SerializedLiteral(Character.class, value));
+	}
+
+	public SerializedLiteral get(byte value) {
+		int index = index(Byte.class, Byte.hashCode(value));
+		SerializedLiteral cached = slots.get(index);
+		if (cached != null && cached.getResultType() == Byte.class && cached.getValue() instanceof Byte && (Byte) cached.getValue() == value) {
+			return hit(cached);
+		}
+		return store(index, cached, new SerializedLiteral(Byte.class, value));
+	}
+
+	public SerializedLiteral get(short value) {
+		int index = index(Short.class, Short.hashCode(value));
+		SerializedLiteral cached = slots.get(index);
+		if (cached != null && cached.getResultType() == Short.class && cached.getValue() instanceof Short && (Short) cached.getValue() == value) {
+			return hit(cached);
+		}
+		return store(index, cached, new SerializedLiteral(Short.class, value));
+	}
+
+	public SerializedLiteral get(int value) {
+		if (value >= MIN_INT && value <= MAX_INT) {
+			return hit(integers[value - MIN_INT]);
+		}
+		int index = index(Integer.class, Integer.hashCode(value));
+		SerializedLiteral cached = slots.get(index);
+		if (cached != null && cached.getResultType() == Integer.class && cached.getValue() instanceof Integer && (Integer) cached.getValue() == value) {
+			return hit(cached);
+		}
+		return store(index, cached, new SerializedLiteral(Integer.class, value));
+	}
+
+	public SerializedLiteral get(float value) {
+		int index = index(Float.class, Float.hashCode(value));
+		SerializedLiteral cached = slots.get(index);
+		if (cached != null && cached.getResultType() == Float.class && cached.getValue() instanceof Float
+			&& Float.floatToIntBits((Float) cached.getValue()) == Float.floatToIntBits(value)) {
+			return hit(cached);
+		}
+		return store(index, cached, new SerializedLiteral(Float.class, value));
+	}
+
+	public SerializedLiteral get(long value) {
+		int index = index(Long.class, Long.hashCode(value));
+		SerializedLiteral cached = slots.get(index);
+		if (cached != null && cached.getResultType() == Long.class && cached.getValue() instanceof Long && (Long) cached.getValue() == value) {
+			return hit(cached);
+		}
+		return store(index, cached, new SerializedLiteral(Long.class, value));
+	}
+
+	public SerializedLiteral get(double value) {
+		int index = index(Double.class, Double.hashCode(value));
+		SerializedLiteral cached = slots.get(index);
+		if (cached != null && cached.getResultType() == Double.class && cached.getValue() instanceof Double
+			&& Double.doubleToLongBits((Double) cached.getValue()) == Double.doubleToLongBits(value)) {
+			return hit(cached);
+		}
+		return store(index, cached, new SerializedLiteral(Double.class, value));
+	}
+
+	private int index(Type type, int valueHash) {
+		int hash = type.hashCode() * 31 + valueHash;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	private SerializedLiteral hit(SerializedLiteral literal) {
+		hits.increment();
+		return literal;
+	}
+
+	private SerializedLiteral store(int index, SerializedLiteral evicted, SerializedLiteral literal) {
+		slots.set(index, literal);
+		misses.increment();
+		if (evicted != null) {
+			evictions.increment();
+		}
+		return literal;
+	}
+
+	private SerializedLiteral predefined(Type type, Object value) {
+		if (value instanceof Integer) {
+			int i = (Integer) value;
+			if (i < MIN_INT || i > MAX_INT) {
+				return null;
+			} else if (type == int.class) {
+				return ints[i - MIN_INT];
+			} else if (type == Integer.class) {
+				return integers[i - MIN_INT];
+			}
+		} else if (value instanceof Boolean) {
+			int b = ((Boolean) value) ? 1 : 0;
+			if (type == boolean.class) {
+				return booleans[b];
+			} else if (type == Boolean.class) {
+				return booleanObjects[b];
+			}
+		} else if (value instanceof Character) {
+			char c = (Character) value;
+			if (c > MAX_CHAR) {
+				return null;
+			} else if (type == char.class) {
+				return chars[c];
+			} else if (type == Character.class) {
+				return characters[c];
+			}
+		}
+		return null;
+	}
+
+	public int getCapacity() {
+		return slots.length();
+	}
+
+	public Statistics getStatistics() {
+		int size = 0;
+		for (int i = 0; i < slots.length(); i++) {
+			if (slots.get(i) != null) {
+				size++;
+			}
+		}
+		return new Statistics(hits.sum(), misses.sum(), evictions.sum(), size);
+	}
+
+	public void clear() {
+		for (int i = 0; i < slots.length(); i++) {
+			slots.set(i, null);
+		}
+	}
+
+	public static class Statistics {
+
+		private long hits;
+		private long misses;
+		private long evictions;
+		private int size;
+
+		public Statistics(long hits, long misses, long evictions, int size) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.size = size;
+		}
+
+		public long getHits() {
+			return hits;
+		}
+
+		public long getMisses() {
+			return misses;
+		}
+
+		public long getEvictions() {
+			return evictions;
+		}
+
+		/**
+		 * @return the number of cached literals, not counting the predefined ones
+		 */
+		public int getSize() {
+			return size;
+		}
+
+		public double getHitRate() {
+			long requests = hits + misses;
+			return requests == 0 ? 0 : (double) hits / requests;
+		}
+
+		@Override
+		public String toString() {
+			return "hits: " + hits + ", misses: " + misses + ", evictions: " + evictions + ", size: " + size;
+		}
+
+	}
+
+}
@@ -0,0 +1,134 @@
+package net.amygdalum.testrecorder.values;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The field layout (declaring classes, names and types of the fields) of a {@link SerializedObject}. Schemas are interned per class:
+ * starting from the empty schema of a class each added field leads to the same (shared) schema, so serialized objects of the same
+ * class only store their field values.
+ */
+public final class ObjectSchema {
+
+	private static final ClassValue<ObjectSchema> ROOTS = new ClassValue<ObjectSchema>() {
+		@Override
+		protected ObjectSchema computeValue(Class<?> type) {
+			return new ObjectSchema(null, new Class<?>[0], new String[0], new Type[0]);
+		}
+	};
+
+	private final ObjectSchema parent;
+	private final Class<?>[] declaringClasses;
+	private final String[] names;
+	private final Type[] types;
+	private final Map<Transition, ObjectSchema> transitions;
+	private volatile Transition last;
+	private volatile int expectedSize;
+
+	private ObjectSchema(ObjectSchema parent, Class<?>[] declaringClasses, String[] names, Type[] types) {
+		this.parent = parent;
+		this.declaringClasses = declaringClasses;
+		this.names = names;
+		this.types = types;
+		this.transitions = new ConcurrentHashMap<>(2);
+		this.expectedSize = names.length;
+	}
+
+	public static ObjectSchema forClass(Class<?> clazz) {
+		return ROOTS.get(clazz);
+	}
+
+	/**
+	 * @return the schema with the given field appended to the fields of this schema
+	 */
+	public ObjectSchema with(Class<?> declaringClass, String name, Type type) {
+		Transition transition = last;
+		if (transition != null && transition.matches(declaringClass, name, type)) {
+			return transition.schema;
+		}
+		transition = new Transition(declaringClass, name, type);
+		ObjectSchema schema = transitions.computeIfAbsent(transition, key -> extend(key));
+		transition.schema = schema;
+		last = transition;
+		return schema;
+	}
+
+	private ObjectSchema extend(Transition transition) {
+		int size = names.length;
+		Class<?>[] declaringClasses = Arrays.copyOf(this.declaringClasses, size + 1);
+		String[] names = Arrays.copyOf(this.names, size + 1);
+		Type[] types = Arrays.copyOf(this.types, size + 1);
+		declaringClasses[size] = transition.declaringClass;
+		names[size] = transition.name;
+		types[size] = transition.type;
+		for (ObjectSchema schema = this; schema != null && schema.expectedSize <= size; schema = schema.parent) {
+			schema.expectedSize = size + 1;
+		}
+		return new ObjectSchema(this, declaringClasses, names, types);
+	}
+
+	public int size() {
+		return names.length;
+	}
+
+	/**
+	 * @return the largest number of fields reached from this schema so far (the number of values to reserve for an object with this schema)
+	 */
+	public int expectedSize() {
+		return expectedSize;
+	}
+
+	public Class<?> getDeclaringClass(int index) {
+		return declaringClasses[index];
+	}
+
+	public String getName(int index) {
+		return names[index];
+	}
+
+	public Type getType(int index) {
+		return types[index];
+	}
+
+	private static class Transition {
+
+		private final Class<?> declaringClass;
+		private final String name;
+		private final Type type;
+		private ObjectSchema schema;
+
+		Transition(Class<?> declaringClass, String name, Type type) {
+			this.declaringClass = declaringClass;
+			this.name = name;
+			this.type = type;
+		}
+
+		boolean matches(Class<?> declaringClass, String name, Type type) {
+			return this.declaringClass == declaringClass
+				&& (this.name == name || Objects.equals(this.name, name))
+				&& (this.type == type || Objects.equals(this.type, type));
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(declaringClass, name, type);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Transition that = (Transition) obj;
+			return matches(that.declaringClass, that.name, that.type);
+		}
+
+	}
+
+}
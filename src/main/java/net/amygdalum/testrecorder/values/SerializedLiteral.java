@@ -4,10 +4,8 @@ import static java.util.Collections.emptyList;
 
 import java.lang.reflect.Type;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import net.amygdalum.testrecorder.Deserializer;
@@ -17,7 +15,11 @@ import net.amygdalum.testrecorder.deserializers.ValuePrinter;
 
 /**
  * Serializing to SerializedLiteral is only valid for primitive types and non-null Strings. For this use the factory method 
- * {@link #literal(Type, Object)}
+ * {@link #literal(Type, Object)}. The factory methods for primitive values (e.g. {@link #literal(int)}) return the literal of the
+ * wrapper type and box the value only if this literal is not yet cached.
+ * 
+ * Literals are interned in a bounded {@link LiteralCache}, so literals with the same result type and value are equal, but not
+ * necessarily identical.
  */
 public class SerializedLiteral extends AbstractSerializedValue implements SerializedValueType {
 
@@ -26,12 +28,14 @@ public class SerializedLiteral extends AbstractSerializedValue implements Serial
 		Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Float.class, Long.class, Double.class,
 		String.class));
 
-	private static final Map<Object, SerializedLiteral> KNOWN_LITERALS = new HashMap<>();
+	private static final int KNOWN_LITERALS_CAPACITY = 16384;
 
-	private Type resultType;
-	private Object value;
+	private static final LiteralCache KNOWN_LITERALS = new LiteralCache(KNOWN_LITERALS_CAPACITY);
 
-	private SerializedLiteral(Type type, Object value) {
+	private final Type resultType;
+	private final Object value;
+
+	SerializedLiteral(Type type, Object value) {
 		super(value.getClass());
 		this.resultType = type;
 		this.value = value;
@@ -46,7 +50,43 @@ public class SerializedLiteral extends AbstractSerializedValue implements Serial
 	}
 	
 	public static SerializedLiteral literal(Type type, Object value) {
-		return KNOWN_LITERALS.computeIfAbsent(value, val -> new SerializedLiteral(type, val));
+		return KNOWN_LITERALS.get(type, value);
+	}
+
+	public static SerializedLiteral literal(boolean value) {
+		return KNOWN_LITERALS.get(value);
+	}
+
+	public static SerializedLiteral literal(char value) {
+		return KNOWN_LITERALS.get(value);
+	}
+
+	public static SerializedLiteral literal(byte value) {
+		return KNOWN_LITERALS.get(value);
+	}
+
+	public static SerializedLiteral literal(short value) {
+		return KNOWN_LITERALS.get(value);
+	}
+
+	public static SerializedLiteral literal(int value) {
+		return KNOWN_LITERALS.get(value);
+	}
+
+	public static SerializedLiteral literal(float value) {
+		return KNOWN_LITERALS.get(value);
+	}
+
+	public static SerializedLiteral literal(long value) {
+		return KNOWN_LITERALS.get(value);
+	}
+
+	public static SerializedLiteral literal(double value) {
+		return KNOWN_LITERALS.get(value);
+	}
+
+	public static LiteralCache.Statistics cacheStatistics() {
+		return KNOWN_LITERALS.getStatistics();
 	}
 
 	@Override
@@ -69,6 +109,28 @@ public class SerializedLiteral extends AbstractSerializedValue implements Serial
 		return visitor.visitValueType(this);
 	}
 
+	@Override
+	public int hashCode() {
+		return resultType.hashCode() * 31
+			+ value.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		SerializedLiteral that = (SerializedLiteral) obj;
+		return this.resultType.equals(that.resultType)
+			&& this.value.equals(that.value);
+	}
+
 	@Override
 	public String toString() {
 		return accept(new ValuePrinter());
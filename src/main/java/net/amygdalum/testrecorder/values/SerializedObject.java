@@ -1,10 +1,13 @@
 package net.amygdalum.testrecorder.values;
 
 import static java.util.Arrays.asList;
-import static java.util.stream.Collectors.toList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static net.amygdalum.testrecorder.util.Types.baseType;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import net.amygdalum.testrecorder.Deserializer;
@@ -19,11 +22,14 @@ import net.amygdalum.testrecorder.deserializers.ValuePrinter;
  */
 public class SerializedObject extends AbstractSerializedReferenceType implements SerializedReferenceType {
 
-	private List<SerializedField> fields;
+	private static final SerializedValue[] NO_VALUES = new SerializedValue[0];
+
+	private ObjectSchema schema;
+	private SerializedValue[] values;
 
 	public SerializedObject(Type type) {
 		super(type);
-		this.fields = new ArrayList<>();
+		this.values = NO_VALUES;
 	}
 
 	public SerializedObject withResult(Type resultType) {
@@ -32,16 +38,40 @@ public class SerializedObject extends AbstractSerializedReferenceType implements
 	}
 
 	public SerializedObject withFields(SerializedField... fields) {
-		this.fields.addAll(asList(fields));
+		for (SerializedField field : fields) {
+			addField(field);
+		}
 		return this;
 	}
 
+	/**
+	 * @return the fields of this object, created from the (shared) schema and the values of this object on each call
+	 */
 	public List<SerializedField> getFields() {
-		return fields;
+		if (schema == null) {
+			return emptyList();
+		}
+		List<SerializedField> fields = new ArrayList<>(schema.size());
+		for (int i = 0; i < schema.size(); i++) {
+			fields.add(new SerializedField(schema.getDeclaringClass(i), schema.getName(i), schema.getType(i), values[i]));
+		}
+		return unmodifiableList(fields);
+	}
+
+	public ObjectSchema getSchema() {
+		return schema;
 	}
 
 	public void addField(SerializedField field) {
-		fields.add(field);
+		if (schema == null) {
+			schema = ObjectSchema.forClass(baseType(getType()));
+		}
+		int index = schema.size();
+		schema = schema.with(field.getDeclaringClass(), field.getName(), field.getType());
+		if (index >= values.length) {
+			values = Arrays.copyOf(values, Math.max(schema.expectedSize(), index + 1));
+		}
+		values[index] = field.getValue();
 	}
 
 	public <T> T accept(Deserializer<T> visitor) {
@@ -50,9 +80,10 @@ public class SerializedObject extends AbstractSerializedReferenceType implements
 
 	@Override
 	public List<SerializedValue> referencedValues() {
-		return fields.stream()
-			.map(field -> field.getValue())
-			.collect(toList());
+		if (schema == null) {
+			return emptyList();
+		}
+		return asList(values).subList(0, schema.size());
 	}
 
 	@Override
@@ -0,0 +1,75 @@
+package net.amygdalum.testrecorder.values;
+
+import static java.util.Collections.emptyList;
+import static net.amygdalum.testrecorder.util.Types.baseType;
+import static net.amygdalum.testrecorder.util.Types.component;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import net.amygdalum.testrecorder.Deserializer;
+import net.amygdalum.testrecorder.SerializedReferenceType;
+import net.amygdalum.testrecorder.SerializedValue;
+import net.amygdalum.testrecorder.deserializers.ValuePrinter;
+
+/**
+ * Serializing to SerializedPrimitiveArray is restricted to arrays with primitive component type. The elements are not serialized one by one,
+ * but stored as a copy of the original array.
+ */
+public class SerializedPrimitiveArray extends AbstractSerializedReferenceType implements SerializedReferenceType {
+
+	private Object array;
+
+	public SerializedPrimitiveArray(Type type) {
+		super(type);
+		this.array = Array.newInstance(getRawType(), 0);
+	}
+
+	public SerializedPrimitiveArray with(Object array) {
+		Class<?> arrayType = array.getClass();
+		if (!arrayType.isArray() || arrayType.getComponentType() != getRawType()) {
+			throw new IllegalArgumentException("expected array of " + getRawType().getName() + ", but found " + arrayType.getName());
+		}
+		int length = Array.getLength(array);
+		Object copy = Array.newInstance(getRawType(), length);
+		System.arraycopy(array, 0, copy, 0, length);
+		this.array = copy;
+		return this;
+	}
+
+	public Type getComponentType() {
+		return component(getType());
+	}
+
+	public Class<?> getRawType() {
+		return baseType(getComponentType());
+	}
+
+	/**
+	 * @return the primitive array (e.g. an int[]), which should not be modified
+	 */
+	public Object getArray() {
+		return array;
+	}
+
+	public int getLength() {
+		return Array.getLength(array);
+	}
+
+	@Override
+	public List<SerializedValue> referencedValues() {
+		return emptyList();
+	}
+
+	@Override
+	public <T> T accept(Deserializer<T> visitor) {
+		return visitor.visitReferenceType(this);
+	}
+
+	@Override
+	public String toString() {
+		return accept(new ValuePrinter());
+	}
+
+}
@@ -0,0 +1,50 @@
+package net.amygdalum.testrecorder.values;
+
+import static java.util.Collections.emptyList;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import net.amygdalum.testrecorder.Deserializer;
+import net.amygdalum.testrecorder.SerializedReferenceType;
+import net.amygdalum.testrecorder.SerializedValue;
+import net.amygdalum.testrecorder.deserializers.ValuePrinter;
+
+/**
+ * SerializedTruncated marks an object that was not serialized because serializing it would exceed the
+ * {@link net.amygdalum.testrecorder.SerializationLimits} of the profile. The reason names the exceeded limit.
+ */
+public class SerializedTruncated extends AbstractSerializedReferenceType implements SerializedReferenceType {
+
+	private String reason;
+
+	public SerializedTruncated(Type type, String reason) {
+		super(type);
+		this.reason = reason;
+	}
+
+	public SerializedTruncated withResult(Type resultType) {
+		setResultType(resultType);
+		return this;
+	}
+
+	public String getReason() {
+		return reason;
+	}
+
+	@Override
+	public List<SerializedValue> referencedValues() {
+		return emptyList();
+	}
+
+	@Override
+	public <T> T accept(Deserializer<T> visitor) {
+		return visitor.visitReferenceType(this);
+	}
+
+	@Override
+	public String toString() {
+		return accept(new ValuePrinter());
+	}
+
+}
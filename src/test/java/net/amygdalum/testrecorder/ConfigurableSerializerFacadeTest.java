@@ -0,0 +1,216 @@
+package net.amygdalum.testrecorder;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.values.SerializedArray;
+import net.amygdalum.testrecorder.values.SerializedList;
+import net.amygdalum.testrecorder.values.SerializedLiteral;
+import net.amygdalum.testrecorder.values.SerializedNull;
+import net.amygdalum.testrecorder.values.SerializedObject;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
+
+public class ConfigurableSerializerFacadeTest {
+
+	@Test
+	public void testReleasedFacadeDoesNotLeakSerializedObjects() throws Exception {
+		List<String> list = new ArrayList<>(asList("a", "b"));
+		ConfigurableSerializerFacade released = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		SerializedValue first = released.serialize(List.class, list);
+		released.release();
+
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		SerializedValue second = facade.serialize(List.class, list);
+
+		assertThat(second, not(sameInstance(first)));
+		assertThat(facade.serialize(List.class, list), sameInstance(second));
+	}
+
+	@Test
+	public void testDeepLinkedStructure() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		Node root = chain(1_000_000);
+
+		SerializedValue current = facade.serialize(Node.class, root);
+
+		int count = 0;
+		while (current instanceof SerializedObject) {
+			SerializedObject node = (SerializedObject) current;
+			assertThat(((SerializedLiteral) node.getFields().get(0).getValue()).getValue(), equalTo(count));
+			current = node.getFields().get(1).getValue();
+			count++;
+		}
+		assertThat(current, instanceOf(SerializedNull.class));
+		assertThat(count, equalTo(1_000_000));
+	}
+
+	@Test
+	public void testDeepCycle() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		Node root = chain(10_000);
+		Node last = root;
+		while (last.next != null) {
+			last = last.next;
+		}
+		last.next = root;
+
+		SerializedValue serializedRoot = facade.serialize(Node.class, root);
+
+		SerializedValue current = serializedRoot;
+		for (int i = 0; i < 10_000; i++) {
+			current = ((SerializedObject) current).getFields().get(1).getValue();
+		}
+		assertThat(current, sameInstance(serializedRoot));
+	}
+
+	@Test
+	public void testDeepNestedLists() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		List<Object> root = new ArrayList<>();
+		List<Object> list = root;
+		for (int i = 0; i < 100_000; i++) {
+			List<Object> next = new ArrayList<>();
+			list.add(i);
+			list.add(next);
+			list = next;
+		}
+
+		SerializedValue current = facade.serialize(List.class, root);
+
+		int count = 0;
+		while (!((SerializedList) current).isEmpty()) {
+			SerializedList serializedList = (SerializedList) current;
+			assertThat(((SerializedLiteral) serializedList.get(0)).getValue(), equalTo(count));
+			current = serializedList.get(1);
+			count++;
+		}
+		assertThat(count, equalTo(100_000));
+	}
+
+	@Test
+	public void testMaxDepthBelowMaxNesting() throws Exception {
+		int maxDepth = ConfigurableSerializerFacade.MAX_NESTING * 3;
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new Limited(new SerializationLimits(maxDepth, Integer.MAX_VALUE, Integer.MAX_VALUE)));
+
+		SerializedValue current = facade.serialize(Node.class, chain(maxDepth * 2));
+
+		int count = 0;
+		while (current instanceof SerializedObject) {
+			current = ((SerializedObject) current).getFields().get(1).getValue();
+			count++;
+		}
+		assertThat(count, equalTo(maxDepth + 1));
+		assertThat(((SerializedTruncated) current).getReason(), equalTo("more than " + maxDepth + " references deep"));
+	}
+
+	@Test
+	public void testParallelListPreservesOrderAndIdentity() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		facade.setParallelThreshold(1000);
+		Node[] nodes = ring(100_000);
+		List<Node> list = new ArrayList<>(asList(nodes));
+		list.add(nodes[0]);
+
+		SerializedList serializedList = (SerializedList) facade.serialize(List.class, list);
+
+		assertThat(serializedList.size(), equalTo(100_001));
+		for (int i = 0; i < 100_000; i++) {
+			SerializedObject node = (SerializedObject) serializedList.get(i);
+			assertThat(((SerializedLiteral) node.getFields().get(0).getValue()).getValue(), equalTo(i));
+			assertThat(node.getFields().get(1).getValue(), sameInstance(serializedList.get((i + 1) % 100_000)));
+		}
+		assertThat(serializedList.get(100_000), sameInstance(serializedList.get(0)));
+		assertThat(facade.serialize(Node.class, nodes[4711]), sameInstance(serializedList.get(4711)));
+	}
+
+	@Test
+	public void testParallelArrayPreservesOrderAndIdentity() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		facade.setParallelThreshold(1000);
+		Node[] nodes = ring(100_000);
+
+		SerializedArray serializedArray = (SerializedArray) facade.serialize(Node[].class, nodes);
+
+		SerializedValue[] elements = serializedArray.getArray();
+		assertThat(elements.length, equalTo(100_000));
+		for (int i = 0; i < 100_000; i++) {
+			SerializedObject node = (SerializedObject) elements[i];
+			assertThat(((SerializedLiteral) node.getFields().get(0).getValue()).getValue(), equalTo(i));
+			assertThat(node.getFields().get(1).getValue(), sameInstance(elements[(i + 1) % 100_000]));
+		}
+	}
+
+	@Test
+	public void testParallelNestedLists() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		facade.setParallelThreshold(100);
+		Node[] nodes = ring(10_000);
+		List<List<Node>> lists = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			lists.add(new ArrayList<>(asList(nodes).subList(i * 10, i * 10 + 10)));
+			lists.add(new ArrayList<>(asList(nodes)));
+		}
+
+		SerializedList serializedLists = (SerializedList) facade.serialize(List.class, lists);
+
+		SerializedList all = (SerializedList) serializedLists.get(1);
+		for (int i = 0; i < 2000; i++) {
+			SerializedList serializedList = (SerializedList) serializedLists.get(i);
+			int offset = i % 2 == 0 ? i * 5 : 0;
+			for (int j = 0; j < serializedList.size(); j++) {
+				assertThat(serializedList.get(j), sameInstance(all.get(offset + j)));
+			}
+		}
+	}
+
+	private static Node[] ring(int length) {
+		Node[] nodes = new Node[length];
+		for (int i = length - 1; i >= 0; i--) {
+			nodes[i] = new Node(i, i < length - 1 ? nodes[i + 1] : null);
+		}
+		nodes[length - 1].next = nodes[0];
+		return nodes;
+	}
+
+	private static Node chain(int length) {
+		Node root = null;
+		for (int i = length - 1; i >= 0; i--) {
+			root = new Node(i, root);
+		}
+		return root;
+	}
+
+	public static class Node {
+		private int value;
+		private Node next;
+
+		public Node(int value, Node next) {
+			this.value = value;
+			this.next = next;
+		}
+	}
+
+	private static class Limited extends DefaultTestRecorderAgentConfig {
+
+		private SerializationLimits limits;
+
+		Limited(SerializationLimits limits) {
+			this.limits = limits;
+		}
+
+		@Override
+		public SerializationLimits getLimits() {
+			return limits;
+		}
+	}
+
+}
@@ -0,0 +1,240 @@
+package net.amygdalum.testrecorder;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.values.SerializedField;
+import net.amygdalum.testrecorder.values.SerializedLiteral;
+import net.amygdalum.testrecorder.values.SerializedObject;
+
+public class FingerprintsTest {
+
+	private DefaultTestRecorderAgentConfig profile;
+	private ConfigurableSerializerFacade facade;
+
+	@Before
+	public void before() throws Exception {
+		profile = new DefaultTestRecorderAgentConfig();
+		facade = new ConfigurableSerializerFacade(profile);
+	}
+
+	@Test
+	public void testUnchangedObjectIsReused() throws Exception {
+		Node node = new Node("root", new Node("child", null));
+		SerializedObject setup = (SerializedObject) facade.serialize(Node.class, node);
+		facade.fingerprint();
+		facade.reset();
+
+		SerializedObject expect = (SerializedObject) facade.serialize(Node.class, node);
+
+		assertThat(expect, not(sameInstance(setup)));
+		assertThat(next(expect), sameInstance(next(setup)));
+	}
+
+	@Test
+	public void testChangedObjectIsSerializedAgain() throws Exception {
+		Node child = new Node("child", null);
+		Node node = new Node("root", child);
+		SerializedObject setup = (SerializedObject) facade.serialize(Node.class, node);
+		facade.fingerprint();
+		facade.reset();
+
+		child.name = "changed";
+		SerializedObject expect = (SerializedObject) facade.serialize(Node.class, node);
+
+		assertThat(next(expect), not(sameInstance(next(setup))));
+	}
+
+	@Test
+	public void testObjectWithChangedSuccessorIsSerializedAgain() throws Exception {
+		Node grandChild = new Node("grandchild", null);
+		Node child = new Node("child", grandChild);
+		Node node = new Node("root", child);
+		SerializedObject setup = (SerializedObject) facade.serialize(Node.class, node);
+		facade.fingerprint();
+		facade.reset();
+
+		grandChild.name = "changed";
+		SerializedObject expect = (SerializedObject) facade.serialize(Node.class, node);
+
+		assertThat(next(expect), not(sameInstance(next(setup))));
+		assertThat(next(next(expect)), not(sameInstance(next(next(setup)))));
+	}
+
+	@Test
+	public void testCycleWithChangedMemberIsSerializedAgain() throws Exception {
+		Node first = new Node("first", null);
+		Node second = new Node("second", first);
+		first.next = second;
+		Holder holder = new Holder(second, first);
+		SerializedObject setup = (SerializedObject) facade.serialize(Holder.class, holder);
+		facade.fingerprint();
+		facade.reset();
+
+		first.name = "changed";
+		SerializedObject expect = (SerializedObject) facade.serialize(Holder.class, holder);
+
+		assertThat(expect.getFields().get(0).getValue(), not(sameInstance(setup.getFields().get(0).getValue())));
+		assertThat(expect.getFields().get(1).getValue(), not(sameInstance(setup.getFields().get(1).getValue())));
+	}
+
+	@Test
+	public void testUnchangedCycleIsReused() throws Exception {
+		Node first = new Node("first", null);
+		Node second = new Node("second", first);
+		first.next = second;
+		Holder holder = new Holder(first, second);
+		SerializedObject setup = (SerializedObject) facade.serialize(Holder.class, holder);
+		facade.fingerprint();
+		facade.reset();
+
+		SerializedObject expect = (SerializedObject) facade.serialize(Holder.class, holder);
+
+		assertThat(expect.getFields().get(0).getValue(), sameInstance(setup.getFields().get(0).getValue()));
+		assertThat(expect.getFields().get(1).getValue(), sameInstance(setup.getFields().get(1).getValue()));
+	}
+
+	@Test
+	public void testCollections() throws Exception {
+		List<String> list = new ArrayList<>(asList("a", "b"));
+		Map<String, Node> map = new HashMap<>();
+		map.put("a", new Node("a", null));
+		int[] array = new int[] { 1, 2 };
+		Fingerprints fingerprints = fingerprints(list, map, array);
+
+		assertThat(fingerprints.unchanged(list), not(nullValue()));
+		assertThat(fingerprints.unchanged(map), not(nullValue()));
+		assertThat(fingerprints.unchanged(array), not(nullValue()));
+
+		list.add("c");
+		map.get("a").name = "changed";
+		array[1] = 3;
+		fingerprints = fingerprints(list, map, array);
+		list.remove("c");
+		map.get("a").name = "a";
+		array[1] = 2;
+
+		assertThat(fingerprints.unchanged(list), nullValue());
+		assertThat(fingerprints.unchanged(map), nullValue());
+		assertThat(fingerprints.unchanged(array), nullValue());
+	}
+
+	@Test
+	public void testPrimitiveArraysAreComparedWithRecordedArray() throws Exception {
+		double[] changed = new double[] { 1.0, 2.0 };
+		boolean[] same = new boolean[] { true };
+		Fingerprints fingerprints = fingerprints(changed, same);
+
+		changed[1] = 3.0;
+
+		assertThat(fingerprints.unchanged(changed), nullValue());
+		assertThat(fingerprints.unchanged(same), not(nullValue()));
+	}
+
+	@Test
+	public void testLiteralsWithCollidingHashesAreChanges() throws Exception {
+		Node node = new Node("Aa", null);
+		Counter counter = new Counter(0L);
+		List<Object> list = new ArrayList<>(asList("Aa", 0L));
+		Fingerprints fingerprints = fingerprints(node, counter, list);
+
+		node.name = "BB";
+		counter.count = 0x1_0000_0001L;
+		list.set(0, "BB");
+		list.set(1, 0x1_0000_0001L);
+
+		assertThat(fingerprints.unchanged(node), nullValue());
+		assertThat(fingerprints.unchanged(counter), nullValue());
+		assertThat(fingerprints.unchanged(list), nullValue());
+	}
+
+	@Test
+	public void testEqualLiteralsAreUnchanged() throws Exception {
+		Node node = new Node(new String("name"), null);
+		Counter counter = new Counter(0x1_0000_0001L);
+		Fingerprints fingerprints = fingerprints(node, counter);
+
+		node.name = new String("name");
+
+		assertThat(fingerprints.unchanged(node), not(nullValue()));
+		assertThat(fingerprints.unchanged(counter), not(nullValue()));
+	}
+
+	@Test
+	public void testUnknownObject() throws Exception {
+		Fingerprints fingerprints = new Fingerprints(SerializableFields.forProfile(profile));
+
+		assertThat(fingerprints.unchanged(new Node("unknown", null)), nullValue());
+	}
+
+	private Fingerprints fingerprints(Object... objects) {
+		Map<Object, SerializedValue> serialized = new IdentityHashMap<>();
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(profile) {
+			@Override
+			public SerializedValue serialize(Type type, Object object) {
+				SerializedValue value = super.serialize(type, object);
+				if (object != null && !(value instanceof SerializedLiteral)) {
+					serialized.put(object, value);
+				}
+				return value;
+			}
+		};
+		for (Object object : objects) {
+			facade.serialize(object.getClass(), object);
+		}
+		Fingerprints fingerprints = new Fingerprints(SerializableFields.forProfile(profile));
+		fingerprints.record(serialized);
+		return fingerprints;
+	}
+
+	private static SerializedObject next(SerializedObject node) {
+		for (SerializedField field : node.getFields()) {
+			if (field.getName().equals("next")) {
+				return (SerializedObject) field.getValue();
+			}
+		}
+		return null;
+	}
+
+	public static class Node {
+		private String name;
+		private Node next;
+
+		public Node(String name, Node next) {
+			this.name = name;
+			this.next = next;
+		}
+	}
+
+	public static class Counter {
+		private long count;
+
+		public Counter(long count) {
+			this.count = count;
+		}
+	}
+
+	public static class Holder {
+		private Node left;
+		private Node right;
+
+		public Holder(Node left, Node right) {
+			this.left = left;
+			this.right = right;
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+package net.amygdalum.testrecorder;
+
+import static net.amygdalum.testrecorder.SerializerRegistryTest.collected;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.serializers.GeneratedSerializerFactory;
+
+public class GeneratedSerializersTest {
+
+	@Test
+	public void testForProfileIsShared() throws Exception {
+		SerializationProfile profile = new DefaultTestRecorderAgentConfig();
+
+		assertThat(GeneratedSerializers.forProfile(profile), sameInstance(GeneratedSerializers.forProfile(profile)));
+	}
+
+	@Test
+	public void testForProfileDoesNotRetainProfile() throws Exception {
+		SerializationProfile profile = new DefaultTestRecorderAgentConfig();
+		GeneratedSerializers.forProfile(profile);
+		WeakReference<SerializationProfile> reference = new WeakReference<>(profile);
+
+		profile = null;
+
+		assertThat(collected(reference), equalTo(true));
+	}
+
+	@Test
+	public void testLookupAfterThreshold() throws Exception {
+		GeneratedSerializers serializers = new GeneratedSerializers(SerializableFields.forProfile(new DefaultTestRecorderAgentConfig()));
+
+		assertThat(serializers.lookup(Node.class, 2), nullValue());
+		assertThat(serializers.lookup(Node.class, 2), nullValue());
+		SerializerFactory<SerializedReferenceType> factory = serializers.lookup(Node.class, 2);
+
+		assertThat(factory, instanceOf(GeneratedSerializerFactory.class));
+		assertThat(serializers.lookup(Node.class, 2), sameInstance(factory));
+	}
+
+	@Test
+	public void testLookupDisabled() throws Exception {
+		GeneratedSerializers serializers = new GeneratedSerializers(SerializableFields.forProfile(new DefaultTestRecorderAgentConfig()));
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(serializers.lookup(Node.class, -1), nullValue());
+		}
+	}
+
+	@Test
+	public void testLookupUnsupported() throws Exception {
+		GeneratedSerializers serializers = new GeneratedSerializers(new SerializableFields(field -> false, clazz -> false));
+
+		assertThat(serializers.lookup(WithStatic.class, 0), nullValue());
+		assertThat(serializers.lookup(WithStatic.class, 0), nullValue());
+	}
+
+	@Test
+	public void testGeneratedSerializationEqualsGenericSerialization() throws Exception {
+		Node node = new Node("root", 1, new Node("child", 2, null));
+		ConfigurableSerializerFacade generic = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		ConfigurableSerializerFacade generated = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		generated.setGenerationThreshold(0);
+
+		assertThat(withoutIds(generated.serialize(Node.class, node)), equalTo(withoutIds(generic.serialize(Node.class, node))));
+	}
+
+	private static String withoutIds(SerializedValue value) {
+		return value.toString().replaceAll("/\\d+", "");
+	}
+
+	@SuppressWarnings("unused")
+	private static class Node {
+		private String name;
+		private int value;
+		private Node next;
+
+		Node(String name, int value, Node next) {
+			this.name = name;
+			this.value = value;
+			this.next = next;
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static class WithStatic {
+		private static int counter;
+		private int value;
+	}
+
+}
@@ -0,0 +1,192 @@
+package net.amygdalum.testrecorder;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.V1_8;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassWriter;
+
+import net.amygdalum.testrecorder.InstrumentationCache.Hierarchy;
+
+public class InstrumentationCacheTest {
+
+	private static final Hierarchy HIERARCHY = new TestHierarchy("java/lang/Object");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testComputeIfAbsentCachesAcrossInstances() throws Exception {
+		Path dir = folder.getRoot().toPath();
+		AtomicInteger instrumentations = new AtomicInteger();
+
+		byte[] first = new InstrumentationCache(dir, new PackagesConfig("a")).computeIfAbsent(bytes("class"), HIERARCHY, hierarchy -> instrument(instrumentations));
+		byte[] second = new InstrumentationCache(dir, new PackagesConfig("a")).computeIfAbsent(bytes("class"), HIERARCHY, hierarchy -> instrument(instrumentations));
+
+		assertThat(first, equalTo(bytes("instrumented")));
+		assertThat(second, equalTo(bytes("instrumented")));
+		assertThat(instrumentations.get(), equalTo(1));
+	}
+
+	@Test
+	public void testComputeIfAbsentMissesOnChangedClass() throws Exception {
+		Path dir = folder.getRoot().toPath();
+		AtomicInteger instrumentations = new AtomicInteger();
+		InstrumentationCache cache = new InstrumentationCache(dir, new PackagesConfig("a"));
+
+		cache.computeIfAbsent(bytes("class"), HIERARCHY, hierarchy -> instrument(instrumentations));
+		cache.computeIfAbsent(bytes("changed class"), HIERARCHY, hierarchy -> instrument(instrumentations));
+
+		assertThat(instrumentations.get(), equalTo(2));
+	}
+
+	@Test
+	public void testComputeIfAbsentMissesOnChangedConfig() throws Exception {
+		Path dir = folder.getRoot().toPath();
+		AtomicInteger instrumentations = new AtomicInteger();
+
+		new InstrumentationCache(dir, new PackagesConfig("a")).computeIfAbsent(bytes("class"), HIERARCHY, hierarchy -> instrument(instrumentations));
+		new InstrumentationCache(dir, new PackagesConfig("b")).computeIfAbsent(bytes("class"), HIERARCHY, hierarchy -> instrument(instrumentations));
+
+		assertThat(instrumentations.get(), equalTo(2));
+	}
+
+	@Test
+	public void testComputeIfAbsentHitsOnUnchangedHierarchy() throws Exception {
+		Path dir = folder.getRoot().toPath();
+		AtomicInteger instrumentations = new AtomicInteger();
+
+		new InstrumentationCache(dir, new PackagesConfig("a")).computeIfAbsent(bytes("class"), new TestHierarchy("a/A"), hierarchy -> instrumentFrames(hierarchy, instrumentations));
+		byte[] cached = new InstrumentationCache(dir, new PackagesConfig("a")).computeIfAbsent(bytes("class"), new TestHierarchy("a/A"), hierarchy -> instrumentFrames(hierarchy, instrumentations));
+
+		assertThat(cached, equalTo(bytes("instrumented with a/A")));
+		assertThat(instrumentations.get(), equalTo(1));
+	}
+
+	@Test
+	public void testComputeIfAbsentHitLoadsNoDependencies() throws Exception {
+		Path dir = folder.getRoot().toPath();
+		AtomicInteger instrumentations = new AtomicInteger();
+		TestHierarchy recorded = new TestHierarchy("a/A");
+		TestHierarchy validated = new TestHierarchy("a/A");
+
+		new InstrumentationCache(dir, new PackagesConfig("a")).computeIfAbsent(bytes("class"), recorded, hierarchy -> instrumentFrames(hierarchy, instrumentations));
+		new InstrumentationCache(dir, new PackagesConfig("a")).computeIfAbsent(bytes("class"), validated, hierarchy -> instrumentFrames(hierarchy, instrumentations));
+
+		assertThat(recorded.resolutions, equalTo(1));
+		assertThat(validated.resolutions, equalTo(0));
+		assertThat(instrumentations.get(), equalTo(1));
+	}
+
+	@Test
+	public void testComputeIfAbsentMissesOnChangedHierarchy() throws Exception {
+		Path dir = folder.getRoot().toPath();
+		AtomicInteger instrumentations = new AtomicInteger();
+
+		new InstrumentationCache(dir, new PackagesConfig("a")).computeIfAbsent(bytes("class"), new TestHierarchy("a/A"), hierarchy -> instrumentFrames(hierarchy, instrumentations));
+		byte[] changed = new InstrumentationCache(dir, new PackagesConfig("a")).computeIfAbsent(bytes("class"), new TestHierarchy("java/lang/Object"), hierarchy -> instrumentFrames(hierarchy, instrumentations));
+
+		assertThat(changed, equalTo(bytes("instrumented with java/lang/Object")));
+		assertThat(instrumentations.get(), equalTo(2));
+	}
+
+	@Test
+	public void testComputeIfAbsentMissesOnChangedSuperClass() throws Exception {
+		Path dir = folder.getRoot().toPath();
+		AtomicInteger instrumentations = new AtomicInteger();
+		TestHierarchy changed = new TestHierarchy("a/A");
+		changed.classfiles.put("a/A", classfile("a/A", "a/Base"));
+
+		new InstrumentationCache(dir, new PackagesConfig("a")).computeIfAbsent(bytes("class"), new TestHierarchy("a/A"), hierarchy -> instrumentFrames(hierarchy, instrumentations));
+		new InstrumentationCache(dir, new PackagesConfig("a")).computeIfAbsent(bytes("class"), changed, hierarchy -> instrumentFrames(hierarchy, instrumentations));
+
+		assertThat(instrumentations.get(), equalTo(2));
+	}
+
+	@Test
+	public void testComputeIfAbsentWithUnwritableDirectory() throws Exception {
+		Path file = folder.newFile().toPath();
+		AtomicInteger instrumentations = new AtomicInteger();
+		InstrumentationCache cache = new InstrumentationCache(file, new PackagesConfig("a"));
+
+		assertThat(cache.computeIfAbsent(bytes("class"), HIERARCHY, hierarchy -> instrument(instrumentations)), equalTo(bytes("instrumented")));
+		assertThat(cache.computeIfAbsent(bytes("class"), HIERARCHY, hierarchy -> instrument(instrumentations)), equalTo(bytes("instrumented")));
+		assertThat(instrumentations.get(), equalTo(2));
+	}
+
+	private static byte[] instrument(AtomicInteger instrumentations) {
+		instrumentations.incrementAndGet();
+		return bytes("instrumented");
+	}
+
+	private static byte[] instrumentFrames(Hierarchy hierarchy, AtomicInteger instrumentations) {
+		instrumentations.incrementAndGet();
+		return bytes("instrumented with " + hierarchy.getCommonSuperClass("a/B", "a/C"));
+	}
+
+	private static byte[] classfile(String name, String superName) {
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(V1_8, ACC_PUBLIC, name, null, superName, null);
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static byte[] bytes(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static class TestHierarchy implements Hierarchy {
+
+		private String commonSuperClass;
+		private Map<String, byte[]> classfiles;
+		private int resolutions;
+
+		public TestHierarchy(String commonSuperClass) {
+			this.commonSuperClass = commonSuperClass;
+			this.classfiles = new HashMap<>();
+			classfiles.put("a/A", classfile("a/A", "java/lang/Object"));
+			classfiles.put("a/B", classfile("a/B", commonSuperClass));
+			classfiles.put("a/C", classfile("a/C", commonSuperClass));
+		}
+
+		@Override
+		public String getCommonSuperClass(String type1, String type2) {
+			resolutions++;
+			return commonSuperClass;
+		}
+
+		@Override
+		public byte[] getClassFile(String type) {
+			return classfiles.get(type);
+		}
+
+	}
+
+	private static class PackagesConfig extends DefaultTestRecorderAgentConfig {
+
+		private List<String> packages;
+
+		public PackagesConfig(String... packages) {
+			this.packages = asList(packages);
+		}
+
+		@Override
+		public List<String> getPackages() {
+			return packages;
+		}
+
+	}
+
+}
@@ -0,0 +1,47 @@
+package net.amygdalum.testrecorder;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static java.lang.invoke.MethodType.methodType;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.lang.invoke.MethodHandle;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RecordingSwitchTest {
+
+	@After
+	public void after() throws Exception {
+		RecordingSwitch.RECORDING.enable();
+	}
+
+	@Test
+	public void testEnabledByDefault() throws Exception {
+		assertThat(RecordingSwitch.RECORDING.isEnabled(), is(true));
+	}
+
+	@Test
+	public void testDisableEnable() throws Exception {
+		RecordingSwitch.RECORDING.disable();
+
+		assertThat(RecordingSwitch.RECORDING.isEnabled(), is(false));
+
+		RecordingSwitch.RECORDING.enable();
+
+		assertThat(RecordingSwitch.RECORDING.isEnabled(), is(true));
+	}
+
+	@Test
+	public void testBootstrap() throws Throwable {
+		MethodHandle enabled = RecordingSwitch.bootstrap(lookup(), "RECORDING", methodType(boolean.class)).dynamicInvoker();
+
+		assertThat((boolean) enabled.invokeExact(), is(true));
+
+		RecordingSwitch.RECORDING.disable();
+
+		assertThat((boolean) enabled.invokeExact(), is(false));
+	}
+
+}
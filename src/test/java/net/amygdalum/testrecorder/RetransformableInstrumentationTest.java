@@ -0,0 +1,143 @@
+package net.amygdalum.testrecorder;
+
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+import net.amygdalum.testrecorder.values.SerializedLiteral;
+
+public class RetransformableInstrumentationTest {
+
+	@Test
+	public void testKeepsSchema() throws Exception {
+		Class<?> instrumented = new RetransformingClassLoader(new CollectingConfig(), Calculator.class).loadClass(Calculator.class.getName());
+
+		assertThat(members(instrumented.getDeclaredFields()), equalTo(members(Calculator.class.getDeclaredFields())));
+		assertThat(members(instrumented.getDeclaredMethods()), equalTo(members(Calculator.class.getDeclaredMethods())));
+	}
+
+	@Test
+	public void testRecords() throws Exception {
+		CollectingConfig config = new CollectingConfig();
+		Class<?> instrumented = new RetransformingClassLoader(config, Calculator.class).loadClass(Calculator.class.getName());
+		Object calculator = instrumented.newInstance();
+		Method twice = instrumented.getDeclaredMethod("twice", long.class, double.class);
+
+		twice.invoke(calculator, 2L, 0.5);
+		twice.invoke(calculator, 3L, 0.5);
+
+		assertThat(config.args, contains(2L, 3L));
+	}
+
+	@Test
+	public void testSamples() throws Exception {
+		CollectingConfig config = new CollectingConfig();
+		Class<?> instrumented = new RetransformingClassLoader(config, Calculator.class).loadClass(Calculator.class.getName());
+		Object calculator = instrumented.newInstance();
+		Method sampled = instrumented.getDeclaredMethod("sampled", int.class);
+
+		for (int i = 0; i < 4; i++) {
+			sampled.invoke(calculator, i);
+		}
+
+		assertThat(config.args, contains(0, 2));
+	}
+
+	private static Set<String> members(Member[] members) {
+		return Stream.of(members)
+			.map(member -> member instanceof Field ? member.getName() : member.getName() + Arrays.toString(((Method) member).getParameterTypes()))
+			.collect(toSet());
+	}
+
+	public static class Calculator {
+
+		private long calls;
+
+		@Snapshot
+		public double twice(long x, double factor) {
+			calls++;
+			return 2 * x * factor;
+		}
+
+		@Snapshot(sample = 2)
+		public int sampled(int x) {
+			calls++;
+			return x;
+		}
+
+	}
+
+	private static class RetransformingClassLoader extends ClassLoader {
+
+		private SnapshotInstrumentor instrumentor;
+		private String name;
+
+		RetransformingClassLoader(TestRecorderAgentConfig config, Class<?> clazz) {
+			super(clazz.getClassLoader());
+			this.instrumentor = new SnapshotInstrumentor(config, true);
+			this.name = clazz.getName();
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (!this.name.equals(name)) {
+				return super.loadClass(name, resolve);
+			}
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> clazz = findLoadedClass(name);
+				if (clazz == null) {
+					try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+						byte[] bytes = instrumentor.instrument(new ClassReader(in), this);
+						clazz = defineClass(name, bytes, 0, bytes.length);
+					} catch (IOException e) {
+						throw new ClassNotFoundException(name, e);
+					}
+				}
+				return clazz;
+			}
+		}
+
+	}
+
+	private static class CollectingConfig extends DefaultTestRecorderAgentConfig {
+
+		private List<Object> args = new ArrayList<>();
+
+		@Override
+		public SnapshotConsumer getSnapshotConsumer() {
+			return new SnapshotConsumer() {
+
+				@Override
+				public void accept(ContextSnapshot snapshot) {
+					args.add(((SerializedLiteral) snapshot.getSetupArgs()[0]).getValue());
+				}
+
+				@Override
+				public void close() {
+				}
+			};
+		}
+
+		@Override
+		public int getSnapshotThreads() {
+			return 0;
+		}
+
+	}
+
+}
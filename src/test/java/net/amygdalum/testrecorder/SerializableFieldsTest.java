@@ -0,0 +1,80 @@
+package net.amygdalum.testrecorder;
+
+import static net.amygdalum.testrecorder.SerializerRegistryTest.collected;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class SerializableFieldsTest {
+
+	@Test
+	public void testForProfileIsShared() throws Exception {
+		SerializationProfile profile = new DefaultTestRecorderAgentConfig();
+
+		assertThat(SerializableFields.forProfile(profile), sameInstance(SerializableFields.forProfile(profile)));
+		assertThat(SerializableFields.forProfile(profile).get(Sub.class), sameInstance(SerializableFields.forProfile(profile).get(Sub.class)));
+	}
+
+	@Test
+	public void testForProfileDoesNotRetainProfile() throws Exception {
+		SerializationProfile profile = new DefaultTestRecorderAgentConfig();
+		SerializableFields.forProfile(profile);
+		WeakReference<SerializationProfile> reference = new WeakReference<>(profile);
+
+		profile = null;
+
+		assertThat(collected(reference), equalTo(true));
+	}
+
+	@Test
+	public void testGet() throws Exception {
+		SerializableFields fields = SerializableFields.forProfile(new DefaultTestRecorderAgentConfig());
+
+		assertThat(names(fields.get(Sub.class)), contains("subField", "superField"));
+	}
+
+	@Test
+	public void testGetReturnsAccessibleFields() throws Exception {
+		SerializableFields fields = SerializableFields.forProfile(new DefaultTestRecorderAgentConfig());
+
+		for (Field field : fields.get(Sub.class)) {
+			assertThat(field.isAccessible(), equalTo(true));
+		}
+	}
+
+	@Test
+	public void testGetStopsAtExcludedClasses() throws Exception {
+		SerializableFields fields = new SerializableFields(field -> false, clazz -> clazz == Super.class);
+
+		assertThat(names(fields.get(Sub.class)), contains("staticField", "subField"));
+	}
+
+	private static List<String> names(Field[] fields) {
+		return Stream.of(fields)
+			.map(Field::getName)
+			.collect(toList());
+	}
+
+	@SuppressWarnings("unused")
+	private static class Super {
+		private String superField;
+	}
+
+	@SuppressWarnings("unused")
+	private static class Sub extends Super {
+		private static int staticField;
+		private String subField;
+		@SnapshotExcluded
+		private String excludedField;
+	}
+
+}
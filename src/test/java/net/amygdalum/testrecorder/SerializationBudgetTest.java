@@ -0,0 +1,40 @@
+package net.amygdalum.testrecorder;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class SerializationBudgetTest {
+
+	@Test
+	public void testVisitWithinBudget() throws Exception {
+		SerializationBudget budget = new SerializationBudget(3, Long.MAX_VALUE);
+
+		budget.visit();
+		budget.visit();
+		budget.visit();
+
+		assertThat(budget.getObjects(), equalTo(3L));
+	}
+
+	@Test(expected = SerializationBudgetExceededException.class)
+	public void testVisitExceedingObjects() throws Exception {
+		SerializationBudget budget = new SerializationBudget(2, Long.MAX_VALUE);
+
+		budget.visit();
+		budget.visit();
+		budget.visit();
+	}
+
+	@Test(expected = SerializationBudgetExceededException.class)
+	public void testVisitExceedingTime() throws Exception {
+		SerializationBudget budget = new SerializationBudget(Long.MAX_VALUE, 0);
+		Thread.sleep(1);
+
+		for (int i = 0; i < 1000; i++) {
+			budget.visit();
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+package net.amygdalum.testrecorder;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.values.SerializedList;
+import net.amygdalum.testrecorder.values.SerializedObject;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
+
+public class SerializationLimitsTest {
+
+	@Test
+	public void testUnlimited() throws Exception {
+		SerializationLimits limits = SerializationLimits.unlimited();
+
+		assertThat(limits.getMaxDepth(), equalTo(SerializationLimits.UNLIMITED));
+		assertThat(limits.getMaxElements(), equalTo(SerializationLimits.UNLIMITED));
+		assertThat(limits.getMaxObjects(), equalTo(SerializationLimits.UNLIMITED));
+	}
+
+	@Test
+	public void testDefaultingProfile() throws Exception {
+		SerializationLimits limits = new SerializationLimits(1, 2, 3);
+
+		assertThat(new DefaultingSerializationProfile(new Limited(null), new Limited(limits)).getLimits(), equalTo(limits));
+		assertThat(new DefaultingSerializationProfile(new Limited(limits), new Limited(null)).getLimits(), equalTo(limits));
+	}
+
+	@Test
+	public void testProfileWithoutLimits() throws Exception {
+		SerializationProfile profile = new SerializationProfile() {
+
+			@Override
+			public List<Predicate<Field>> getFieldExclusions() {
+				return emptyList();
+			}
+
+			@Override
+			public List<Predicate<Class<?>>> getClassExclusions() {
+				return emptyList();
+			}
+
+			@Override
+			public List<Field> getGlobalFields() {
+				return emptyList();
+			}
+		};
+
+		assertThat(profile.getLimits(), nullValue());
+		assertThat(new DefaultingSerializationProfile(profile, new DefaultTestRecorderAgentConfig()).getLimits(), sameInstance(DefaultTestRecorderAgentConfig.DEFAULT_LIMITS));
+		assertThat(new ConfigurableSerializerFacade(profile).serialize(List.class, asList("a", "b")), instanceOf(SerializedList.class));
+	}
+
+	@Test
+	public void testMaxDepth() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new Limited(new SerializationLimits(1, Integer.MAX_VALUE, Integer.MAX_VALUE)));
+
+		SerializedObject root = (SerializedObject) facade.serialize(Node.class, new Node(new Node(new Node(null))));
+
+		SerializedObject child = (SerializedObject) root.getFields().get(0).getValue();
+		SerializedTruncated grandChild = (SerializedTruncated) child.getFields().get(0).getValue();
+		assertThat(grandChild.getType(), equalTo(Node.class));
+		assertThat(grandChild.getReason(), equalTo("more than 1 references deep"));
+	}
+
+	@Test
+	public void testMaxElements() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new Limited(new SerializationLimits(Integer.MAX_VALUE, 2, Integer.MAX_VALUE)));
+
+		SerializedValue small = facade.serialize(List.class, new ArrayList<>(asList("a", "b")));
+		SerializedValue large = facade.serialize(List.class, new ArrayList<>(asList("a", "b", "c")));
+		SerializedValue array = facade.serialize(int[].class, new int[3]);
+
+		assertThat(small, instanceOf(SerializedList.class));
+		assertThat(((SerializedTruncated) large).getReason(), equalTo("more than 2 elements"));
+		assertThat(large.getType(), equalTo(ArrayList.class));
+		assertThat(large.getResultType(), equalTo(List.class));
+		assertThat(((SerializedTruncated) array).getReason(), equalTo("more than 2 elements"));
+	}
+
+	@Test
+	public void testMaxObjects() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new Limited(new SerializationLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, 2)));
+		Node shared = new Node(null);
+
+		SerializedValue first = facade.serialize(Node.class, shared);
+		SerializedValue second = facade.serialize(Node.class, new Node(null));
+		SerializedValue third = facade.serialize(Node.class, new Node(null));
+
+		assertThat(first, instanceOf(SerializedObject.class));
+		assertThat(second, instanceOf(SerializedObject.class));
+		assertThat(((SerializedTruncated) third).getReason(), equalTo("more than 2 objects"));
+		assertThat(facade.serialize(Node.class, shared), equalTo(first));
+	}
+
+	@Test
+	public void testMaxObjectsAfterReset() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new Limited(new SerializationLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, 1)));
+
+		facade.serialize(Node.class, new Node(null));
+		facade.reset();
+
+		assertThat(facade.serialize(Node.class, new Node(null)), not(instanceOf(SerializedTruncated.class)));
+	}
+
+	@Test
+	public void testTruncatedToString() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new Limited(new SerializationLimits(0, Integer.MAX_VALUE, Integer.MAX_VALUE)));
+
+		SerializedObject root = (SerializedObject) facade.serialize(Node.class, new Node(new Node(null)));
+
+		assertThat(root.getFields().get(0).getValue(), instanceOf(SerializedTruncated.class));
+		assertThat(root.toString(), containsString("next: <truncated: more than 0 references deep>"));
+	}
+
+	public static class Node {
+		private Node next;
+
+		public Node(Node next) {
+			this.next = next;
+		}
+	}
+
+	private static class Limited extends DefaultTestRecorderAgentConfig {
+
+		private SerializationLimits limits;
+
+		Limited(SerializationLimits limits) {
+			this.limits = limits;
+		}
+
+		@Override
+		public SerializationLimits getLimits() {
+			return limits;
+		}
+	}
+
+}
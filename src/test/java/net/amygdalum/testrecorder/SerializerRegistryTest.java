@@ -0,0 +1,186 @@
+package net.amygdalum.testrecorder;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.serializers.ArraySerializer;
+import net.amygdalum.testrecorder.serializers.BigDecimalSerializer;
+import net.amygdalum.testrecorder.serializers.DefaultListSerializer;
+import net.amygdalum.testrecorder.serializers.DefaultSetSerializer;
+import net.amygdalum.testrecorder.serializers.EnumSerializer;
+import net.amygdalum.testrecorder.serializers.PrimitiveArraySerializer;
+
+public class SerializerRegistryTest {
+
+	@Test
+	public void testLookup() throws Exception {
+		SerializerRegistry registry = SerializerRegistry.load(getClass().getClassLoader(), new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig()));
+
+		assertThat(registry.lookup(ArrayList.class), instanceOf(DefaultListSerializer.Factory.class));
+		assertThat(registry.lookup(BigDecimal.class), instanceOf(BigDecimalSerializer.Factory.class));
+		assertThat(registry.lookup(Object.class), nullValue());
+	}
+
+	@Test
+	public void testForClassLoaderIsShared() throws Exception {
+		ClassLoader loader = getClass().getClassLoader();
+		SerializerFacade facade = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+
+		assertThat(SerializerRegistry.forClassLoader(loader, facade), sameInstance(SerializerRegistry.forClassLoader(loader, facade)));
+	}
+
+	@Test
+	public void testForClassLoaderDoesNotRetainLoader() throws Exception {
+		SerializerFacade facade = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		ClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+		SerializerRegistry.forClassLoader(loader, facade);
+		WeakReference<ClassLoader> reference = new WeakReference<>(loader);
+
+		loader = null;
+
+		assertThat(collected(reference), equalTo(true));
+	}
+
+	static boolean collected(WeakReference<?> reference) throws InterruptedException {
+		for (int i = 0; i < 20 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		return reference.get() == null;
+	}
+
+	@Test
+	public void testResolve() throws Exception {
+		SerializerRegistry registry = SerializerRegistry.load(getClass().getClassLoader(), new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig()));
+
+		assertThat(registry.resolve(ArrayList.class), instanceOf(DefaultListSerializer.Factory.class));
+		assertThat(registry.resolve(int[].class), instanceOf(PrimitiveArraySerializer.Factory.class));
+		assertThat(registry.resolve(String[][].class), instanceOf(ArraySerializer.Factory.class));
+		assertThat(registry.resolve(Simple.class), instanceOf(EnumSerializer.Factory.class));
+		assertThat(registry.resolve(Complex.CONSTANT.getClass()), instanceOf(EnumSerializer.Factory.class));
+		assertThat(registry.resolve(Object.class), nullValue());
+		assertThat(registry.resolve(CustomList.class), nullValue());
+	}
+
+	@Test
+	public void testResolveIsCached() throws Exception {
+		SerializerRegistry registry = SerializerRegistry.load(getClass().getClassLoader(), new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig()));
+
+		assertThat(registry.resolve(int[].class), sameInstance(registry.resolve(int[].class)));
+		assertThat(registry.resolve(ArrayList.class), sameInstance(registry.resolve(ArrayList.class)));
+	}
+
+	@Test
+	public void testResolveHonorsSubclassMappings() throws Exception {
+		Map<Class<?>, SerializerFactory<?>> factories = new IdentityHashMap<>();
+		DefaultListSerializer.Factory listFactory = new DefaultListSerializer.Factory();
+		DefaultSetSerializer.Factory customFactory = new DefaultSetSerializer.Factory();
+		factories.put(ArrayList.class, listFactory);
+		factories.put(CustomList.class, customFactory);
+		SerializerRegistry registry = new SerializerRegistry(factories);
+
+		assertThat(registry.resolve(ArrayList.class), sameInstance(listFactory));
+		assertThat(registry.resolve(CustomList.class), sameInstance(customFactory));
+	}
+
+	@Test
+	public void testResolveDoesNotRetainFactoryLoader() throws Exception {
+		ClassLoader loader = new IsolatingClassLoader(getClass().getClassLoader(), IsolatedFactory.class.getName());
+		SerializerFactory<?> factory = (SerializerFactory<?>) loader.loadClass(IsolatedFactory.class.getName()).newInstance();
+		Map<Class<?>, SerializerFactory<?>> factories = new IdentityHashMap<>();
+		factories.put(BitSet.class, factory);
+		SerializerRegistry registry = new SerializerRegistry(factories);
+		assertThat(registry.resolve(BitSet.class), sameInstance(factory));
+		WeakReference<ClassLoader> reference = new WeakReference<>(loader);
+
+		loader = null;
+		factory = null;
+		factories = null;
+		registry = null;
+
+		assertThat(collected(reference), equalTo(true));
+	}
+
+	public static class IsolatedFactory implements SerializerFactory<SerializedValue> {
+
+		@Override
+		public Serializer<SerializedValue> newSerializer(SerializerFacade facade) {
+			return null;
+		}
+
+	}
+
+	/**
+	 * defines its own copy of the isolated class, all other classes are loaded by the parent
+	 */
+	private static class IsolatingClassLoader extends ClassLoader {
+
+		private String isolated;
+
+		IsolatingClassLoader(ClassLoader parent, String isolated) {
+			super(parent);
+			this.isolated = isolated;
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (!name.equals(isolated)) {
+				return super.loadClass(name, resolve);
+			}
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> clazz = findLoadedClass(name);
+				if (clazz == null) {
+					try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+						ByteArrayOutputStream out = new ByteArrayOutputStream();
+						byte[] buffer = new byte[4096];
+						int len;
+						while ((len = in.read(buffer)) >= 0) {
+							out.write(buffer, 0, len);
+						}
+						byte[] bytes = out.toByteArray();
+						clazz = defineClass(name, bytes, 0, bytes.length);
+					} catch (IOException e) {
+						throw new ClassNotFoundException(name, e);
+					}
+				}
+				return clazz;
+			}
+		}
+
+	}
+
+	@SuppressWarnings("serial")
+	public static class CustomList extends ArrayList<String> {
+	}
+
+	public static enum Simple {
+		CONSTANT;
+	}
+
+	public static enum Complex {
+		CONSTANT {
+			@Override
+			public String toString() {
+				return "complex";
+			}
+		};
+	}
+
+}
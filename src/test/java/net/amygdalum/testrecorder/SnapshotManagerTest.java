@@ -0,0 +1,205 @@
+package net.amygdalum.testrecorder;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.synchronizedList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.values.SerializedLiteral;
+
+public class SnapshotManagerTest {
+
+	@Test
+	public void testRegisterReturnsDenseIds() throws Throwable {
+		SnapshotManager manager = new SnapshotManager(new StripedConfig(new CollectingConsumer(), 1));
+
+		for (int i = 0; i < 40; i++) {
+			assertThat(manager.register(Counter.class.getDeclaredMethod("inc", int.class)), equalTo(i));
+		}
+		manager.close();
+	}
+
+	@Test
+	public void testStripedSnapshotsPreservePerThreadOrder() throws Throwable {
+		CollectingConsumer consumer = new CollectingConsumer();
+		SnapshotManager manager = new SnapshotManager(new StripedConfig(consumer, 4));
+		int inc = manager.register(Counter.class.getDeclaredMethod("inc", int.class));
+
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			threads.add(new Thread(() -> {
+				Counter counter = new Counter();
+				for (int i = 0; i < 20; i++) {
+					manager.setupVariables(counter, inc, i);
+					int result = counter.inc(i);
+					manager.expectVariables(counter, (Object) result, new Object[] { i });
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		manager.close();
+
+		assertThat(consumer.snapshots.keySet(), hasSize(8));
+		for (List<Object> args : consumer.snapshots.values()) {
+			assertThat(args, contains(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19));
+		}
+	}
+
+	@Test
+	public void testInThreadSnapshots() throws Throwable {
+		CollectingConsumer consumer = new CollectingConsumer();
+		SnapshotManager manager = new SnapshotManager(new StripedConfig(consumer, 0));
+		int inc = manager.register(Counter.class.getDeclaredMethod("inc", int.class));
+
+		Counter counter = new Counter();
+		manager.setupVariables(counter, inc, 1);
+		int result = counter.inc(1);
+		manager.expectVariables(counter, (Object) result, new Object[] { 1 });
+		manager.close();
+
+		assertThat(consumer.snapshots.get(Thread.currentThread()), contains(1));
+	}
+
+	@Test
+	public void testSnapshotsExceedingBudgetAreDropped() throws Throwable {
+		CollectingConsumer consumer = new CollectingConsumer();
+		SnapshotManager manager = new SnapshotManager(new StripedConfig(consumer, 0) {
+			@Override
+			public long getMaxSnapshotObjects() {
+				return 2;
+			}
+		});
+		int inc = manager.register(Counter.class.getDeclaredMethod("inc", int.class));
+
+		Counter counter = new Counter();
+		counter.next = new Counter();
+		counter.next.next = new Counter();
+		manager.setupVariables(counter, inc, 1);
+		int result = counter.inc(1);
+		manager.expectVariables(counter, (Object) result, new Object[] { 1 });
+		manager.close();
+
+		assertThat(consumer.snapshots.keySet(), empty());
+	}
+
+	@Test
+	public void testInThreadSnapshotsFailingToSerializeAreDropped() throws Throwable {
+		CollectingConsumer consumer = new CollectingConsumer();
+		SnapshotManager manager = new SnapshotManager(new StripedConfig(consumer, 0) {
+			@Override
+			public List<Predicate<Field>> getFieldExclusions() {
+				return asList(field -> {
+					throw new IllegalStateException();
+				});
+			}
+		});
+		int inc = manager.register(Counter.class.getDeclaredMethod("inc", int.class));
+
+		Counter counter = new Counter();
+		manager.setupVariables(counter, inc, 1);
+		int result = counter.inc(1);
+		manager.expectVariables(counter, (Object) result, new Object[] { 1 });
+		manager.close();
+
+		assertThat(consumer.snapshots.keySet(), empty());
+	}
+
+	@Test
+	public void testCollectedPrimitiveValues() throws Throwable {
+		CollectingConsumer consumer = new CollectingConsumer();
+		SnapshotManager manager = new SnapshotManager(new StripedConfig(consumer, 0));
+		int inc = manager.register(Counter.class.getDeclaredMethod("inc", int.class));
+
+		Counter counter = new Counter();
+		manager.push(inc).value(2).setupVariables(counter);
+		int result = counter.inc(2);
+		manager.expectVariables(manager.pop().value(2).value(result), counter);
+		manager.close();
+
+		assertThat(consumer.snapshots.get(Thread.currentThread()), contains(2));
+		assertThat(consumer.results, contains(2));
+	}
+
+	@Test
+	public void testIsActive() throws Throwable {
+		SnapshotManager manager = new SnapshotManager(new StripedConfig(new CollectingConsumer(), 0));
+		int inc = manager.register(Counter.class.getDeclaredMethod("inc", int.class));
+
+		assertThat(manager.isActive(), equalTo(false));
+		manager.push(inc);
+		assertThat(manager.isActive(), equalTo(true));
+		manager.pop();
+		assertThat(manager.isActive(), equalTo(false));
+		manager.close();
+	}
+
+	public static class Counter {
+		private Counter next;
+		private int value;
+
+		public int inc(int delta) {
+			value += delta;
+			return value;
+		}
+	}
+
+	private static class CollectingConsumer implements SnapshotConsumer {
+
+		private Map<Thread, List<Object>> snapshots = new ConcurrentHashMap<>();
+		private List<Object> results = synchronizedList(new ArrayList<>());
+
+		@Override
+		public void accept(ContextSnapshot snapshot) {
+			Object arg = ((SerializedLiteral) snapshot.getSetupArgs()[0]).getValue();
+			snapshots.computeIfAbsent(Thread.currentThread(), key -> new ArrayList<>()).add(arg);
+			if (snapshot.getExpectResult() != null) {
+				results.add(((SerializedLiteral) snapshot.getExpectResult()).getValue());
+			}
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+	private static class StripedConfig extends DefaultTestRecorderAgentConfig {
+
+		private SnapshotConsumer consumer;
+		private int threads;
+
+		public StripedConfig(SnapshotConsumer consumer, int threads) {
+			this.consumer = consumer;
+			this.threads = threads;
+		}
+
+		@Override
+		public SnapshotConsumer getSnapshotConsumer() {
+			return consumer;
+		}
+
+		@Override
+		public int getSnapshotThreads() {
+			return threads;
+		}
+
+	}
+
+}
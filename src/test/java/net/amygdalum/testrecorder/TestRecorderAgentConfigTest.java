@@ -0,0 +1,83 @@
+package net.amygdalum.testrecorder;
+
+import static java.util.Collections.emptyList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+public class TestRecorderAgentConfigTest {
+
+	@Test
+	public void testDefaultSnapshotThreads() throws Exception {
+		assertThat(new MinimalConfig().getSnapshotThreads(), equalTo(1));
+	}
+
+	@Test
+	public void testDefaultMaxSnapshotObjects() throws Exception {
+		assertThat(new MinimalConfig().getMaxSnapshotObjects(), equalTo(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testDefaultSerializerGenerationThreshold() throws Exception {
+		assertThat(new MinimalConfig().getSerializerGenerationThreshold(), equalTo(-1));
+	}
+
+	@Test
+	public void testDefaultParallelSerializationThreshold() throws Exception {
+		assertThat(new MinimalConfig().getParallelSerializationThreshold(), equalTo(-1));
+	}
+
+	@Test
+	public void testDefaultInstrumentationCache() throws Exception {
+		assertThat(new MinimalConfig().getInstrumentationCache(), nullValue());
+	}
+
+	/**
+	 * implements only the methods a config had to implement before the optional settings were added
+	 */
+	private static class MinimalConfig implements TestRecorderAgentConfig {
+
+		@Override
+		public List<Predicate<Field>> getFieldExclusions() {
+			return emptyList();
+		}
+
+		@Override
+		public List<Predicate<Class<?>>> getClassExclusions() {
+			return emptyList();
+		}
+
+		@Override
+		public List<Field> getGlobalFields() {
+			return emptyList();
+		}
+
+		@Override
+		public SnapshotConsumer getSnapshotConsumer() {
+			return null;
+		}
+
+		@Override
+		public long getTimeoutInMillis() {
+			return 1000;
+		}
+
+		@Override
+		public List<String> getPackages() {
+			return emptyList();
+		}
+
+		@Override
+		public Class<? extends Runnable> getInitializer() {
+			return null;
+		}
+
+	}
+
+}
@@ -0,0 +1,106 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import static net.amygdalum.testrecorder.util.Reflections.accessing;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.amygdalum.testrecorder.benchmarks.GenericSerializerBenchmark.Detail;
+import net.amygdalum.testrecorder.benchmarks.GenericSerializerBenchmark.Node;
+import net.amygdalum.testrecorder.util.FieldAccessor;
+import net.amygdalum.testrecorder.util.GenericComparison;
+
+/**
+ * Compares reading the (private) fields of an object through {@link net.amygdalum.testrecorder.util.Reflections#accessing} with
+ * reading them through cached {@link FieldAccessor}s, accessible fields and unreflected getter handles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldAccessBenchmark {
+
+	private Field[] fields;
+	private FieldAccessor[] accessors;
+	private Field[] accessibleFields;
+	private MethodHandle[] getters;
+	private Node node;
+	private Node other;
+
+	@Setup
+	public void setup() throws Exception {
+		fields = new Field[] {
+			Node.class.getDeclaredField("name"),
+			Node.class.getDeclaredField("value"),
+			Node.class.getDeclaredField("detail")
+		};
+		accessors = new FieldAccessor[fields.length];
+		accessibleFields = new Field[fields.length];
+		getters = new MethodHandle[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			accessors[i] = FieldAccessor.of(fields[i]);
+			accessibleFields[i] = Node.class.getDeclaredField(fields[i].getName());
+			accessibleFields[i].setAccessible(true);
+			getters[i] = MethodHandles.lookup().unreflectGetter(accessibleFields[i]);
+		}
+		node = new Node("node", 42, new Detail(42, 0.5));
+		other = new Node("node", 42, new Detail(42, 0.5));
+	}
+
+	@Benchmark
+	public void readAccessing(Blackhole blackhole) throws ReflectiveOperationException {
+		for (Field field : fields) {
+			blackhole.consume(accessing(field).call(() -> field.get(node)));
+		}
+	}
+
+	@Benchmark
+	public void readFieldAccessor(Blackhole blackhole) throws ReflectiveOperationException {
+		for (Field field : fields) {
+			blackhole.consume(FieldAccessor.of(field).get(node));
+		}
+	}
+
+	@Benchmark
+	public void readResolvedAccessor(Blackhole blackhole) throws ReflectiveOperationException {
+		for (FieldAccessor accessor : accessors) {
+			blackhole.consume(accessor.get(node));
+		}
+	}
+
+	@Benchmark
+	public void readAccessible(Blackhole blackhole) throws ReflectiveOperationException {
+		for (Field field : accessibleFields) {
+			blackhole.consume(field.get(node));
+		}
+	}
+
+	@Benchmark
+	public void readMethodHandle(Blackhole blackhole) throws Throwable {
+		for (MethodHandle getter : getters) {
+			blackhole.consume(getter.invoke(node));
+		}
+	}
+
+	@Benchmark
+	public boolean compareGeneric() {
+		return GenericComparison.equals("node", node, other);
+	}
+
+}
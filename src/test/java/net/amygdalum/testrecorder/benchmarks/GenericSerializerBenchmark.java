@@ -0,0 +1,124 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.amygdalum.testrecorder.ConfigurableSerializerFacade;
+import net.amygdalum.testrecorder.DefaultTestRecorderAgentConfig;
+import net.amygdalum.testrecorder.SerializationProfile;
+import net.amygdalum.testrecorder.SerializedValue;
+
+/**
+ * Measures serializing an object graph of 100.000 generic objects (50.000 nodes with 50.000 details) and an object graph of 50.000 objects
+ * with 8 references to shared objects each, with the reflective generic serializer and with generated serializers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenericSerializerBenchmark {
+
+	private SerializationProfile profile;
+	private Node[] nodes;
+	private Wide[] wides;
+
+	@Setup
+	public void setup() throws Exception {
+		profile = new DefaultTestRecorderAgentConfig();
+		nodes = new Node[50_000];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = new Node("node" + (i % 100), i, new Detail(i, i * 0.5));
+		}
+		Detail[] shared = new Detail[16];
+		for (int i = 0; i < shared.length; i++) {
+			shared[i] = new Detail(i, i * 0.5);
+		}
+		wides = new Wide[50_000];
+		for (int i = 0; i < wides.length; i++) {
+			wides[i] = new Wide(shared, i);
+		}
+	}
+
+	@Benchmark
+	public SerializedValue serializeGraph() {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(profile);
+		return facade.serialize(Node[].class, nodes);
+	}
+
+	@Benchmark
+	public SerializedValue serializeGraphGenerated() {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(profile);
+		facade.setGenerationThreshold(0);
+		return facade.serialize(Node[].class, nodes);
+	}
+
+	@Benchmark
+	public SerializedValue serializeWide() {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(profile);
+		return facade.serialize(Wide[].class, wides);
+	}
+
+	@Benchmark
+	public SerializedValue serializeWideGenerated() {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(profile);
+		facade.setGenerationThreshold(0);
+		return facade.serialize(Wide[].class, wides);
+	}
+
+	public static class Node {
+		private String name;
+		private int value;
+		private Detail detail;
+
+		public Node(String name, int value, Detail detail) {
+			this.name = name;
+			this.value = value;
+			this.detail = detail;
+		}
+	}
+
+	public static class Detail {
+		private long id;
+		private double weight;
+
+		public Detail(long id, double weight) {
+			this.id = id;
+			this.weight = weight;
+		}
+	}
+
+	public static class Wide {
+		private Detail d0;
+		private Detail d1;
+		private Detail d2;
+		private Detail d3;
+		private Detail d4;
+		private Detail d5;
+		private Detail d6;
+		private Detail d7;
+
+		public Wide(Detail[] details, int i) {
+			d0 = details[i % details.length];
+			d1 = details[(i + 1) % details.length];
+			d2 = details[(i + 2) % details.length];
+			d3 = details[(i + 3) % details.length];
+			d4 = details[(i + 4) % details.length];
+			d5 = details[(i + 5) % details.length];
+			d6 = details[(i + 6) % details.length];
+			d7 = details[(i + 7) % details.length];
+		}
+	}
+
+}
@@ -0,0 +1,121 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.amygdalum.testrecorder.util.IdentityTable;
+
+/**
+ * Compares {@link IdentityHashMap} and {@link IdentityTable} as table of visited objects in a sequence of snapshots: each snapshot
+ * puts and gets its objects and clears the table afterwards. Small snapshots have 32 objects, large snapshots 200.000 objects.
+ *
+ * <ul>
+ * <li>small* benchmarks run 100 small snapshots on a table that has grown with one large snapshot before</li>
+ * <li>mixed* benchmarks run one large snapshot followed by 1000 small snapshots</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentityTableBenchmark {
+
+	private Object[] small;
+	private Object[] large;
+
+	private Map<Object, Object> map;
+	private IdentityTable<Object> table;
+
+	@Setup
+	public void setup() throws Exception {
+		small = objects(32);
+		large = objects(200_000);
+	}
+
+	@Setup(Level.Iteration)
+	public void grow() throws Exception {
+		map = new IdentityHashMap<>();
+		table = new IdentityTable<>();
+		snapshot(map, large, null);
+		snapshot(table, large, null);
+	}
+
+	private static Object[] objects(int size) {
+		Object[] objects = new Object[size];
+		for (int i = 0; i < objects.length; i++) {
+			objects[i] = new Object();
+		}
+		return objects;
+	}
+
+	@Benchmark
+	public void smallIdentityHashMap(Blackhole blackhole) {
+		for (int i = 0; i < 100; i++) {
+			snapshot(map, small, blackhole);
+		}
+	}
+
+	@Benchmark
+	public void smallIdentityTable(Blackhole blackhole) {
+		for (int i = 0; i < 100; i++) {
+			snapshot(table, small, blackhole);
+		}
+	}
+
+	@Benchmark
+	public void mixedIdentityHashMap(Blackhole blackhole) {
+		snapshot(map, large, blackhole);
+		for (int i = 0; i < 1000; i++) {
+			snapshot(map, small, blackhole);
+		}
+	}
+
+	@Benchmark
+	public void mixedIdentityTable(Blackhole blackhole) {
+		snapshot(table, large, blackhole);
+		for (int i = 0; i < 1000; i++) {
+			snapshot(table, small, blackhole);
+		}
+	}
+
+	private static void snapshot(Map<Object, Object> map, Object[] objects, Blackhole blackhole) {
+		for (Object object : objects) {
+			if (map.get(object) == null) {
+				map.put(object, object);
+			}
+		}
+		if (blackhole != null) {
+			blackhole.consume(map.get(objects[0]));
+		}
+		map.clear();
+	}
+
+	private static void snapshot(IdentityTable<Object> table, Object[] objects, Blackhole blackhole) {
+		for (Object object : objects) {
+			if (table.get(object) == null) {
+				table.put(object, object);
+			}
+		}
+		if (blackhole != null) {
+			blackhole.consume(table.get(objects[0]));
+		}
+		table.clear();
+	}
+
+}
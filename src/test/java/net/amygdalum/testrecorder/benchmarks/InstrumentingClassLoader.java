@@ -0,0 +1,30 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import net.amygdalum.testrecorder.SnapshotInstrumentor;
+
+public class InstrumentingClassLoader extends ClassLoader {
+
+	private String name;
+	private byte[] bytes;
+
+	public InstrumentingClassLoader(ClassLoader parent, SnapshotInstrumentor instrumentor, Class<?> clazz) throws Exception {
+		super(parent);
+		this.name = clazz.getName();
+		this.bytes = instrumentor.instrument(name);
+	}
+
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		if (!this.name.equals(name)) {
+			return super.loadClass(name, resolve);
+		}
+		synchronized (getClassLoadingLock(name)) {
+			Class<?> clazz = findLoadedClass(name);
+			if (clazz == null) {
+				clazz = defineClass(name, bytes, 0, bytes.length);
+			}
+			return clazz;
+		}
+	}
+
+}
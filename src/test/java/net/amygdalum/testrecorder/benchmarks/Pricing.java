@@ -0,0 +1,19 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import net.amygdalum.testrecorder.Snapshot;
+
+public class Pricing implements PricingService {
+
+	private double discount;
+
+	public Pricing() {
+		this.discount = 0.1;
+	}
+
+	@Snapshot
+	@Override
+	public double price(double base, long quantity) {
+		return base * quantity * (1 - discount);
+	}
+
+}
@@ -0,0 +1,7 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+public interface PricingService {
+
+	double price(double base, long quantity);
+
+}
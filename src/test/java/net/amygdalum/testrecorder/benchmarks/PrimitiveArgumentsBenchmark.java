@@ -0,0 +1,65 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.amygdalum.testrecorder.ContextSnapshot;
+import net.amygdalum.testrecorder.ContextSnapshotFactory;
+import net.amygdalum.testrecorder.DefaultTestRecorderAgentConfig;
+import net.amygdalum.testrecorder.SnapshotProcess;
+
+/**
+ * Compares recording a call with primitive arguments passed as boxed array with passing each primitive argument separately.
+ *
+ * Run with: java -cp target/test-classes:target/classes:&lt;dependencies&gt; org.openjdk.jmh.Main PrimitiveArgumentsBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveArgumentsBenchmark {
+
+	private ContextSnapshotFactory factory;
+	private Pricing self;
+	private double base;
+	private long quantity;
+
+	@Setup
+	public void setup() throws Exception {
+		factory = new ContextSnapshotFactory(Pricing.class, new DefaultTestRecorderAgentConfig(), double.class, "price", double.class, long.class);
+		self = new Pricing();
+		base = 12.5;
+		quantity = 3;
+	}
+
+	@Benchmark
+	public ContextSnapshot boxed() {
+		SnapshotProcess process = new SnapshotProcess(null, 1_000, factory);
+		process.setupVariables(self, new Object[] { base, quantity });
+		double result = self.price(base, quantity);
+		process.expectVariables(self, (Object) result, new Object[] { base, quantity });
+		return process.getSnapshot();
+	}
+
+	@Benchmark
+	public ContextSnapshot primitive() {
+		SnapshotProcess process = new SnapshotProcess(null, 1_000, factory);
+		process.value(base).value(quantity).setupVariables(self);
+		double result = self.price(base, quantity);
+		process.value(base).value(quantity).value(result).expectVariables(self);
+		return process.getSnapshot();
+	}
+
+}
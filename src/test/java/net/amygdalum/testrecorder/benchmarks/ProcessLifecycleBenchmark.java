@@ -0,0 +1,106 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.amygdalum.testrecorder.ContextSnapshotFactory;
+import net.amygdalum.testrecorder.DefaultTestRecorderAgentConfig;
+import net.amygdalum.testrecorder.SnapshotProcess;
+
+/**
+ * Measures the lifecycle of snapshot processes (each with its own serializer facade) recorded in one thread. Small snapshots record an
+ * array of 16 objects, large snapshots an array of 20.000 objects.
+ *
+ * <ul>
+ * <li>small runs 100 small snapshots</li>
+ * <li>mixed runs one large snapshot followed by 100 small snapshots</li>
+ * </ul>
+ *
+ * Run with: java -cp target/test-classes:target/classes:&lt;dependencies&gt; org.openjdk.jmh.Main ProcessLifecycleBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessLifecycleBenchmark {
+
+	private ContextSnapshotFactory factory;
+	private Items self;
+	private Item[] small;
+	private Item[] large;
+
+	@Setup
+	public void setup() throws Exception {
+		factory = new ContextSnapshotFactory(Items.class, new DefaultTestRecorderAgentConfig(), int.class, "count", Item[].class);
+		self = new Items();
+		small = items(16);
+		large = items(20_000);
+	}
+
+	private static Item[] items(int size) {
+		Item[] items = new Item[size];
+		for (int i = 0; i < items.length; i++) {
+			items[i] = new Item(i);
+		}
+		return items;
+	}
+
+	@Benchmark
+	public void small(Blackhole blackhole) {
+		for (int i = 0; i < 100; i++) {
+			blackhole.consume(record(small));
+		}
+	}
+
+	@Benchmark
+	public void mixed(Blackhole blackhole) {
+		blackhole.consume(record(large));
+		for (int i = 0; i < 100; i++) {
+			blackhole.consume(record(small));
+		}
+	}
+
+	private Object record(Item[] items) {
+		SnapshotProcess process = new SnapshotProcess(null, 10_000, factory);
+		process.setupVariables(self, new Object[] { items });
+		int result = self.count(items);
+		process.expectVariables(self, (Object) result, new Object[] { items });
+		return process.getSnapshot();
+	}
+
+	public static class Items {
+
+		public int count(Item[] items) {
+			return items.length;
+		}
+
+	}
+
+	public static class Item {
+
+		private int value;
+
+		public Item(int value) {
+			this.value = value;
+		}
+
+		public int getValue() {
+			return value;
+		}
+
+	}
+
+}
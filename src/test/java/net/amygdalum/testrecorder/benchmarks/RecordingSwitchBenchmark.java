@@ -0,0 +1,76 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.amygdalum.testrecorder.DefaultTestRecorderAgentConfig;
+import net.amygdalum.testrecorder.RecordingSwitch;
+import net.amygdalum.testrecorder.SnapshotConsumer;
+import net.amygdalum.testrecorder.SnapshotInstrumentor;
+
+/**
+ * Compares calls of an uninstrumented method with calls of the instrumented method while recording is disabled or enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordingSwitchBenchmark {
+
+	@Param({ "uninstrumented", "disabled", "enabled" })
+	public String mode;
+
+	private PricingService pricing;
+	private double base;
+
+	@Setup
+	public void setup() throws Exception {
+		base = 12.5;
+		if (mode.equals("uninstrumented")) {
+			pricing = new Pricing();
+		} else {
+			SnapshotInstrumentor instrumentor = new SnapshotInstrumentor(new DiscardingConfig());
+			ClassLoader loader = new InstrumentingClassLoader(getClass().getClassLoader(), instrumentor, Pricing.class);
+			pricing = (PricingService) loader.loadClass(Pricing.class.getName()).newInstance();
+		}
+		if (mode.equals("disabled")) {
+			RecordingSwitch.RECORDING.disable();
+		} else {
+			RecordingSwitch.RECORDING.enable();
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		RecordingSwitch.RECORDING.enable();
+	}
+
+	@Benchmark
+	public double call() {
+		return pricing.price(base, 3);
+	}
+
+	public static class DiscardingConfig extends DefaultTestRecorderAgentConfig {
+
+		@Override
+		public SnapshotConsumer getSnapshotConsumer() {
+			return null;
+		}
+
+	}
+
+}
@@ -0,0 +1,63 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.amygdalum.testrecorder.ContextSnapshot;
+import net.amygdalum.testrecorder.ContextSnapshotFactory;
+import net.amygdalum.testrecorder.DefaultTestRecorderAgentConfig;
+import net.amygdalum.testrecorder.SnapshotProcess;
+import net.amygdalum.testrecorder.TestrecorderThreadFactory;
+import net.amygdalum.testrecorder.util.testobjects.Complex;
+
+/**
+ * Measures recorded calls per second of a simple snapshot method.
+ *
+ * Run with: java -cp target/test-classes:target/classes:&lt;dependencies&gt; org.openjdk.jmh.Main SnapshotProcessBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotProcessBenchmark {
+
+	private ExecutorService executor;
+	private ContextSnapshotFactory factory;
+	private Complex self;
+
+	@Setup
+	public void setup() throws Exception {
+		executor = Executors.newSingleThreadExecutor(new TestrecorderThreadFactory("$snapshot"));
+		factory = new ContextSnapshotFactory(Complex.class, new DefaultTestRecorderAgentConfig(), String.class, "getSimple", int.class);
+		self = new Complex("benchmark");
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public ContextSnapshot recordCall() {
+		SnapshotProcess process = new SnapshotProcess(executor, 1_000, factory);
+		process.setupVariables(self, new Object[] { 42 });
+		process.expectVariables(self, (Object) "result", new Object[] { 42 });
+		return process.getSnapshot();
+	}
+
+}
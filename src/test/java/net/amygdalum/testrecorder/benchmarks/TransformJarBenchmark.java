@@ -0,0 +1,92 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import static java.util.Arrays.asList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.objectweb.asm.ClassReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.amygdalum.testrecorder.DefaultTestRecorderAgentConfig;
+import net.amygdalum.testrecorder.SnapshotInstrumentor;
+
+/**
+ * Measures the startup cost of the agent: transforming all classes of a large jar (asm-debug-all) that is matched
+ * by the configured packages but does not contain any snapshot annotations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TransformJarBenchmark {
+
+	private SnapshotInstrumentor instrumentor;
+	private List<String> names;
+	private List<byte[]> classes;
+
+	@Setup
+	public void setup() throws Exception {
+		instrumentor = new SnapshotInstrumentor(new DefaultTestRecorderAgentConfig() {
+			@Override
+			public List<String> getPackages() {
+				return asList("org.objectweb.asm", "net.amygdalum.testrecorder.scenarios");
+			}
+		});
+		names = new ArrayList<>();
+		classes = new ArrayList<>();
+		String jar = ClassReader.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+		try (JarFile file = new JarFile(jar)) {
+			Enumeration<JarEntry> entries = file.entries();
+			while (entries.hasMoreElements()) {
+				JarEntry entry = entries.nextElement();
+				String name = entry.getName();
+				if (name.endsWith(".class")) {
+					names.add(name.substring(0, name.length() - ".class".length()));
+					classes.add(read(file.getInputStream(entry)));
+				}
+			}
+		}
+	}
+
+	private static byte[] read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int len;
+		while ((len = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, len);
+		}
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public int transformJar() throws Exception {
+		int transformed = 0;
+		for (int i = 0; i < classes.size(); i++) {
+			byte[] result = instrumentor.transform(null, names.get(i), null, null, classes.get(i));
+			if (result != null) {
+				transformed++;
+			}
+		}
+		return transformed;
+	}
+
+}
@@ -0,0 +1,61 @@
+package net.amygdalum.testrecorder.deserializers.builder;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.deserializers.Computation;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+
+public class DefaultPrimitiveArrayAdaptorTest {
+
+	private DefaultPrimitiveArrayAdaptor adaptor;
+
+	@Before
+	public void before() throws Exception {
+		adaptor = new DefaultPrimitiveArrayAdaptor();
+	}
+
+	@Test
+	public void testParentNull() throws Exception {
+		assertThat(adaptor.parent(), nullValue());
+	}
+
+	@Test
+	public void testMatchesAnyPrimitiveArray() throws Exception {
+		assertThat(adaptor.matches(int[].class), is(true));
+		assertThat(adaptor.matches(char[].class), is(true));
+	}
+
+	@Test
+	public void testTryDeserialize() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(int[].class).with(new int[] { 0, 8, 15 });
+		SetupGenerators generator = new SetupGenerators(getClass());
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getStatements().toString(), containsString("int[] intArray1 = new int[]{0, 8, 15}"));
+		assertThat(result.getValue(), equalTo("intArray1"));
+	}
+
+	@Test
+	public void testTryDeserializeLarge() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(int[].class).with(IntStream.range(0, 100).toArray());
+		SetupGenerators generator = new SetupGenerators(getClass());
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getStatements().toString(), containsString("int[] intArray1 = intArray(\""));
+		assertThat(result.getValue(), equalTo("intArray1"));
+		assertThat(generator.getTypes().getImports(), hasItem("static net.amygdalum.testrecorder.util.PrimitiveArrays.intArray"));
+	}
+
+}
@@ -0,0 +1,50 @@
+package net.amygdalum.testrecorder.deserializers.builder;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.deserializers.Computation;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
+
+public class DefaultTruncatedAdaptorTest {
+
+	private DefaultTruncatedAdaptor adaptor;
+
+	@Before
+	public void before() throws Exception {
+		adaptor = new DefaultTruncatedAdaptor();
+	}
+
+	@Test
+	public void testParentNull() throws Exception {
+		assertThat(adaptor.parent(), nullValue());
+	}
+
+	@Test
+	public void testMatchesAnyType() throws Exception {
+		assertThat(adaptor.matches(Object.class), is(true));
+		assertThat(adaptor.matches(ArrayList.class), is(true));
+	}
+
+	@Test
+	public void testTryDeserialize() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(ArrayList.class, "more than 2 elements").withResult(List.class);
+		SetupGenerators generator = new SetupGenerators(getClass());
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getStatements(), empty());
+		assertThat(result.getValue(), equalTo("null"));
+		assertThat(result.getType(), equalTo(List.class));
+	}
+
+}
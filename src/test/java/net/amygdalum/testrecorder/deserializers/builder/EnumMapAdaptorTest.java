@@ -0,0 +1,73 @@
+package net.amygdalum.testrecorder.deserializers.builder;
+
+import static net.amygdalum.testrecorder.util.Types.parameterized;
+import static net.amygdalum.testrecorder.values.SerializedLiteral.literal;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.DeserializationException;
+import net.amygdalum.testrecorder.deserializers.Computation;
+import net.amygdalum.testrecorder.values.SerializedEnum;
+import net.amygdalum.testrecorder.values.SerializedMap;
+
+public class EnumMapAdaptorTest {
+
+	private EnumMapAdaptor adaptor;
+
+	@Before
+	public void before() throws Exception {
+		adaptor = new EnumMapAdaptor();
+	}
+
+	@Test
+	public void testParent() throws Exception {
+		assertThat(adaptor.parent(), equalTo(DefaultMapAdaptor.class));
+	}
+
+	@Test
+	public void testMatches() throws Exception {
+		assertThat(adaptor.matches(EnumMap.class), is(true));
+		assertThat(adaptor.matches(parameterized(EnumMap.class, null, Key.class, Integer.class)), is(true));
+		assertThat(adaptor.matches(HashMap.class), is(false));
+	}
+
+	@Test
+	public void testTryDeserialize() throws Exception {
+		SerializedMap value = new SerializedMap(parameterized(EnumMap.class, null, Key.class, Integer.class)).withResult(parameterized(Map.class, null, Key.class, Integer.class));
+		SerializedEnum first = new SerializedEnum(Key.class);
+		first.setName("FIRST");
+		value.put(first, literal(15));
+		SetupGenerators generator = new SetupGenerators(getClass());
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getStatements().toString(), allOf(
+			containsString("EnumMap<Key, Integer> temp1 = new EnumMap<Key, Integer>(Key.class)"),
+			containsString("temp1.put(Key.FIRST, 15)"),
+			containsString("Map<Key, Integer> map1 = temp1;")));
+		assertThat(result.getValue(), equalTo("map1"));
+	}
+
+	@Test(expected = DeserializationException.class)
+	public void testTryDeserializeUnknownKeyType() throws Exception {
+		SerializedMap value = new SerializedMap(EnumMap.class).withResult(Object.class);
+		SetupGenerators generator = new SetupGenerators(getClass());
+
+		adaptor.tryDeserialize(value, generator);
+	}
+
+	public static enum Key {
+		FIRST, SECOND;
+	}
+
+}
@@ -0,0 +1,60 @@
+package net.amygdalum.testrecorder.deserializers.matcher;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.deserializers.Computation;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+
+public class DefaultPrimitiveArrayAdaptorTest {
+
+	private DefaultPrimitiveArrayAdaptor adaptor;
+
+	@Before
+	public void before() throws Exception {
+		adaptor = new DefaultPrimitiveArrayAdaptor();
+	}
+
+	@Test
+	public void testParentNull() throws Exception {
+		assertThat(adaptor.parent(), nullValue());
+	}
+
+	@Test
+	public void testMatchesAnyPrimitiveArray() throws Exception {
+		assertThat(adaptor.matches(int[].class), is(true));
+		assertThat(adaptor.matches(char[].class), is(true));
+	}
+
+	@Test
+	public void testTryDeserialize() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(int[].class).with(new int[] { 0, 8, 15 });
+		MatcherGenerators generator = new MatcherGenerators(getClass());
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getStatements(), empty());
+		assertThat(result.getValue(), equalTo("intArrayContaining(0, 8, 15)"));
+	}
+
+	@Test
+	public void testTryDeserializeLarge() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(int[].class).with(IntStream.range(0, 100).toArray());
+		MatcherGenerators generator = new MatcherGenerators(getClass());
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getStatements(), empty());
+		assertThat(result.getValue(), startsWith("intArrayContaining(intArray(\""));
+	}
+
+}
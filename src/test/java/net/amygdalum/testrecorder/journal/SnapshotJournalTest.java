@@ -0,0 +1,359 @@
+package net.amygdalum.testrecorder.journal;
+
+import static java.util.Arrays.asList;
+import static net.amygdalum.testrecorder.util.Types.parameterized;
+import static net.amygdalum.testrecorder.util.Types.wildcard;
+import static net.amygdalum.testrecorder.util.Types.wildcardExtends;
+import static net.amygdalum.testrecorder.values.SerializedLiteral.literal;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.amygdalum.testrecorder.ConfigurableSerializerFacade;
+import net.amygdalum.testrecorder.ContextSnapshot;
+import net.amygdalum.testrecorder.DefaultTestRecorderAgentConfig;
+import net.amygdalum.testrecorder.SerializedValue;
+import net.amygdalum.testrecorder.TestGenerator;
+import net.amygdalum.testrecorder.values.SerializedField;
+import net.amygdalum.testrecorder.values.SerializedImmutable;
+import net.amygdalum.testrecorder.values.SerializedInput;
+import net.amygdalum.testrecorder.values.SerializedList;
+import net.amygdalum.testrecorder.values.SerializedLiteral;
+import net.amygdalum.testrecorder.values.SerializedObject;
+import net.amygdalum.testrecorder.values.SerializedOutput;
+
+public class SnapshotJournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path dir;
+
+	@Before
+	public void before() throws Exception {
+		dir = folder.getRoot().toPath().resolve("journal");
+	}
+
+	@Test
+	public void testReplayGeneratesSameTest() throws Exception {
+		ContextSnapshot snapshot = snapshot(bean(), bean());
+
+		List<ContextSnapshot> replayed = roundtrip(snapshot);
+
+		assertThat(replayed, hasSize(1));
+		assertThat(render(replayed.get(0)), equalTo(render(snapshot)));
+	}
+
+	@Test
+	public void testSharedAndCyclicValues() throws Exception {
+		Bean bean = bean();
+		bean.self = bean;
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		SerializedValue serializedBean = facade.serialize(Bean.class, bean);
+		ContextSnapshot snapshot = new ContextSnapshot(Bean.class, void.class, "run");
+		snapshot.setSetupThis(serializedBean);
+		snapshot.setExpectThis(serializedBean);
+
+		ContextSnapshot replayed = roundtrip(snapshot).get(0);
+
+		SerializedObject setupThis = (SerializedObject) replayed.getSetupThis();
+		assertThat(replayed.getExpectThis(), sameInstance(setupThis));
+		assertThat(field(setupThis, "self"), sameInstance(setupThis));
+		assertThat(replayed.getSetupArgs(), equalTo(null));
+	}
+
+	@Test
+	public void testDeepGraph() throws Exception {
+		Node root = null;
+		for (int i = 0; i < 100_000; i++) {
+			root = new Node(i, root);
+		}
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		ContextSnapshot snapshot = new ContextSnapshot(Node.class, void.class, "run");
+		snapshot.setSetupThis(facade.serialize(Node.class, root));
+
+		ContextSnapshot replayed = roundtrip(snapshot).get(0);
+
+		SerializedValue current = replayed.getSetupThis();
+		int count = 0;
+		while (current instanceof SerializedObject) {
+			assertThat(((SerializedLiteral) field((SerializedObject) current, "value")).getValue(), equalTo(99_999 - count));
+			current = field((SerializedObject) current, "next");
+			count++;
+		}
+		assertThat(count, equalTo(100_000));
+	}
+
+	@Test
+	public void testTypes() throws Exception {
+		Type listOfStrings = parameterized(List.class, null, String.class);
+		Type mapOfWildcards = parameterized(Map.class, null, wildcard(), wildcardExtends(Number.class));
+		Type classVariable = Generic.class.getTypeParameters()[0];
+		Type methodVariable = Generic.class.getDeclaredMethod("method", Object.class).getTypeParameters()[0];
+		ContextSnapshot snapshot = new ContextSnapshot(Generic.class, methodVariable, "method", listOfStrings, mapOfWildcards, classVariable, int[].class);
+
+		ContextSnapshot replayed = roundtrip(snapshot).get(0);
+
+		assertThat(replayed.getDeclaringClass(), equalTo(Generic.class));
+		assertThat(replayed.getResultType(), equalTo(methodVariable));
+		assertThat(replayed.getMethodName(), equalTo("method"));
+		Type[] argumentTypes = replayed.getArgumentTypes();
+		assertThat(argumentTypes[0].getTypeName(), equalTo("java.util.List<java.lang.String>"));
+		assertThat(argumentTypes[1].getTypeName(), equalTo("java.util.Map<?, ? extends java.lang.Number>"));
+		assertThat(argumentTypes[2], equalTo(classVariable));
+		assertThat(argumentTypes[3], equalTo(int[].class));
+	}
+
+	@Test
+	public void testInputAndOutput() throws Exception {
+		ContextSnapshot snapshot = new ContextSnapshot(Bean.class, void.class, "run");
+		snapshot.setSetupInput(asList(new SerializedInput(Bean.class, "read", int.class, literal(int.class, 42), new Type[] { String.class }, literal("in"))));
+		snapshot.setExpectOutput(asList(new SerializedOutput(Bean.class, "write", new Type[] { String.class }, literal("out"))));
+
+		ContextSnapshot replayed = roundtrip(snapshot).get(0);
+
+		SerializedInput input = replayed.getSetupInput().get(0);
+		assertThat(input, equalTo(snapshot.getSetupInput().get(0)));
+		assertThat(input.getResultType(), equalTo(int.class));
+		assertThat(input.getResult(), equalTo(literal(int.class, 42)));
+		assertThat(replayed.getExpectOutput(), contains(snapshot.getExpectOutput().get(0)));
+		assertThat(replayed.getExpectOutput().get(0).getValues(), arrayContaining((SerializedValue) literal("out")));
+	}
+
+	@Test
+	public void testSegments() throws Exception {
+		SnapshotJournal journal = new SnapshotJournal(dir).withSegmentSize(4096).withFlushInterval(8);
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			Bean bean = bean();
+			bean.i = i;
+			ContextSnapshot snapshot = snapshot(bean, bean);
+			snapshots.add(snapshot);
+			journal.accept(snapshot);
+		}
+		journal.close();
+
+		List<ContextSnapshot> replayed = new SnapshotJournalReader(dir).read();
+
+		assertThat(segments(), greaterThan(1L));
+		assertThat(replayed, hasSize(100));
+		for (int i = 0; i < 100; i++) {
+			assertThat(render(replayed.get(i)), equalTo(render(snapshots.get(i))));
+		}
+	}
+
+	@Test
+	public void testSnapshotLargerThanSegment() throws Exception {
+		Node root = null;
+		for (int i = 0; i < 10_000; i++) {
+			root = new Node(i, root);
+		}
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		ContextSnapshot snapshot = new ContextSnapshot(Node.class, void.class, "run");
+		snapshot.setSetupThis(facade.serialize(Node.class, root));
+		SnapshotJournal journal = new SnapshotJournal(dir).withSegmentSize(1024);
+
+		journal.accept(snapshot(bean(), bean()));
+		journal.accept(snapshot);
+		journal.accept(snapshot(bean(), bean()));
+		journal.close();
+
+		List<ContextSnapshot> replayed = new SnapshotJournalReader(dir).read();
+		assertThat(replayed, hasSize(3));
+		assertThat(replayed.get(1).getSetupThis(), instanceOf(SerializedObject.class));
+		assertThat(segments(), equalTo(3L));
+	}
+
+	@Test
+	public void testAppendsToExistingJournal() throws Exception {
+		SnapshotJournal journal = new SnapshotJournal(dir);
+		journal.accept(snapshot(bean(), bean()));
+		journal.close();
+		SnapshotJournal next = new SnapshotJournal(dir);
+		next.accept(snapshot(bean(), bean()));
+		next.close();
+
+		assertThat(new SnapshotJournalReader(dir).read(), hasSize(2));
+		assertThat(segments(), equalTo(2L));
+	}
+
+	@Test
+	public void testSkipsSnapshotsThatCannotBeJournaled() throws Exception {
+		SnapshotJournal journal = new SnapshotJournal(dir);
+		ContextSnapshot failing = new ContextSnapshot(Bean.class, void.class, "failing");
+		failing.setSetupThis(new SerializedImmutable<>(Object.class).withValue(new Object()));
+		ContextSnapshot succeeding = new ContextSnapshot(Bean.class, void.class, "succeeding");
+		succeeding.setSetupThis(literal("succeeding"));
+
+		journal.accept(failing);
+		journal.accept(succeeding);
+		journal.close();
+
+		List<ContextSnapshot> replayed = new SnapshotJournalReader(dir).read();
+		assertThat(replayed, hasSize(1));
+		assertThat(replayed.get(0).getMethodName(), equalTo("succeeding"));
+		assertThat(replayed.get(0).getSetupThis(), equalTo(literal("succeeding")));
+	}
+
+	@Test(timeout = 10_000)
+	public void testAcceptDoesNotWaitForForce() throws Exception {
+		CountDownLatch forcing = new CountDownLatch(1);
+		CountDownLatch forced = new CountDownLatch(1);
+		SnapshotJournal journal = new SnapshotJournal(dir) {
+			@Override
+			void force(MappedByteBuffer segment) {
+				forcing.countDown();
+				try {
+					forced.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.force(segment);
+			}
+		}.withFlushInterval(1);
+
+		journal.accept(snapshot(bean(), bean()));
+		forcing.await();
+		for (int i = 0; i < 10; i++) {
+			journal.accept(snapshot(bean(), bean()));
+		}
+		forced.countDown();
+		journal.close();
+
+		assertThat(new SnapshotJournalReader(dir).read(), hasSize(11));
+	}
+
+	@Test
+	public void testReadEmptyJournal() throws Exception {
+		assertThat(new SnapshotJournalReader(dir).read(), hasSize(0));
+	}
+
+	private List<ContextSnapshot> roundtrip(ContextSnapshot snapshot) {
+		SnapshotJournal journal = new SnapshotJournal(dir);
+		journal.accept(snapshot);
+		journal.close();
+		return new SnapshotJournalReader(dir).read();
+	}
+
+	private long segments() throws Exception {
+		return Files.list(dir).collect(Collectors.counting());
+	}
+
+	private static SerializedValue field(SerializedObject object, String name) {
+		for (SerializedField field : object.getFields()) {
+			if (field.getName().equals(name)) {
+				return field.getValue();
+			}
+		}
+		return null;
+	}
+
+	private static ContextSnapshot snapshot(Bean setup, Bean expect) throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(new DefaultTestRecorderAgentConfig());
+		ContextSnapshot snapshot = new ContextSnapshot(Bean.class, String.class, "describe", int.class);
+		snapshot.setSetupThis(facade.serialize(Bean.class, setup));
+		snapshot.setSetupArgs(facade.serialize(int.class, 2));
+		snapshot.setSetupGlobals(new SerializedField[0]);
+		facade.reset();
+		snapshot.setExpectThis(facade.serialize(Bean.class, expect));
+		snapshot.setExpectArgs(facade.serialize(int.class, 2));
+		snapshot.setExpectResult(facade.serialize(String.class, expect.describe(2)));
+		snapshot.setExpectGlobals(new SerializedField[0]);
+		return snapshot;
+	}
+
+	private static String render(ContextSnapshot snapshot) {
+		TestGenerator generator = new TestGenerator(null);
+		generator.accept(snapshot);
+		String test = generator.await().renderTest(Bean.class);
+		generator.close();
+		return test;
+	}
+
+	private static Bean bean() {
+		Bean bean = new Bean();
+		bean.i = 42;
+		bean.c = 'c';
+		bean.d = 0.5;
+		bean.s = "string";
+		bean.decimal = new BigDecimal("1.25");
+		bean.type = String.class;
+		bean.color = Color.GREEN;
+		bean.ints = new int[] { 1, 2, 3 };
+		bean.strings = new String[] { "a", null, "b" };
+		bean.list = new ArrayList<>(asList("x", "y"));
+		bean.set = new LinkedHashSet<>(asList(3, 1, 2));
+		bean.map = new LinkedHashMap<>();
+		bean.map.put("one", 1);
+		bean.map.put("two", 2);
+		bean.node = new Node(1, new Node(2, null));
+		return bean;
+	}
+
+	public enum Color {
+		RED, GREEN;
+	}
+
+	@SuppressWarnings("unused")
+	public static class Bean {
+		private int i;
+		private char c;
+		private double d;
+		private String s;
+		private BigDecimal decimal;
+		private Class<?> type;
+		private Color color;
+		private int[] ints;
+		private String[] strings;
+		private List<String> list;
+		private Set<Integer> set;
+		private Map<String, Integer> map;
+		private Node node;
+		private Bean self;
+
+		public String describe(int times) {
+			return s + times;
+		}
+	}
+
+	public static class Node {
+		private int value;
+		private Node next;
+
+		public Node(int value, Node next) {
+			this.value = value;
+			this.next = next;
+		}
+	}
+
+	public static class Generic<T> {
+		public <S> S method(S s) {
+			return s;
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+package net.amygdalum.testrecorder.scenarios;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import net.amygdalum.testrecorder.Snapshot;
+
+public class JdkCollectionDataTypes {
+
+	public JdkCollectionDataTypes() {
+	}
+
+	@Snapshot
+	public List<Integer> lists(List<Integer> ints, int i) {
+		ints.add(i % 3);
+		return ints;
+	}
+
+	@Snapshot
+	public Queue<Integer> queues(Queue<Integer> ints, int i) {
+		ints.add(i % 3);
+		if (ints.size() > 3) {
+			ints.remove();
+		}
+		return ints;
+	}
+
+	@Snapshot
+	public Map<Integer, Integer> maps(Map<Integer, Integer> ints, int i) {
+		ints.put(i, i % 3);
+		return ints;
+	}
+
+	@Snapshot
+	public Map<Key, Integer> enumMaps(Map<Key, Integer> ints, int i) {
+		ints.put(Key.values()[i % 3], i);
+		return ints;
+	}
+
+	public static enum Key {
+		FIRST, SECOND, THIRD;
+	}
+
+}
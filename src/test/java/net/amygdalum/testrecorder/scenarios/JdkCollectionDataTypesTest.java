@@ -0,0 +1,152 @@
+package net.amygdalum.testrecorder.scenarios;
+
+import static net.amygdalum.testrecorder.dynamiccompile.CompilableMatcher.compiles;
+import static net.amygdalum.testrecorder.dynamiccompile.TestsRunnableMatcher.testsRun;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import net.amygdalum.testrecorder.TestGenerator;
+import net.amygdalum.testrecorder.scenarios.JdkCollectionDataTypes.Key;
+import net.amygdalum.testrecorder.util.Instrumented;
+import net.amygdalum.testrecorder.util.InstrumentedClassLoaderRunner;
+
+@RunWith(InstrumentedClassLoaderRunner.class)
+@Instrumented(classes = { "net.amygdalum.testrecorder.scenarios.JdkCollectionDataTypes" })
+public class JdkCollectionDataTypesTest {
+
+	@Before
+	public void before() throws Exception {
+		TestGenerator.fromRecorded().clearResults();
+	}
+
+	@Test
+	public void testCopyOnWriteArrayListCompilable() throws Exception {
+		CopyOnWriteArrayList<Integer> list = new CopyOnWriteArrayList<>();
+
+		JdkCollectionDataTypes dataTypes = new JdkCollectionDataTypes();
+		for (int i = 1; i <= 10; i++) {
+			dataTypes.lists(list, i);
+		}
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(testGenerator.testsFor(JdkCollectionDataTypes.class), hasSize(10));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), containsString("new CopyOnWriteArrayList<>()"));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), not(containsString("GenericObject")));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), compiles(JdkCollectionDataTypes.class));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), testsRun(JdkCollectionDataTypes.class));
+	}
+
+	@Test
+	public void testConcurrentLinkedQueueCompilable() throws Exception {
+		ConcurrentLinkedQueue<Integer> queue = new ConcurrentLinkedQueue<>();
+
+		JdkCollectionDataTypes dataTypes = new JdkCollectionDataTypes();
+		for (int i = 1; i <= 10; i++) {
+			dataTypes.queues(queue, i);
+		}
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(testGenerator.testsFor(JdkCollectionDataTypes.class), hasSize(10));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), not(containsString("GenericObject")));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), compiles(JdkCollectionDataTypes.class));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), testsRun(JdkCollectionDataTypes.class));
+	}
+
+	@Test
+	public void testArrayDequeCompilable() throws Exception {
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+
+		JdkCollectionDataTypes dataTypes = new JdkCollectionDataTypes();
+		for (int i = 1; i <= 10; i++) {
+			dataTypes.queues(queue, i);
+		}
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(testGenerator.testsFor(JdkCollectionDataTypes.class), hasSize(10));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), not(containsString("GenericObject")));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), compiles(JdkCollectionDataTypes.class));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), testsRun(JdkCollectionDataTypes.class));
+	}
+
+	@Test
+	public void testPriorityQueueCompilable() throws Exception {
+		PriorityQueue<Integer> queue = new PriorityQueue<>();
+
+		JdkCollectionDataTypes dataTypes = new JdkCollectionDataTypes();
+		for (int i = 1; i <= 10; i++) {
+			dataTypes.queues(queue, i);
+		}
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(testGenerator.testsFor(JdkCollectionDataTypes.class), hasSize(10));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), containsString("new PriorityQueue<>()"));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), not(containsString("GenericObject")));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), compiles(JdkCollectionDataTypes.class));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), testsRun(JdkCollectionDataTypes.class));
+	}
+
+	@Test
+	public void testConcurrentHashMapCompilable() throws Exception {
+		ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>();
+
+		JdkCollectionDataTypes dataTypes = new JdkCollectionDataTypes();
+		for (int i = 1; i <= 10; i++) {
+			dataTypes.maps(map, i);
+		}
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(testGenerator.testsFor(JdkCollectionDataTypes.class), hasSize(10));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), containsString("new ConcurrentHashMap<>()"));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), not(containsString("GenericObject")));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), compiles(JdkCollectionDataTypes.class));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), testsRun(JdkCollectionDataTypes.class));
+	}
+
+	@Test
+	public void testTreeMapCompilable() throws Exception {
+		TreeMap<Integer, Integer> map = new TreeMap<>();
+
+		JdkCollectionDataTypes dataTypes = new JdkCollectionDataTypes();
+		for (int i = 1; i <= 10; i++) {
+			dataTypes.maps(map, i);
+		}
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(testGenerator.testsFor(JdkCollectionDataTypes.class), hasSize(10));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), not(containsString("GenericObject")));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), compiles(JdkCollectionDataTypes.class));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), testsRun(JdkCollectionDataTypes.class));
+	}
+
+	@Test
+	public void testEnumMapCompilable() throws Exception {
+		EnumMap<Key, Integer> map = new EnumMap<>(Key.class);
+
+		JdkCollectionDataTypes dataTypes = new JdkCollectionDataTypes();
+		for (int i = 1; i <= 10; i++) {
+			dataTypes.enumMaps(map, i);
+		}
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(testGenerator.testsFor(JdkCollectionDataTypes.class), hasSize(10));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), containsString("(Key.class)"));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), not(containsString("GenericObject")));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), compiles(JdkCollectionDataTypes.class));
+		assertThat(testGenerator.renderTest(JdkCollectionDataTypes.class), testsRun(JdkCollectionDataTypes.class));
+	}
+
+}
@@ -18,7 +18,6 @@ import net.amygdalum.testrecorder.TestGenerator;
 import net.amygdalum.testrecorder.util.Instrumented;
 import net.amygdalum.testrecorder.util.InstrumentedClassLoaderRunner;
 
-@Ignore
 @RunWith(InstrumentedClassLoaderRunner.class)
 @Instrumented(classes = { "net.amygdalum.testrecorder.scenarios.LargeIntArrays", "net.amygdalum.testrecorder.scenarios.LargeObjectArrays" })
 public class LargeArraysTest {
@@ -55,6 +54,7 @@ public class LargeArraysTest {
 		assertThat(testGenerator.renderTest(LargeIntArrays.class), testsRun(LargeIntArrays.class));
 	}
 
+	@Ignore
 	@Test
 	public void testLargeObjectArraysArgumentCompilable() throws Exception {
 		LargeObjectArrays arrays = new LargeObjectArrays();
@@ -67,7 +67,8 @@ public class LargeArraysTest {
 		assertThat(testGenerator.renderTest(LargeObjectArrays.class), testsRun(LargeObjectArrays.class));
 	}
 
-	@Test 
+	@Ignore
+	@Test
 	public void testLargeObjectArraysClassCompilable() throws Exception {
 		LargeObjectArrays arrays = new LargeObjectArrays(100);
 
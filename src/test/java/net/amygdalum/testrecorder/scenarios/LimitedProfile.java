@@ -0,0 +1,11 @@
+package net.amygdalum.testrecorder.scenarios;
+
+import net.amygdalum.testrecorder.DefaultTestRecorderAgentConfig;
+import net.amygdalum.testrecorder.SerializationLimits;
+
+public class LimitedProfile extends DefaultTestRecorderAgentConfig {
+	@Override
+	public SerializationLimits getLimits() {
+		return new SerializationLimits(2, 10, 100);
+	}
+}
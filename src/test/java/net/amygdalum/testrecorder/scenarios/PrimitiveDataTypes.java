@@ -47,4 +47,9 @@ public class PrimitiveDataTypes {
 		return Math.log(d);
 	}
 
+	@Snapshot
+	public double mixed(long l, double d, int i) {
+		return l * d + i;
+	}
+
 }
\ No newline at end of file
@@ -27,6 +27,7 @@ public class PrimitiveDataTypesTest {
 			dataTypes.floats((float) i);
 			dataTypes.longs(i);
 			dataTypes.doubles((double) i);
+			dataTypes.mixed(i, 0.5, -i);
 		}
 
 		TestGenerator testGenerator = TestGenerator.fromRecorded();
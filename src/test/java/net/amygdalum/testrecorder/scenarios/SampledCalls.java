@@ -0,0 +1,19 @@
+package net.amygdalum.testrecorder.scenarios;
+
+import net.amygdalum.testrecorder.Snapshot;
+
+public class SampledCalls {
+
+	public SampledCalls() {
+	}
+
+	@Snapshot(sample = 3)
+	public long square(int i) {
+		return (long) i * i;
+	}
+
+	@Snapshot(sample = 2)
+	public void fail(int i) {
+		throw new IllegalArgumentException(String.valueOf(i));
+	}
+}
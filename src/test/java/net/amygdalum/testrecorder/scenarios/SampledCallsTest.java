@@ -0,0 +1,68 @@
+package net.amygdalum.testrecorder.scenarios;
+
+import static net.amygdalum.testrecorder.dynamiccompile.CompilableMatcher.compiles;
+import static net.amygdalum.testrecorder.dynamiccompile.TestsRunnableMatcher.testsRun;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import net.amygdalum.testrecorder.TestGenerator;
+import net.amygdalum.testrecorder.util.Instrumented;
+import net.amygdalum.testrecorder.util.InstrumentedClassLoaderRunner;
+
+@RunWith(InstrumentedClassLoaderRunner.class)
+@Instrumented(classes = { "net.amygdalum.testrecorder.scenarios.SampledCalls" })
+public class SampledCallsTest {
+
+	@Before
+	public void before() throws Exception {
+		TestGenerator.fromRecorded().clearResults();
+	}
+
+	@Test
+	public void testNumberOfGeneratedTests() throws Exception {
+		SampledCalls calls = new SampledCalls();
+		long sum = 0;
+		for (int i = 0; i < 9; i++) {
+			sum += calls.square(i);
+		}
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(sum, equalTo(204L));
+		assertThat(testGenerator.testsFor(SampledCalls.class), hasSize(3));
+	}
+
+	@Test
+	public void testNumberOfGeneratedTestsOnException() throws Exception {
+		SampledCalls calls = new SampledCalls();
+		int failures = 0;
+		for (int i = 0; i < 4; i++) {
+			try {
+				calls.fail(i);
+			} catch (IllegalArgumentException e) {
+				failures++;
+			}
+		}
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(failures, equalTo(4));
+		assertThat(testGenerator.testsFor(SampledCalls.class), hasSize(2));
+	}
+
+	@Test
+	public void testCompilable() throws Exception {
+		SampledCalls calls = new SampledCalls();
+		for (int i = 0; i < 7; i++) {
+			calls.square(i);
+		}
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(testGenerator.renderTest(SampledCalls.class), compiles(SampledCalls.class));
+		assertThat(testGenerator.renderTest(SampledCalls.class), testsRun(SampledCalls.class));
+	}
+
+}
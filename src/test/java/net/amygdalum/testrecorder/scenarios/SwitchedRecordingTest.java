@@ -0,0 +1,60 @@
+package net.amygdalum.testrecorder.scenarios;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import net.amygdalum.testrecorder.RecordingSwitch;
+import net.amygdalum.testrecorder.TestGenerator;
+import net.amygdalum.testrecorder.util.Instrumented;
+import net.amygdalum.testrecorder.util.InstrumentedClassLoaderRunner;
+
+@RunWith(InstrumentedClassLoaderRunner.class)
+@Instrumented(classes = { "net.amygdalum.testrecorder.scenarios.Results" })
+public class SwitchedRecordingTest {
+
+	@Before
+	public void before() throws Exception {
+		TestGenerator.fromRecorded().clearResults();
+	}
+
+	@After
+	public void after() throws Exception {
+		RecordingSwitch.RECORDING.enable();
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		RecordingSwitch.RECORDING.disable();
+
+		Results pow = new Results();
+		for (int i = 1; i <= 10; i++) {
+			pow.pow(i);
+		}
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(testGenerator.testsFor(Results.class), empty());
+	}
+
+	@Test
+	public void testReenabled() throws Exception {
+		Results pow = new Results();
+		RecordingSwitch.RECORDING.disable();
+		for (int i = 1; i <= 5; i++) {
+			pow.pow(i);
+		}
+		RecordingSwitch.RECORDING.enable();
+		for (int i = 6; i <= 10; i++) {
+			pow.pow(i);
+		}
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(testGenerator.testsFor(Results.class), hasSize(5));
+	}
+
+}
@@ -0,0 +1,41 @@
+package net.amygdalum.testrecorder.scenarios;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.amygdalum.testrecorder.Snapshot;
+
+public class TruncatedGraphs {
+
+	private String name;
+	private Chain chain;
+	private List<String> items;
+	private int[] values;
+
+	public TruncatedGraphs(String name, int length, int items) {
+		this.name = name;
+		for (int i = 0; i < length; i++) {
+			chain = new Chain(i, chain);
+		}
+		this.items = new ArrayList<>();
+		for (int i = 0; i < items; i++) {
+			this.items.add("item" + i);
+		}
+		this.values = new int[items];
+	}
+
+	@Snapshot(profile = LimitedProfile.class)
+	public String getName() {
+		return name;
+	}
+
+	public static class Chain {
+		private int value;
+		private Chain next;
+
+		public Chain(int value, Chain next) {
+			this.value = value;
+			this.next = next;
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package net.amygdalum.testrecorder.scenarios;
+
+import static net.amygdalum.testrecorder.dynamiccompile.CompilableMatcher.compiles;
+import static net.amygdalum.testrecorder.dynamiccompile.TestsRunnableMatcher.testsRun;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import net.amygdalum.testrecorder.TestGenerator;
+import net.amygdalum.testrecorder.util.Instrumented;
+import net.amygdalum.testrecorder.util.InstrumentedClassLoaderRunner;
+
+@RunWith(InstrumentedClassLoaderRunner.class)
+@Instrumented(classes = {
+	"net.amygdalum.testrecorder.scenarios.LimitedProfile",
+	"net.amygdalum.testrecorder.scenarios.TruncatedGraphs"
+})
+public class TruncatedGraphsTest {
+
+	@Before
+	public void before() throws Exception {
+		TestGenerator.fromRecorded().clearResults();
+	}
+
+	@Test
+	public void testCompilable() throws Exception {
+		TruncatedGraphs graphs = new TruncatedGraphs("graphs", 5, 20);
+
+		assertThat(graphs.getName(), equalTo("graphs"));
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(testGenerator.renderTest(TruncatedGraphs.class), compiles(TruncatedGraphs.class));
+		assertThat(testGenerator.renderTest(TruncatedGraphs.class), testsRun(TruncatedGraphs.class));
+	}
+
+	@Test
+	public void testCode() throws Exception {
+		TruncatedGraphs graphs = new TruncatedGraphs("graphs", 5, 20);
+
+		graphs.getName();
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(testGenerator.testsFor(TruncatedGraphs.class), hasSize(1));
+		assertThat(testGenerator.testsFor(TruncatedGraphs.class).iterator().next(), allOf(
+			containsString("truncated(ArrayList.class)"),
+			containsString("truncated(int[].class)"),
+			containsString("truncated(Chain.class)")));
+	}
+
+}
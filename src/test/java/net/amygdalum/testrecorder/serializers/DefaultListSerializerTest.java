@@ -14,6 +14,7 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -40,7 +41,7 @@ public class DefaultListSerializerTest {
 	@SuppressWarnings("unchecked")
 	@Test
 	public void testGetMatchingClasses() throws Exception {
-		assertThat(serializer.getMatchingClasses(), containsInAnyOrder(LinkedList.class, ArrayList.class, Vector.class));
+		assertThat(serializer.getMatchingClasses(), containsInAnyOrder(LinkedList.class, ArrayList.class, Vector.class, CopyOnWriteArrayList.class));
 	}
 
 	@Test
@@ -14,6 +14,7 @@ import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -40,7 +41,7 @@ public class DefaultMapSerializerTest {
 	@SuppressWarnings("unchecked")
 	@Test
 	public void testGetMatchingClasses() throws Exception {
-		assertThat(serializer.getMatchingClasses(), containsInAnyOrder(HashMap.class, TreeMap.class, LinkedHashMap.class));
+		assertThat(serializer.getMatchingClasses(), containsInAnyOrder(HashMap.class, TreeMap.class, LinkedHashMap.class, ConcurrentHashMap.class));
 	}
 
 	@Test
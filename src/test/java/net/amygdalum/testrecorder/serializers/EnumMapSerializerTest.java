@@ -0,0 +1,97 @@
+package net.amygdalum.testrecorder.serializers;
+
+import static net.amygdalum.testrecorder.util.Types.baseType;
+import static net.amygdalum.testrecorder.util.Types.parameterized;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.collection.IsMapContaining.hasEntry;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Type;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import net.amygdalum.testrecorder.SerializedValue;
+import net.amygdalum.testrecorder.Serializer;
+import net.amygdalum.testrecorder.SerializerFacade;
+import net.amygdalum.testrecorder.values.SerializedEnum;
+import net.amygdalum.testrecorder.values.SerializedLiteral;
+import net.amygdalum.testrecorder.values.SerializedMap;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EnumMapSerializerTest {
+
+	private SerializerFacade facade;
+	private Serializer<SerializedMap> serializer;
+
+	@Before
+	public void before() throws Exception {
+		facade = mock(SerializerFacade.class);
+		serializer = new EnumMapSerializer.Factory().newSerializer(facade);
+	}
+
+	@Test
+	public void testGetMatchingClasses() throws Exception {
+		assertThat(serializer.getMatchingClasses(), contains(EnumMap.class));
+	}
+
+	@Test
+	public void testGenerate() throws Exception {
+		Type mapOfKeyInteger = parameterized(Map.class, null, Key.class, Integer.class);
+
+		SerializedMap value = serializer.generate(mapOfKeyInteger, EnumMap.class);
+
+		assertThat(value.getResultType(), equalTo(mapOfKeyInteger));
+		assertThat(value.getType(), equalTo(EnumMap.class));
+	}
+
+	@Test
+	public void testPopulate() throws Exception {
+		SerializedValue first = new SerializedEnum(Key.class);
+		SerializedValue i42 = SerializedLiteral.literal(Integer.class, 42);
+		when(facade.serialize(Key.class, Key.FIRST)).thenReturn(first);
+		when(facade.serialize(Object.class, 42)).thenReturn(i42);
+		SerializedMap value = serializer.generate(Object.class, EnumMap.class);
+		EnumMap<Key, Integer> map = new EnumMap<>(Key.class);
+		map.put(Key.FIRST, 42);
+
+		serializer.populate(value, map);
+
+		assertThat(value, hasEntry(first, i42));
+		assertThat(baseType(value.getType()), equalTo(EnumMap.class));
+		assertThat(value.getMapKeyType(), equalTo(Key.class));
+		assertThat(value.getMapValueType(), equalTo(Object.class));
+	}
+
+	@Test
+	public void testPopulateEmptyWithDeclaredKeyType() throws Exception {
+		SerializedMap value = serializer.generate(parameterized(Map.class, null, Key.class, Integer.class), EnumMap.class);
+
+		serializer.populate(value, new EnumMap<>(Key.class));
+
+		assertThat(baseType(value.getType()), equalTo(EnumMap.class));
+		assertThat(value.getMapKeyType(), equalTo(Key.class));
+		assertThat(value.getMapValueType(), equalTo(Integer.class));
+	}
+
+	@Test
+	public void testPopulateEmptyWithUnknownKeyType() throws Exception {
+		SerializedMap value = serializer.generate(Object.class, EnumMap.class);
+
+		serializer.populate(value, new EnumMap<>(Key.class));
+
+		assertThat(value.getMapKeyType(), equalTo(Key.class));
+	}
+
+	public static enum Key {
+		FIRST, SECOND;
+	}
+
+}
@@ -0,0 +1,163 @@
+package net.amygdalum.testrecorder.serializers;
+
+import static net.amygdalum.testrecorder.values.SerializedLiteral.literal;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.SerializedReferenceType;
+import net.amygdalum.testrecorder.SerializedValue;
+import net.amygdalum.testrecorder.Serializer;
+import net.amygdalum.testrecorder.SerializerFacade;
+import net.amygdalum.testrecorder.values.SerializedField;
+import net.amygdalum.testrecorder.values.SerializedList;
+import net.amygdalum.testrecorder.values.SerializedNull;
+import net.amygdalum.testrecorder.values.SerializedObject;
+
+public class GeneratedSerializerFactoryTest {
+
+	private SerializerFacade facade;
+
+	@Before
+	public void before() throws Exception {
+		facade = mock(SerializerFacade.class);
+	}
+
+	@Test
+	public void testGenerate() throws Exception {
+		Serializer<SerializedReferenceType> serializer = new GeneratedSerializerFactory(Primitives.class, fields(Primitives.class)).newSerializer(facade);
+
+		SerializedObject value = (SerializedObject) serializer.generate(Object.class, Primitives.class);
+
+		assertThat(value.getResultType(), equalTo(Object.class));
+		assertThat(value.getType(), equalTo(Primitives.class));
+	}
+
+	@Test
+	public void testGenerateOnExcludedType() throws Exception {
+		when(facade.excludes(Random.class)).thenReturn(true);
+		Serializer<SerializedReferenceType> serializer = new GeneratedSerializerFactory(Random.class, new Field[0]).newSerializer(facade);
+
+		SerializedValue value = serializer.generate(Random.class, Random.class);
+
+		assertThat(value, instanceOf(SerializedNull.class));
+	}
+
+	@Test
+	public void testPopulatePrimitives() throws Exception {
+		Serializer<SerializedReferenceType> serializer = new GeneratedSerializerFactory(Primitives.class, fields(Primitives.class)).newSerializer(facade);
+		SerializedObject value = (SerializedObject) serializer.generate(Primitives.class, Primitives.class);
+
+		serializer.populate(value, new Primitives());
+
+		assertThat(value.getFields(), contains(
+			new SerializedField(Primitives.class, "booleanField", boolean.class, literal(true)),
+			new SerializedField(Primitives.class, "charField", char.class, literal('c')),
+			new SerializedField(Primitives.class, "byteField", byte.class, literal((byte) 1)),
+			new SerializedField(Primitives.class, "shortField", short.class, literal((short) 2)),
+			new SerializedField(Primitives.class, "intField", int.class, literal(3)),
+			new SerializedField(Primitives.class, "floatField", float.class, literal(4.5f)),
+			new SerializedField(Primitives.class, "longField", long.class, literal(6l)),
+			new SerializedField(Primitives.class, "doubleField", double.class, literal(7.5d)),
+			new SerializedField(Primitives.class, "volatileField", int.class, literal(8))));
+	}
+
+	@Test
+	public void testPopulateReferences() throws Exception {
+		SerializedValue foo = literal("Foo");
+		SerializedList list = new SerializedList(List.class);
+		when(facade.serialize(String.class, "Foo")).thenReturn(foo);
+		when(facade.serialize(List.class, null)).thenReturn(list);
+		Serializer<SerializedReferenceType> serializer = new GeneratedSerializerFactory(References.class, fields(References.class)).newSerializer(facade);
+		SerializedObject value = (SerializedObject) serializer.generate(References.class, References.class);
+
+		serializer.populate(value, new References("Foo"));
+
+		assertThat(value.getFields(), contains(
+			new SerializedField(References.class, "stringField", String.class, foo),
+			new SerializedField(References.class, "listField", List.class, list)));
+	}
+
+	@Test
+	public void testPopulateInheritedFields() throws Exception {
+		SerializedValue foo = literal("Foo");
+		when(facade.serialize(String.class, "Foo")).thenReturn(foo);
+		Field[] fields = new Field[] { SubReferences.class.getDeclaredField("subField"), References.class.getDeclaredField("stringField") };
+		Serializer<SerializedReferenceType> serializer = new GeneratedSerializerFactory(SubReferences.class, fields).newSerializer(facade);
+		SerializedObject value = (SerializedObject) serializer.generate(SubReferences.class, SubReferences.class);
+
+		serializer.populate(value, new SubReferences("Foo", 42));
+
+		assertThat(value.getFields(), contains(
+			new SerializedField(SubReferences.class, "subField", int.class, literal(42)),
+			new SerializedField(References.class, "stringField", String.class, foo)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPopulateOtherClass() throws Exception {
+		Serializer<SerializedReferenceType> serializer = new GeneratedSerializerFactory(References.class, fields(References.class)).newSerializer(facade);
+		SerializedObject value = (SerializedObject) serializer.generate(References.class, References.class);
+
+		serializer.populate(value, new SubReferences("Foo", 42));
+	}
+
+	@Test
+	public void testSupports() throws Exception {
+		assertThat(GeneratedSerializerFactory.supports(Primitives.class, fields(Primitives.class)), equalTo(true));
+		assertThat(GeneratedSerializerFactory.supports(Statics.class, Statics.class.getDeclaredFields()), equalTo(false));
+		assertThat(GeneratedSerializerFactory.supports(int[].class, new Field[0]), equalTo(false));
+	}
+
+	private static Field[] fields(Class<?> clazz) {
+		return clazz.getDeclaredFields();
+	}
+
+	@SuppressWarnings("unused")
+	private static class Primitives {
+		private boolean booleanField = true;
+		private char charField = 'c';
+		private byte byteField = 1;
+		private short shortField = 2;
+		private int intField = 3;
+		private float floatField = 4.5f;
+		private long longField = 6;
+		private double doubleField = 7.5;
+		private volatile int volatileField = 8;
+	}
+
+	@SuppressWarnings("unused")
+	private static class References {
+		private String stringField;
+		private List<String> listField;
+
+		References(String stringField) {
+			this.stringField = stringField;
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static class SubReferences extends References {
+		private int subField;
+
+		SubReferences(String stringField, int subField) {
+			super(stringField);
+			this.subField = subField;
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static class Statics {
+		private static int staticField;
+	}
+
+}
@@ -0,0 +1,49 @@
+package net.amygdalum.testrecorder.serializers;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.Serializer;
+import net.amygdalum.testrecorder.SerializerFacade;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+
+public class PrimitiveArraySerializerTest {
+
+	private SerializerFacade facade;
+	private Serializer<SerializedPrimitiveArray> serializer;
+
+	@Before
+	public void before() throws Exception {
+		facade = mock(SerializerFacade.class);
+		serializer = new PrimitiveArraySerializer(facade);
+	}
+
+	@Test
+	public void testGetMatchingClasses() throws Exception {
+		assertThat(serializer.getMatchingClasses(), empty());
+	}
+
+	@Test
+	public void testGenerate() throws Exception {
+		SerializedPrimitiveArray value = serializer.generate(int[].class, int[].class);
+
+		assertThat(value.getResultType(), equalTo(int[].class));
+		assertThat(value.getType(), equalTo(int[].class));
+		assertThat(value.getComponentType(), equalTo(int.class));
+	}
+
+	@Test
+	public void testPopulate() throws Exception {
+		SerializedPrimitiveArray value = serializer.generate(double[].class, double[].class);
+
+		serializer.populate(value, new double[] { 0.5, 1.5 });
+
+		assertThat(value.getArray(), equalTo(new double[] { 0.5, 1.5 }));
+	}
+
+}
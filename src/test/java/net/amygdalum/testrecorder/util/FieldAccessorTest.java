@@ -0,0 +1,76 @@
+package net.amygdalum.testrecorder.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Field;
+
+import org.junit.Test;
+
+public class FieldAccessorTest {
+
+	@Test
+	public void testGetPrivateField() throws Exception {
+		Field field = Fields.class.getDeclaredField("name");
+
+		assertThat(FieldAccessor.of(field).get(new Fields("value")), equalTo("value"));
+		assertThat(field.isAccessible(), equalTo(false));
+	}
+
+	@Test
+	public void testGetPrimitiveFieldIsBoxed() throws Exception {
+		Field field = Fields.class.getDeclaredField("count");
+
+		assertThat(FieldAccessor.of(field).get(new Fields("value")), equalTo(5));
+	}
+
+	@Test
+	public void testGetStaticField() throws Exception {
+		Field field = Fields.class.getDeclaredField("global");
+
+		assertThat(FieldAccessor.of(field).get(null), equalTo("static"));
+	}
+
+	@Test
+	public void testGetNullValue() throws Exception {
+		Field field = Fields.class.getDeclaredField("name");
+
+		assertThat(FieldAccessor.of(field).get(new Fields(null)), nullValue());
+	}
+
+	@Test
+	public void testGetterReadsPrivatePrimitiveField() throws Throwable {
+		Field field = Fields.class.getDeclaredField("count");
+
+		int count = (int) FieldAccessor.of(field).getter().invokeExact(new Fields("value"));
+
+		assertThat(count, equalTo(5));
+		assertThat(field.isAccessible(), equalTo(false));
+	}
+
+	@Test
+	public void testAccessorsAreShared() throws Exception {
+		FieldAccessor accessor = FieldAccessor.of(Fields.class.getDeclaredField("name"));
+
+		assertThat(FieldAccessor.of(Fields.class.getDeclaredField("name")), sameInstance(accessor));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetFromWrongObject() throws Exception {
+		FieldAccessor.of(Fields.class.getDeclaredField("name")).get("other");
+	}
+
+	@SuppressWarnings("unused")
+	private static class Fields {
+		private static String global = "static";
+		private final int count = 5;
+		private String name;
+
+		Fields(String name) {
+			this.name = name;
+		}
+	}
+
+}
@@ -5,6 +5,7 @@ import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
 
@@ -50,6 +51,13 @@ public class GenericMatcherTest {
 		}.mismatchesWith(null, new Simple()), empty());
 	}
 
+	@Test
+	public void testTruncated() throws Exception {
+		assertThat(GenericMatcher.truncated(Simple.class).matches(new Simple()), is(true));
+		assertThat(GenericMatcher.truncated(Simple.class).matches(null), is(true));
+		assertThat(GenericMatcher.truncated(Simple.class).matches(new Complex()), is(false));
+	}
+
 	@Test
 	public void testMatchingNullValue() throws Exception {
 		assertThat(new GenericMatcher() {
@@ -0,0 +1,215 @@
+package net.amygdalum.testrecorder.util;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.lang.ref.WeakReference;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class IdentityTableTest {
+
+	@Test
+	public void testPutGet() throws Exception {
+		IdentityTable<String> table = new IdentityTable<>();
+		Object key = new Object();
+
+		table.put(key, "value");
+
+		assertThat(table.get(key), equalTo("value"));
+		assertThat(table.get(new Object()), nullValue());
+		assertThat(table.size(), equalTo(1));
+	}
+
+	@Test
+	public void testPutReplaces() throws Exception {
+		IdentityTable<String> table = new IdentityTable<>();
+		Object key = new Object();
+
+		table.put(key, "first");
+		table.put(key, "second");
+
+		assertThat(table.get(key), equalTo("second"));
+		assertThat(table.size(), equalTo(1));
+	}
+
+	@Test
+	public void testPurgeDropsReferences() throws Exception {
+		IdentityTable<Object> table = new IdentityTable<>();
+		Object key = new Object();
+		table.put(key, new Object());
+		WeakReference<Object> reference = new WeakReference<>(key);
+
+		table.purge();
+		key = null;
+
+		assertThat(table.size(), equalTo(0));
+		assertThat(collected(reference), equalTo(true));
+	}
+
+	@Test
+	public void testPurgeAfterSmallGenerationClearsOnlyWrittenSlots() throws Exception {
+		IdentityTable<Object> table = new IdentityTable<>();
+		for (Object key : keys(1000)) {
+			table.put(key, key);
+		}
+		table.purge();
+		Object key = new Object();
+		table.put(key, new Object());
+		table.put(new Object(), new Object());
+		WeakReference<Object> reference = new WeakReference<>(key);
+
+		assertThat(table.capacity(), equalTo(2048));
+		assertThat(table.written(), equalTo(2));
+
+		table.purge();
+		key = null;
+
+		assertThat(table.written(), equalTo(0));
+		assertThat(collected(reference), equalTo(true));
+	}
+
+	@Test
+	public void testPurgeDropsReferencesOfClearedGenerations() throws Exception {
+		IdentityTable<Object> table = new IdentityTable<>();
+		Object key = new Object();
+		table.put(key, new Object());
+		WeakReference<Object> reference = new WeakReference<>(key);
+		table.clear();
+		for (int i = 0; i < 100; i++) {
+			for (Object other : keys(16)) {
+				table.put(other, other);
+			}
+			table.clear();
+		}
+
+		table.purge();
+		key = null;
+
+		assertThat(table.written(), equalTo(0));
+		assertThat(collected(reference), equalTo(true));
+	}
+
+	private static boolean collected(WeakReference<?> reference) throws InterruptedException {
+		for (int i = 0; i < 20 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		return reference.get() == null;
+	}
+
+	@Test
+	public void testComparesIdentity() throws Exception {
+		IdentityTable<String> table = new IdentityTable<>();
+		String key = new String("key");
+
+		table.put(key, "value");
+
+		assertThat(table.get(new String("key")), nullValue());
+		assertThat(table.get(key), equalTo("value"));
+	}
+
+	@Test
+	public void testGrows() throws Exception {
+		IdentityTable<Integer> table = new IdentityTable<>();
+		Object[] keys = keys(100_000);
+
+		for (int i = 0; i < keys.length; i++) {
+			table.put(keys[i], i);
+		}
+
+		assertThat(table.size(), equalTo(100_000));
+		for (int i = 0; i < keys.length; i++) {
+			assertThat(table.get(keys[i]), equalTo(i));
+		}
+	}
+
+	@Test
+	public void testClear() throws Exception {
+		IdentityTable<String> table = new IdentityTable<>();
+		Object key = new Object();
+		table.put(key, "value");
+
+		table.clear();
+
+		assertThat(table.get(key), nullValue());
+		assertThat(table.size(), equalTo(0));
+		table.put(key, "other");
+		assertThat(table.get(key), equalTo("other"));
+		assertThat(table.size(), equalTo(1));
+	}
+
+	@Test
+	public void testClearKeepsCapacityForLargeGenerations() throws Exception {
+		IdentityTable<Integer> table = new IdentityTable<>();
+		Object[] keys = keys(10_000);
+		for (int j = 0; j < IdentityTable.SHRINK_AFTER * 2; j++) {
+			for (int i = 0; i < keys.length; i++) {
+				table.put(keys[i], i);
+			}
+			int capacity = table.capacity();
+
+			table.clear();
+
+			assertThat(table.capacity(), equalTo(capacity));
+		}
+	}
+
+	@Test
+	public void testClearShrinksAfterOutlier() throws Exception {
+		IdentityTable<Integer> table = new IdentityTable<>();
+		Object[] keys = keys(100_000);
+		for (int i = 0; i < keys.length; i++) {
+			table.put(keys[i], i);
+		}
+		table.clear();
+		int large = table.capacity();
+
+		for (int j = 0; j < IdentityTable.SHRINK_AFTER; j++) {
+			assertThat(table.capacity(), equalTo(large));
+			for (int i = 0; i < 100; i++) {
+				table.put(keys[i], i);
+			}
+			table.clear();
+		}
+
+		assertThat(table.capacity(), lessThanOrEqualTo(256));
+		assertThat(table.get(keys[0]), nullValue());
+		table.put(keys[0], 0);
+		assertThat(table.get(keys[0]), equalTo(0));
+	}
+
+	@Test
+	public void testForEach() throws Exception {
+		IdentityTable<Integer> table = new IdentityTable<>();
+		Object[] keys = keys(1000);
+		for (int i = 0; i < keys.length; i++) {
+			table.put(keys[i], -1);
+		}
+		table.clear();
+		for (int i = 0; i < 100; i++) {
+			table.put(keys[i], i);
+		}
+
+		Map<Object, Integer> entries = new IdentityHashMap<>();
+		table.forEach(entries::put);
+
+		assertThat(entries.size(), equalTo(100));
+		for (int i = 0; i < 100; i++) {
+			assertThat(entries.get(keys[i]), equalTo(i));
+		}
+	}
+
+	private static Object[] keys(int size) {
+		Object[] keys = new Object[size];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = new Object();
+		}
+		return keys;
+	}
+
+}
@@ -0,0 +1,47 @@
+package net.amygdalum.testrecorder.util;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class PrefixTrieTest {
+
+	@Test
+	public void testEmpty() throws Exception {
+		PrefixTrie trie = new PrefixTrie();
+
+		assertThat(trie.matchesPrefixOf("net/amygdalum/Class"), equalTo(false));
+		assertThat(trie.matchesPrefixOf(""), equalTo(false));
+	}
+
+	@Test
+	public void testMatchesPrefixOf() throws Exception {
+		PrefixTrie trie = new PrefixTrie(asList("net/amygdalum/testrecorder/scenarios", "com/example/"));
+
+		assertThat(trie.matchesPrefixOf("net/amygdalum/testrecorder/scenarios/Inputs"), equalTo(true));
+		assertThat(trie.matchesPrefixOf("com/example/Service"), equalTo(true));
+		assertThat(trie.matchesPrefixOf("com/example/"), equalTo(true));
+		assertThat(trie.matchesPrefixOf("com/example"), equalTo(false));
+		assertThat(trie.matchesPrefixOf("net/amygdalum/testrecorder/SnapshotManager"), equalTo(false));
+		assertThat(trie.matchesPrefixOf("org/example/Service"), equalTo(false));
+	}
+
+	@Test
+	public void testOverlappingPrefixes() throws Exception {
+		PrefixTrie trie = new PrefixTrie(asList("net/amygdalum/testrecorder/scenarios", "net/amygdalum"));
+
+		assertThat(trie.matchesPrefixOf("net/amygdalum/Other"), equalTo(true));
+		assertThat(trie.matchesPrefixOf("net/amygdalum/testrecorder/scenarios/Inputs"), equalTo(true));
+		assertThat(trie.matchesPrefixOf("net/amy"), equalTo(false));
+	}
+
+	@Test
+	public void testEmptyPrefixMatchesAll() throws Exception {
+		PrefixTrie trie = new PrefixTrie(asList(""));
+
+		assertThat(trie.matchesPrefixOf("any/Class"), equalTo(true));
+	}
+
+}
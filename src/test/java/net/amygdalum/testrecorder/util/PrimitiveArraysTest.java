@@ -0,0 +1,91 @@
+package net.amygdalum.testrecorder.util;
+
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class PrimitiveArraysTest {
+
+	@Test
+	public void testIsLarge() throws Exception {
+		assertThat(PrimitiveArrays.isLarge(new int[PrimitiveArrays.MAX_LITERAL_ELEMENTS]), is(false));
+		assertThat(PrimitiveArrays.isLarge(new int[PrimitiveArrays.MAX_LITERAL_ELEMENTS + 1]), is(true));
+	}
+
+	@Test
+	public void testBooleanArray() throws Exception {
+		boolean[] array = new boolean[] { true, false, true };
+
+		assertThat(PrimitiveArrays.booleanArray(PrimitiveArrays.encode(array)), equalTo(array));
+	}
+
+	@Test
+	public void testCharArray() throws Exception {
+		char[] array = new char[] { 'a', '€', Character.MAX_VALUE };
+
+		assertThat(PrimitiveArrays.charArray(PrimitiveArrays.encode(array)), equalTo(array));
+	}
+
+	@Test
+	public void testByteArray() throws Exception {
+		byte[] array = new byte[] { Byte.MIN_VALUE, 0, Byte.MAX_VALUE };
+
+		assertThat(PrimitiveArrays.byteArray(PrimitiveArrays.encode(array)), equalTo(array));
+	}
+
+	@Test
+	public void testShortArray() throws Exception {
+		short[] array = new short[] { Short.MIN_VALUE, 0, Short.MAX_VALUE };
+
+		assertThat(PrimitiveArrays.shortArray(PrimitiveArrays.encode(array)), equalTo(array));
+	}
+
+	@Test
+	public void testIntArray() throws Exception {
+		int[] array = new int[] { Integer.MIN_VALUE, 0, Integer.MAX_VALUE };
+
+		assertThat(PrimitiveArrays.intArray(PrimitiveArrays.encode(array)), equalTo(array));
+	}
+
+	@Test
+	public void testFloatArray() throws Exception {
+		float[] array = new float[] { -1.5f, Float.NaN, Float.MAX_VALUE };
+
+		assertThat(PrimitiveArrays.floatArray(PrimitiveArrays.encode(array)), equalTo(array));
+	}
+
+	@Test
+	public void testLongArray() throws Exception {
+		long[] array = new long[] { Long.MIN_VALUE, 0l, Long.MAX_VALUE };
+
+		assertThat(PrimitiveArrays.longArray(PrimitiveArrays.encode(array)), equalTo(array));
+	}
+
+	@Test
+	public void testDoubleArray() throws Exception {
+		double[] array = new double[] { -1.5, Double.NaN, Double.MAX_VALUE };
+
+		assertThat(PrimitiveArrays.doubleArray(PrimitiveArrays.encode(array)), equalTo(array));
+	}
+
+	@Test
+	public void testEncodeChunked() throws Exception {
+		int[] array = IntStream.range(0, 100_000).toArray();
+
+		String[] encoded = PrimitiveArrays.encode(array);
+
+		assertThat(encoded, arrayWithSize(9));
+		assertThat(PrimitiveArrays.intArray(encoded), equalTo(array));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEncodeNonPrimitive() throws Exception {
+		PrimitiveArrays.encode(new Integer[] { 1 });
+	}
+
+}
@@ -0,0 +1,186 @@
+package net.amygdalum.testrecorder.values;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LiteralCacheTest {
+
+	private LiteralCache cache;
+
+	@Before
+	public void before() throws Exception {
+		cache = new LiteralCache(64);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCapacityTooSmall() throws Exception {
+		new LiteralCache(0);
+	}
+
+	@Test
+	public void testGetCapacity() throws Exception {
+		assertThat(cache.getCapacity(), equalTo(64));
+		assertThat(new LiteralCache(1).getCapacity(), equalTo(1));
+		assertThat(new LiteralCache(100).getCapacity(), equalTo(128));
+	}
+
+	@Test
+	public void testGetInterns() throws Exception {
+		SerializedLiteral literal = cache.get(String.class, "string");
+
+		assertThat(cache.get(String.class, "string"), sameInstance(literal));
+		assertThat(literal.getResultType(), equalTo(String.class));
+		assertThat(literal.getValue(), equalTo("string"));
+	}
+
+	@Test
+	public void testGetDistinguishesResultTypes() throws Exception {
+		SerializedLiteral primitive = cache.get(long.class, 42l);
+		SerializedLiteral boxed = cache.get(Long.class, 42l);
+		SerializedLiteral object = cache.get(Object.class, 42l);
+
+		assertThat(primitive.getResultType(), equalTo(long.class));
+		assertThat(boxed.getResultType(), equalTo(Long.class));
+		assertThat(object.getResultType(), equalTo(Object.class));
+		assertThat(primitive, not(equalTo(boxed)));
+		assertThat(primitive, not(equalTo(object)));
+	}
+
+	@Test
+	public void testGetPredefined() throws Exception {
+		assertThat(cache.get(int.class, 0), sameInstance(cache.get(int.class, 0)));
+		assertThat(cache.get(int.class, -128).getResultType(), equalTo(int.class));
+		assertThat(cache.get(Integer.class, 1023).getResultType(), equalTo(Integer.class));
+		assertThat(cache.get(boolean.class, true).getValue(), equalTo(true));
+		assertThat(cache.get(Character.class, 'a').getValue(), equalTo('a'));
+
+		assertThat(cache.getStatistics().getHits(), equalTo(6l));
+		assertThat(cache.getStatistics().getMisses(), equalTo(0l));
+		assertThat(cache.getStatistics().getSize(), equalTo(0));
+	}
+
+	@Test
+	public void testGetPrimitivesEqualsGetWrapper() throws Exception {
+		assertThat(cache.get(true), sameInstance(cache.get(Boolean.class, true)));
+		assertThat(cache.get('a'), sameInstance(cache.get(Character.class, 'a')));
+		assertThat(cache.get(42), sameInstance(cache.get(Integer.class, 42)));
+
+		assertThat(cache.get('\u20ac'), sameInstance(cache.get(Character.class, '\u20ac')));
+		assertThat(cache.get((byte) 42), sameInstance(cache.get(Byte.class, (byte) 42)));
+		assertThat(cache.get((short) 4242), sameInstance(cache.get(Short.class, (short) 4242)));
+		assertThat(cache.get(4242), sameInstance(cache.get(Integer.class, 4242)));
+		assertThat(cache.get(42.5f), sameInstance(cache.get(Float.class, 42.5f)));
+		assertThat(cache.get(42l), sameInstance(cache.get(Long.class, 42l)));
+		assertThat(cache.get(42.5), sameInstance(cache.get(Double.class, 42.5)));
+		assertThat(cache.get(Double.NaN), sameInstance(cache.get(Double.class, Double.NaN)));
+	}
+
+	@Test
+	public void testGetPrimitivesDistinguishesValues() throws Exception {
+		SerializedLiteral positive = cache.get(0.0);
+		SerializedLiteral negative = cache.get(-0.0);
+		SerializedLiteral integer = cache.get(4242);
+		SerializedLiteral primitive = cache.get(int.class, 4242);
+
+		assertThat(positive, not(equalTo(negative)));
+		assertThat(cache.get(0.0), equalTo(positive));
+		assertThat(integer.getResultType(), equalTo(Integer.class));
+		assertThat(cache.get(4242), equalTo(integer));
+		assertThat(cache.get(int.class, 4242), equalTo(primitive));
+		assertThat(cache.get(4243).getValue(), equalTo(4243));
+	}
+
+	@Test
+	public void testGetEvicts() throws Exception {
+		for (int i = 0; i < 1000; i++) {
+			cache.get(String.class, "s" + i);
+		}
+
+		LiteralCache.Statistics statistics = cache.getStatistics();
+		assertThat(statistics.getSize(), lessThanOrEqualTo(64));
+		assertThat(statistics.getEvictions(), equalTo(1000l - statistics.getSize()));
+		assertThat(statistics.getMisses(), equalTo(1000l));
+	}
+
+	@Test
+	public void testGetAfterEvictionIsEqual() throws Exception {
+		SerializedLiteral literal = cache.get(String.class, "s");
+		for (int i = 0; i < 1000; i++) {
+			cache.get(String.class, "s" + i);
+		}
+
+		assertThat(cache.get(String.class, "s"), equalTo(literal));
+	}
+
+	@Test
+	public void testGetLongStringsUncached() throws Exception {
+		String longString = new String(new char[LiteralCache.MAX_STRING_LENGTH + 1]);
+
+		cache.get(String.class, longString);
+
+		assertThat(cache.getStatistics().getSize(), equalTo(0));
+		assertThat(cache.getStatistics().getMisses(), equalTo(1l));
+	}
+
+	@Test
+	public void testStatistics() throws Exception {
+		cache.get(String.class, "a");
+		cache.get(String.class, "a");
+		cache.get(String.class, "b");
+		cache.get(String.class, "a");
+
+		LiteralCache.Statistics statistics = cache.getStatistics();
+		assertThat(statistics.getHits(), equalTo(2l));
+		assertThat(statistics.getMisses(), equalTo(2l));
+		assertThat(statistics.getSize(), equalTo(2));
+		assertThat(statistics.getHitRate(), equalTo(0.5));
+		assertThat(statistics.toString(), equalTo("hits: 2, misses: 2, evictions: 0, size: 2"));
+	}
+
+	@Test
+	public void testClear() throws Exception {
+		cache.get(String.class, "a");
+
+		cache.clear();
+
+		assertThat(cache.getStatistics().getSize(), equalTo(0));
+	}
+
+	@Test
+	public void testConcurrentGet() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 10_000; i++) {
+						String value = "s" + (i % 100);
+						assertThat(cache.get(String.class, value).getValue(), equalTo(value));
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		LiteralCache.Statistics statistics = cache.getStatistics();
+		assertThat(statistics.getHits() + statistics.getMisses(), equalTo(40_000l));
+		assertThat(statistics.getSize(), lessThanOrEqualTo(64));
+	}
+
+}
@@ -0,0 +1,63 @@
+package net.amygdalum.testrecorder.values;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class ObjectSchemaTest {
+
+	@Test
+	public void testForClass() throws Exception {
+		assertThat(ObjectSchema.forClass(String.class), sameInstance(ObjectSchema.forClass(String.class)));
+		assertThat(ObjectSchema.forClass(String.class), not(sameInstance(ObjectSchema.forClass(Integer.class))));
+		assertThat(ObjectSchema.forClass(String.class).size(), equalTo(0));
+	}
+
+	@Test
+	public void testWith() throws Exception {
+		ObjectSchema schema = ObjectSchema.forClass(Schema.class)
+			.with(Schema.class, "name", String.class)
+			.with(Schema.class, "value", int.class);
+
+		assertThat(schema.size(), equalTo(2));
+		assertThat(schema.getDeclaringClass(0), equalTo(Schema.class));
+		assertThat(schema.getName(0), equalTo("name"));
+		assertThat(schema.getType(0), equalTo(String.class));
+		assertThat(schema.getDeclaringClass(1), equalTo(Schema.class));
+		assertThat(schema.getName(1), equalTo("value"));
+		assertThat(schema.getType(1), equalTo(int.class));
+	}
+
+	@Test
+	public void testWithIsInterned() throws Exception {
+		ObjectSchema root = ObjectSchema.forClass(Schema.class);
+
+		assertThat(root.with(Schema.class, "name", String.class), sameInstance(root.with(Schema.class, new String("name"), String.class)));
+		assertThat(root.with(Schema.class, "name", String.class), not(sameInstance(root.with(Schema.class, "name", Object.class))));
+		assertThat(root.with(Schema.class, "name", String.class), not(sameInstance(root.with(Object.class, "name", String.class))));
+		assertThat(root.with(Schema.class, "name", String.class), not(sameInstance(root.with(Schema.class, "other", String.class))));
+		assertThat(root.with(Schema.class, "name", String.class), sameInstance(root.with(Schema.class, "name", String.class)));
+	}
+
+	@Test
+	public void testExpectedSize() throws Exception {
+		ObjectSchema root = ObjectSchema.forClass(Sized.class);
+		ObjectSchema first = root.with(Sized.class, "first", String.class);
+
+		first.with(Sized.class, "second", String.class).with(Sized.class, "third", String.class);
+
+		assertThat(root.expectedSize(), equalTo(3));
+		assertThat(first.expectedSize(), equalTo(3));
+		assertThat(first.size(), equalTo(1));
+	}
+
+	private static class Schema {
+	}
+
+	private static class Sized {
+	}
+
+}
@@ -4,6 +4,7 @@ import static net.amygdalum.testrecorder.values.SerializedLiteral.isLiteral;
 import static net.amygdalum.testrecorder.values.SerializedLiteral.literal;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
@@ -37,6 +38,36 @@ public class SerializedLiteralTest {
 		assertThat(testvalue, sameInstance(value));
 	}
 
+	@Test
+	public void testLiteralWithResultType() throws Exception {
+		SerializedLiteral value = literal(Object.class, 1);
+		SerializedLiteral testvalue = literal(int.class, 1);
+
+		assertThat(value.getResultType(), equalTo(Object.class));
+		assertThat(testvalue.getResultType(), equalTo(int.class));
+		assertThat(testvalue, not(equalTo(value)));
+	}
+
+	@Test
+	public void testEquals() throws Exception {
+		String string = "string";
+		SerializedLiteral value = literal(string);
+
+		assertThat(value, equalTo(literal(new String(string))));
+		assertThat(value.hashCode(), equalTo(literal(new String(string)).hashCode()));
+		assertThat(value, not(equalTo(literal(Object.class, string))));
+		assertThat(value, not(equalTo(literal("other"))));
+	}
+
+	@Test
+	public void testCacheStatistics() throws Exception {
+		long requests = SerializedLiteral.cacheStatistics().getHits() + SerializedLiteral.cacheStatistics().getMisses();
+
+		literal("string");
+
+		assertThat(SerializedLiteral.cacheStatistics().getHits() + SerializedLiteral.cacheStatistics().getMisses(), equalTo(requests + 1));
+	}
+
 	@Test
 	public void testGetResultType() throws Exception {
 		SerializedLiteral value = literal("string");
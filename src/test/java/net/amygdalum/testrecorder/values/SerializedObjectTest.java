@@ -2,7 +2,9 @@ package net.amygdalum.testrecorder.values;
 
 import static net.amygdalum.testrecorder.values.SerializedLiteral.literal;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import org.junit.Test;
@@ -46,6 +48,33 @@ public class SerializedObjectTest {
 			new SerializedField(Object.class, "f2", Integer.class, literal(2))));
 	}
 
+	@Test
+	public void testSharesSchemaOfSameClass() throws Exception {
+		SerializedObject first = new SerializedObject(Object.class).withFields(
+			new SerializedField(Object.class, "f1", Object.class, literal("str")),
+			new SerializedField(Object.class, "f2", Integer.class, literal(2)));
+		SerializedObject second = new SerializedObject(Object.class).withFields(
+			new SerializedField(Object.class, "f1", Object.class, literal("other")),
+			new SerializedField(Object.class, "f2", Integer.class, literal(3)));
+
+		assertThat(first.getSchema(), sameInstance(second.getSchema()));
+		assertThat(second.getFields(), contains(
+			new SerializedField(Object.class, "f1", Object.class, literal("other")),
+			new SerializedField(Object.class, "f2", Integer.class, literal(3))));
+	}
+
+	@Test
+	public void testReferencedValues() throws Exception {
+		SerializedObject serializedObject = new SerializedObject(Object.class);
+		SerializedObject referenced = new SerializedObject(Object.class);
+
+		serializedObject.addField(new SerializedField(Object.class, "f1", Object.class, referenced));
+		serializedObject.addField(new SerializedField(Object.class, "f2", Integer.class, literal(2)));
+
+		assertThat(serializedObject.referencedValues(), contains(referenced, literal(2)));
+		assertThat(new SerializedObject(Object.class).referencedValues(), empty());
+	}
+
 	@Test
 	public void testAccept() throws Exception {
 		SerializedObject serializedObject = new SerializedObject(Object.class);
@@ -0,0 +1,68 @@
+package net.amygdalum.testrecorder.values;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.deserializers.TestValueVisitor;
+
+public class SerializedPrimitiveArrayTest {
+
+	@Test
+	public void testGetType() throws Exception {
+		SerializedPrimitiveArray array = new SerializedPrimitiveArray(int[].class);
+
+		assertThat(array.getType(), equalTo(int[].class));
+		assertThat(array.getComponentType(), equalTo(int.class));
+		assertThat(array.getRawType(), equalTo(int.class));
+	}
+
+	@Test
+	public void testGetArrayEmpty() throws Exception {
+		SerializedPrimitiveArray array = new SerializedPrimitiveArray(int[].class);
+
+		assertThat(array.getArray(), equalTo(new int[0]));
+		assertThat(array.getLength(), equalTo(0));
+	}
+
+	@Test
+	public void testWith() throws Exception {
+		int[] values = new int[] { 0, 8, 15 };
+		SerializedPrimitiveArray array = new SerializedPrimitiveArray(int[].class).with(values);
+
+		assertThat(array.getArray(), equalTo(new int[] { 0, 8, 15 }));
+		assertThat(array.getArray(), not(sameInstance(values)));
+		assertThat(array.getLength(), equalTo(3));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWithWrongComponentType() throws Exception {
+		new SerializedPrimitiveArray(int[].class).with(new long[] { 0l });
+	}
+
+	@Test
+	public void testAccept() throws Exception {
+		SerializedPrimitiveArray array = new SerializedPrimitiveArray(int[].class);
+
+		assertThat(array.accept(new TestValueVisitor()), equalTo("SerializedPrimitiveArray"));
+	}
+
+	@Test
+	public void testReferencedValues() throws Exception {
+		SerializedPrimitiveArray array = new SerializedPrimitiveArray(int[].class).with(new int[] { 0, 8, 15 });
+
+		assertThat(array.referencedValues(), empty());
+	}
+
+	@Test
+	public void testToString() throws Exception {
+		SerializedPrimitiveArray array = new SerializedPrimitiveArray(char[].class).with(new char[] { 'a', 'b' });
+
+		assertThat(array.toString(), equalTo("<a, b>"));
+	}
+
+}
@@ -0,0 +1,60 @@
+package net.amygdalum.testrecorder.values;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.amygdalum.testrecorder.deserializers.TestValueVisitor;
+
+public class SerializedTruncatedTest {
+
+	@Test
+	public void testGetType() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(ArrayList.class, "more than 2 elements");
+
+		assertThat(value.getType(), equalTo(ArrayList.class));
+		assertThat(value.getResultType(), equalTo(ArrayList.class));
+	}
+
+	@Test
+	public void testWithResult() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(ArrayList.class, "more than 2 elements").withResult(List.class);
+
+		assertThat(value.getType(), equalTo(ArrayList.class));
+		assertThat(value.getResultType(), equalTo(List.class));
+	}
+
+	@Test
+	public void testGetReason() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(ArrayList.class, "more than 2 elements");
+
+		assertThat(value.getReason(), equalTo("more than 2 elements"));
+	}
+
+	@Test
+	public void testReferencedValues() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(ArrayList.class, "more than 2 elements");
+
+		assertThat(value.referencedValues(), empty());
+	}
+
+	@Test
+	public void testAccept() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(ArrayList.class, "more than 2 elements");
+
+		assertThat(value.accept(new TestValueVisitor()), equalTo("SerializedTruncated"));
+	}
+
+	@Test
+	public void testToString() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(ArrayList.class, "more than 2 elements");
+
+		assertThat(value.toString(), equalTo("<truncated: more than 2 elements>"));
+	}
+
+}